@@ -14,6 +14,6 @@ cd ..
 echo "--------------------"
 echo "REAL-FM-7.splx"
 echo ""
-java -jar ./lib/fm_valid_conf_gen.jar ./data/fms/REAL-FM-7.splx 5 3
+java -jar conf_gen.jar -cfg ./conf/conf_gen_REAL-FM-7.toml
 echo "--------------------"
 echo "DONE"
\ No newline at end of file
@@ -14,6 +14,6 @@ cd ..
 echo "--------------------"
 echo "arcade-game.splx"
 echo ""
-java -jar ./lib/fm_valid_conf_gen.jar ./data/fms/arcade-game.splx 23 3
+java -jar conf_gen.jar -cfg ./conf/conf_gen_arcade-game.toml
 echo "--------------------"
 echo "DONE"
\ No newline at end of file
@@ -14,6 +14,6 @@ cd ..
 echo "--------------------"
 echo "fqa.sxfm"
 echo ""
-java -jar ./lib/fm_valid_conf_gen.jar ./data/fms/fqa.sxfm 62 3
+java -jar conf_gen.jar -cfg ./conf/conf_gen_fqa.toml
 echo "--------------------"
 echo "DONE"
\ No newline at end of file
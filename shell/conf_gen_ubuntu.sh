@@ -14,6 +14,6 @@ cd ..
 echo "--------------------"
 echo "ubuntu.sxfm"
 echo ""
-java -jar ./lib/fm_valid_conf_gen.jar ./data/fms/ubuntu.sxfm 80 3
+java -jar conf_gen.jar -cfg ./conf/conf_gen_ubuntu.toml
 echo "--------------------"
 echo "DONE"
\ No newline at end of file
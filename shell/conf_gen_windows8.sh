@@ -14,6 +14,6 @@ cd ..
 echo "--------------------"
 echo "windows8.sxfm"
 echo ""
-java -jar ./lib/fm_valid_conf_gen.jar ./data/fms/windows8.sxfm 170 3
+java -jar conf_gen.jar -cfg ./conf/conf_gen_windows8.toml
 echo "--------------------"
 echo "DONE"
\ No newline at end of file
@@ -0,0 +1,16 @@
+#
+# Causality-based Explanation for Feature Model Configuration
+#
+# Copyright (c) 2024
+#
+# @author: Viet-Man Le (v.m.le@tugraz.at)
+#
+
+echo "Synthetic Feature Model Generation"
+
+cd ..
+
+echo "--------------------"
+java -jar fm_gen.jar -cfg ./conf/fm_gen.toml
+echo "--------------------"
+echo "DONE"
@@ -0,0 +1,115 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit;
+
+import at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Assignment;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Requirement;
+import at.tugraz.ist.ase.hiconfit.common.LoggerUtils;
+import at.tugraz.ist.ase.hiconfit.fm.Backbone;
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import com.google.common.collect.Sets;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+
+import static at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator.*;
+
+/**
+ * {@link CXPlain} with the {@link Backbone} of the feature model.
+ * <p>
+ * If every assignment of the SCONF is a backbone literal, the explanation lies in the union of
+ * their supports, which is a subset of KB:
+ * + a single assignment is explained by its support, without further checks;
+ * + several assignments are explained by CXP over the union of their supports only.
+ * Other SCONFs are explained by CXPlain. In both cases, CONF ∪ REQ ∪ KB has to be consistent.
+ */
+@Slf4j
+public class BackboneCXPlain extends CXPlain {
+
+    // for evaluation
+    public static final String COUNTER_BACKBONE_EXPLANATIONS = "The number of explanations answered by the backbone";
+    public static final String COUNTER_BACKBONE_SEEDS = "The number of explanations searched in backbone supports";
+
+    private final Backbone backbone;
+
+    public BackboneCXPlain(@NonNull ChocoConsistencyChecker checker, @NonNull Backbone backbone) {
+        super(checker);
+        this.backbone = backbone;
+    }
+
+    /**
+     * @param SCONF the subset of configuration, whose negation is NSCONF
+     * @param REQ user requirement
+     * @param KB a knowledge base
+     * @param CONF a configuration
+     * @param NSCONF negative of subset of configuration
+     * @return an explanation or an empty set
+     */
+    public Set<Constraint> findExplanation(@NonNull Requirement SCONF,
+                                           @NonNull Set<Constraint> REQ,
+                                           @NonNull Set<Constraint> KB,
+                                           @NonNull Set<Constraint> CONF,
+                                           @NonNull Set<Constraint> NSCONF) {
+        Set<Constraint> supports = supportsOf(SCONF.getAssignments(), KB);
+        if (supports == null) {
+            return findExplanation(REQ, KB, CONF, NSCONF);
+        }
+
+        log.debug("{}Identifying explanation in backbone supports [SCONF={}, supports={}] >>>", LoggerUtils.tab(), SCONF, supports);
+        LoggerUtils.indent();
+
+        // not counted, as in CXPlain
+        Set<Constraint> exp;
+        if (!checker.isConsistent(Sets.union(Sets.union(CONF, REQ), KB))) {
+            exp = Collections.emptySet();
+        } else if (SCONF.getAssignments().size() == 1) {
+            incrementCounter(COUNTER_BACKBONE_EXPLANATIONS);
+            exp = supports;
+        } else {
+            incrementCounter(COUNTER_BACKBONE_SEEDS);
+            start(TIMER_CXPLAIN);
+            exp = cxp(Collections.emptySet(), supports, NSCONF);
+            stop(TIMER_CXPLAIN);
+        }
+
+        LoggerUtils.outdent();
+        log.debug("{}<<< Found explanation [exp={}]", LoggerUtils.tab(), exp);
+        return exp;
+    }
+
+    /**
+     * @return the union of the supports of the assignments in KB, or null if an assignment
+     * is not a backbone literal or a constraint of its support is not in KB
+     */
+    private Set<Constraint> supportsOf(List<Assignment> assignments, Set<Constraint> KB) {
+        if (assignments.isEmpty()) {
+            return null;
+        }
+
+        Map<String, Constraint> constraints = new HashMap<>();
+        KB.forEach(c -> constraints.putIfAbsent(c.getConstraint(), c));
+
+        Set<Constraint> supports = new LinkedHashSet<>();
+        for (Assignment assignment : assignments) {
+            if (!backbone.contains(assignment)) {
+                return null;
+            }
+            for (String name : backbone.get(assignment.getVariable()).support()) {
+                Constraint constraint = constraints.get(name);
+                if (constraint == null) {
+                    return null;
+                }
+                supports.add(constraint);
+            }
+        }
+        return supports;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit;
+
+import at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Assignment;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Requirement;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Solution;
+import at.tugraz.ist.ase.hiconfit.checker.WitnessConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.eval.PerformanceEvaluator;
+import at.tugraz.ist.ase.hiconfit.fm.FMCausalExplanationInstance;
+import at.tugraz.ist.ase.hiconfit.fm.FMCausalExplanationTemplate;
+import at.tugraz.ist.ase.hiconfit.fm.core.AbstractRelationship;
+import at.tugraz.ist.ase.hiconfit.fm.core.CTConstraint;
+import at.tugraz.ist.ase.hiconfit.fm.core.Feature;
+import at.tugraz.ist.ase.hiconfit.fm.core.FeatureModel;
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Explains every assignment of a configuration, i.e., runs {@link CXPlain} for all SCONFs {f=v}
+ * of the configuration in one job.
+ * <p>
+ * Each worker thread builds one {@link FMCausalExplanationTemplate} and one {@link WitnessConsistencyChecker},
+ * and explains its share of the assignments with them. The checkers of all workers share
+ * their witness solutions and the results of the checks without NSCONF, so that most checks
+ * after the first few assignments are answered without the solver.
+ * <p>
+ * Explanations are returned in the order of the configuration, and are the same as the ones
+ * of independent CXPlain calls since the shared results are exact.
+ * <p>
+ * The counters and timers of {@link CAEvaluator} and {@link PerformanceEvaluator} are global and not thread-safe.
+ * With one thread, the assignments are explained in the calling thread and the evaluators count as for CXPlain.
+ * With more threads, their values are invalid, hence they are reset once all workers terminated.
+ */
+@Slf4j
+public class BatchCXPlain<F extends Feature, R extends AbstractRelationship<F>, C extends CTConstraint> {
+
+    private final FeatureModel<F, R, C> fm;
+    private final int numThreads;
+
+    public BatchCXPlain(@NonNull FeatureModel<F, R, C> fm, int numThreads) {
+        checkArgument(numThreads > 0, "numThreads must be positive");
+
+        this.fm = fm;
+        this.numThreads = numThreads;
+    }
+
+    /**
+     * @param requirement user requirement
+     * @param configuration a configuration
+     * @return assignment -> explanation of the SCONF {assignment}, or an empty set if no explanation is possible
+     */
+    public Map<Assignment, Set<Constraint>> explainAll(@NonNull Requirement requirement,
+                                                       @NonNull Solution configuration) throws InterruptedException {
+        WitnessConsistencyChecker.SharedResults shared = new WitnessConsistencyChecker.SharedResults();
+        if (numThreads == 1) {
+            Worker worker = new Worker(requirement, configuration, shared);
+            try {
+                Map<Assignment, Set<Constraint>> explanations = new LinkedHashMap<>();
+                for (Assignment assignment : configuration.getAssignments()) {
+                    explanations.put(assignment, worker.explain(assignment));
+                }
+                return explanations;
+            } finally {
+                worker.template.dispose();
+            }
+        }
+
+        Map<Thread, Worker> workers = new ConcurrentHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            Map<Assignment, Future<Set<Constraint>>> futures = new LinkedHashMap<>();
+            for (Assignment assignment : configuration.getAssignments()) {
+                futures.put(assignment, executor.submit(() -> workers
+                        .computeIfAbsent(Thread.currentThread(), t -> new Worker(requirement, configuration, shared))
+                        .explain(assignment)));
+            }
+
+            Map<Assignment, Set<Constraint>> explanations = new LinkedHashMap<>();
+            for (Map.Entry<Assignment, Future<Set<Constraint>>> entry : futures.entrySet()) {
+                try {
+                    explanations.put(entry.getKey(), entry.getValue().get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Failed to explain " + entry.getKey(), e.getCause());
+                }
+            }
+
+            log.debug("Explained {} assignments with {} workers and {} witnesses",
+                    explanations.size(), workers.size(), shared.getNumWitnesses());
+            return explanations;
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+            workers.values().forEach(w -> w.template.dispose());
+
+            // updated concurrently by the workers
+            PerformanceEvaluator.reset();
+            CAEvaluator.reset();
+        }
+    }
+
+    /**
+     * The template and the checker of one thread
+     */
+    private class Worker {
+        private final FMCausalExplanationTemplate<F, R, C> template;
+        private final WitnessConsistencyChecker checker;
+        private final CXPlain cxplain;
+
+        Worker(Requirement requirement, Solution configuration, WitnessConsistencyChecker.SharedResults shared) {
+            template = new FMCausalExplanationTemplate<>(fm, requirement, configuration);
+            checker = new WitnessConsistencyChecker(template, shared);
+            cxplain = new CXPlain(checker);
+        }
+
+        Set<Constraint> explain(Assignment assignment) {
+            Requirement SCONF = Requirement.requirementBuilder()
+                    .assignments(List.of(assignment))
+                    .build();
+            FMCausalExplanationInstance<F, R, C> instance = template.instantiate(SCONF);
+            checker.setSCONF(instance);
+
+            return cxplain.findExplanation(instance.getREQ(), instance.getCF(), instance.getCONF(), instance.getNSCONF());
+        }
+    }
+}
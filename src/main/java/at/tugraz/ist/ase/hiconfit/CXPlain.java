@@ -10,11 +10,14 @@ package at.tugraz.ist.ase.hiconfit;
 
 import at.tugraz.ist.ase.hiconfit.cacdr.algorithms.IConsistencyAlgorithm;
 import at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker;
-import at.tugraz.ist.ase.hiconfit.common.ConstraintUtils;
 import at.tugraz.ist.ase.hiconfit.common.LoggerUtils;
 import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import at.tugraz.ist.ase.hiconfit.split.HalvesSplit;
+import at.tugraz.ist.ase.hiconfit.split.SplitStrategy;
 import com.google.common.collect.Sets;
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.Collections;
@@ -42,6 +45,8 @@ import static at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator.*;
  * //CS1 <-- CXP(C2, C1, B ∪ C2);
  * //CS2 <-- CXP(CS1, C2, B ∪ CS1);
  * //return (CS1 ∪ CS2)
+ * <p>
+ * C is split into C1 and C2 by a {@link SplitStrategy}, in halves by default.
  * @author Viet-Man Le (vietman.le@ist.tugraz.at)
  */
 @Slf4j
@@ -51,10 +56,21 @@ public class CXPlain extends IConsistencyAlgorithm {
     public static final String TIMER_CXPLAIN = "Timer for CXPlain";
     public static final String COUNTER_CXPLAIN_CALLS = "The number of CXP calls";
 
+    @Getter @Setter
+    @NonNull
+    private SplitStrategy splitStrategy = new HalvesSplit();
+
+    private int depth; // of the current CXP call
+
     public CXPlain(@NonNull ChocoConsistencyChecker checker) {
         super(checker);
     }
 
+    public CXPlain(@NonNull ChocoConsistencyChecker checker, @NonNull SplitStrategy splitStrategy) {
+        super(checker);
+        this.splitStrategy = splitStrategy;
+    }
+
     /**
      * //CXPlain(REQ, KB, CONF, NSCONF): EXP
      * //IF consistent(CONF ∪ KB ∪ REQ)
@@ -87,6 +103,7 @@ public class CXPlain extends IConsistencyAlgorithm {
             start(TIMER_CXPLAIN);
             Set<Constraint> exp = cxp(Collections.emptySet(), CONFwithREQwithKB, NSCONF);
             stop(TIMER_CXPLAIN);
+            splitStrategy.learn(CONFwithREQwithKB, exp);
 
             LoggerUtils.outdent();
             log.debug("{}<<< Found explanation [exp={}]", LoggerUtils.tab(), exp);
@@ -115,7 +132,7 @@ public class CXPlain extends IConsistencyAlgorithm {
      * @param B background knowledge
      * @return an explanation or an empty set
      */
-    private Set<Constraint> cxp(Set<Constraint> D, Set<Constraint> C, Set<Constraint> B) {
+    protected Set<Constraint> cxp(Set<Constraint> D, Set<Constraint> C, Set<Constraint> B) {
         log.debug("{}CXP [D={}, C={}, B={}] >>>", LoggerUtils.tab(), D, C, B);
         LoggerUtils.indent();
 
@@ -142,20 +159,27 @@ public class CXPlain extends IConsistencyAlgorithm {
         // C1 = {c1..ck}; C2 = {ck+1..cq};
         Set<Constraint> C1 = new LinkedHashSet<>();
         Set<Constraint> C2 = new LinkedHashSet<>();
-        ConstraintUtils.split(C, C1, C2);
+        splitStrategy.split(C, C1, C2, depth);
         log.trace("{}Split C into [C1={}, C2={}]", LoggerUtils.tab(), C1, C2);
 
-        // CS1 <-- QX(C2, C1, B ∪ C2);
-        Set<Constraint> BwithC2 = Sets.union(B, C2); incrementCounter(COUNTER_UNION_OPERATOR);
-        incrementCounter(COUNTER_LEFT_BRANCH_CALLS);
-        incrementCounter(COUNTER_CXPLAIN_CALLS);
-        Set<Constraint> CS1 = cxp(C2, C1, BwithC2);
-
-        // CS2 <-- QX(CS1, C2, B ∪ CS1);
-        Set<Constraint> BwithCS1 = Sets.union(B, CS1); incrementCounter(COUNTER_UNION_OPERATOR);
-        incrementCounter(COUNTER_RIGHT_BRANCH_CALLS);
-        incrementCounter(COUNTER_CXPLAIN_CALLS);
-        Set<Constraint> CS2 = cxp(CS1, C2, BwithCS1);
+        Set<Constraint> CS1;
+        Set<Constraint> CS2;
+        depth++;
+        try {
+            // CS1 <-- QX(C2, C1, B ∪ C2);
+            Set<Constraint> BwithC2 = Sets.union(B, C2); incrementCounter(COUNTER_UNION_OPERATOR);
+            incrementCounter(COUNTER_LEFT_BRANCH_CALLS);
+            incrementCounter(COUNTER_CXPLAIN_CALLS);
+            CS1 = cxp(C2, C1, BwithC2);
+
+            // CS2 <-- QX(CS1, C2, B ∪ CS1);
+            Set<Constraint> BwithCS1 = Sets.union(B, CS1); incrementCounter(COUNTER_UNION_OPERATOR);
+            incrementCounter(COUNTER_RIGHT_BRANCH_CALLS);
+            incrementCounter(COUNTER_CXPLAIN_CALLS);
+            CS2 = cxp(CS1, C2, BwithCS1);
+        } finally {
+            depth--; // also if the recursion is aborted by an exception
+        }
 
         LoggerUtils.outdent();
         log.debug("{}<<< return [CS1={} ∪ CS2={}]", LoggerUtils.tab(), CS1, CS2);
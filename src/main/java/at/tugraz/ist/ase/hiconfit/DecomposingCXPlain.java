@@ -0,0 +1,195 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit;
+
+import at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.common.LoggerUtils;
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import com.google.common.collect.Sets;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.variables.Variable;
+import org.chocosolver.solver.variables.view.IView;
+
+import java.util.*;
+
+import static at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator.*;
+
+/**
+ * {@link CXPlain}, whose CXP runs only on the component of the constraint graph containing NSCONF.
+ * <p>
+ * The constraint graph links two constraints of CONF ∪ REQ ∪ KB ∪ NSCONF if they share a variable,
+ * where a view (e.g., not(x)) stands for the variable it is built on,
+ * except for the variables fixed by a unit constraint of CONF or REQ (e.g., "a=true"), which are not SCONF variables.
+ * The relevant component is the one of NSCONF, together with the unit constraints of the fixed variables
+ * occurring in it.
+ * <p>
+ * The relevant component R is inconsistent with NSCONF whenever CONF ∪ REQ ∪ KB is consistent:
+ * a solution of R ∪ NSCONF and a solution of CONF ∪ REQ ∪ KB agree on the fixed variables they share,
+ * and would together satisfy CONF ∪ REQ ∪ KB ∪ NSCONF. Hence, the explanation found in R is a
+ * minimal explanation, though it is not necessarily the one CXPlain finds in the whole model,
+ * since fixed variables cut the paths to the deeper causes, e.g., the root constraint.
+ */
+@Slf4j
+public class DecomposingCXPlain extends CXPlain {
+
+    // for evaluation
+    public static final String COUNTER_DECOMPOSED_CONSTRAINTS = "The number of constraints left out by the decomposition";
+
+    // constraint -> ids of the variables in its scope, constraints are shared by the instances of a template
+    private final Map<Constraint, int[]> scopes = new IdentityHashMap<>();
+
+    @Getter
+    private int lastNumConstraints; // |CONF ∪ REQ ∪ KB| of the last explanation
+    @Getter
+    private int lastComponentSize; // |R| of the last explanation
+    @Getter
+    private int lastNumComponents; // the number of components of the last explanation
+
+    public DecomposingCXPlain(@NonNull ChocoConsistencyChecker checker) {
+        super(checker);
+    }
+
+    @Override
+    public Set<Constraint> findExplanation(@NonNull Set<Constraint> REQ,
+                                           @NonNull Set<Constraint> KB,
+                                           @NonNull Set<Constraint> CONF,
+                                           @NonNull Set<Constraint> NSCONF) {
+        Set<Constraint> C = Sets.union(Sets.union(CONF, REQ), KB);
+
+        // not counted, as in CXPlain
+        if (!checker.isConsistent(C)) {
+            log.debug("{}<<< No explanation possible", LoggerUtils.tab());
+            return Collections.emptySet();
+        }
+
+        Set<Constraint> R = relevantComponent(C, Sets.union(CONF, REQ), NSCONF);
+        lastNumConstraints = C.size();
+        lastComponentSize = R.size();
+        incrementCounter(COUNTER_DECOMPOSED_CONSTRAINTS, C.size() - R.size());
+        log.debug("{}Decomposed [C={}, components={}, R={}]", LoggerUtils.tab(), C.size(), lastNumComponents, R);
+
+        incrementCounter(COUNTER_CXPLAIN_CALLS);
+        start(TIMER_CXPLAIN);
+        Set<Constraint> exp = cxp(Collections.emptySet(), R, NSCONF);
+        stop(TIMER_CXPLAIN);
+
+        log.debug("{}<<< Found explanation [exp={}]", LoggerUtils.tab(), exp);
+        return exp;
+    }
+
+    /**
+     * @return the constraints of C in the component of NSCONF, in the order of C
+     */
+    private Set<Constraint> relevantComponent(Set<Constraint> C, Set<Constraint> units, Set<Constraint> NSCONF) {
+        // variables of SCONF are never cut
+        Set<Integer> sconfVars = new HashSet<>();
+        NSCONF.forEach(c -> Arrays.stream(scopeOf(c)).forEach(sconfVars::add));
+
+        // fixed variable -> its unit constraints
+        Map<Integer, List<Constraint>> fixed = new HashMap<>();
+        for (Constraint c : units) {
+            int[] scope = scopeOf(c);
+            if (scope.length == 1 && !sconfVars.contains(scope[0])) {
+                fixed.computeIfAbsent(scope[0], v -> new ArrayList<>()).add(c);
+            }
+        }
+
+        // union-find over the constraints, NSCONF is the last node
+        List<Constraint> nodes = new ArrayList<>(C);
+        int nsconf = nodes.size();
+        int[] parent = new int[nodes.size() + 1];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+
+        Map<Integer, Integer> owners = new HashMap<>(); // variable -> first node containing it
+        for (int i = 0; i <= nodes.size(); i++) {
+            List<int[]> scopes = i == nsconf
+                    ? NSCONF.stream().map(this::scopeOf).toList()
+                    : List.of(scopeOf(nodes.get(i)));
+            for (int[] scope : scopes) {
+                for (int var : scope) {
+                    if (fixed.containsKey(var)) {
+                        continue;
+                    }
+                    Integer owner = owners.putIfAbsent(var, i);
+                    if (owner != null) {
+                        union(parent, owner, i);
+                    }
+                }
+            }
+        }
+
+        Set<Integer> roots = new HashSet<>();
+        for (int i = 0; i < parent.length; i++) {
+            roots.add(find(parent, i));
+        }
+        lastNumComponents = roots.size();
+
+        int root = find(parent, nsconf);
+        Set<Constraint> component = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < nodes.size(); i++) {
+            if (find(parent, i) == root) {
+                component.add(nodes.get(i));
+                // with the units of its fixed variables
+                for (int var : scopeOf(nodes.get(i))) {
+                    component.addAll(fixed.getOrDefault(var, List.of()));
+                }
+            }
+        }
+        for (Constraint c : NSCONF) {
+            for (int var : scopeOf(c)) {
+                component.addAll(fixed.getOrDefault(var, List.of()));
+            }
+        }
+
+        Set<Constraint> R = new LinkedHashSet<>();
+        nodes.stream().filter(component::contains).forEach(R::add);
+        return R;
+    }
+
+    private int[] scopeOf(Constraint constraint) {
+        return scopes.computeIfAbsent(constraint, c -> {
+            Set<Integer> vars = new LinkedHashSet<>();
+            for (org.chocosolver.solver.constraints.Constraint cstr : c.getChocoConstraints()) {
+                for (Propagator<?> propagator : cstr.getPropagators()) {
+                    for (Variable var : propagator.getVars()) {
+                        vars.add(underlying(var).getId());
+                    }
+                }
+            }
+            return vars.stream().mapToInt(Integer::intValue).toArray();
+        });
+    }
+
+    /**
+     * @return the variable, on which the given view is built, or the given variable if it is not a view
+     */
+    private static Variable underlying(Variable var) {
+        while (var instanceof IView view) {
+            var = view.getVariable();
+        }
+        return var;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        parent[find(parent, a)] = find(parent, b);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit;
+
+import at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Assignment;
+import at.tugraz.ist.ase.hiconfit.common.LoggerUtils;
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import com.google.common.collect.Sets;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+
+import static at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator.*;
+
+/**
+ * {@link CXPlain} for interactive sessions, in which the configuration changes by a few assignments
+ * between two explanations of the same SCONF.
+ * <p>
+ * As {@link CXPlain}, it returns an empty set if CONF ∪ REQ ∪ KB is inconsistent, and does not count this check.
+ * Otherwise, the previous explanation is mapped by the names of its constraints to the new REQ, KB and CONF,
+ * and the new explanation is searched in stages:
+ * 1. if the previous explanation is retained completely and still inconsistent with NSCONF,
+ * it is returned after a single consistency check;
+ * 2. if the retained part together with the changed assignments (the delta) is inconsistent with NSCONF,
+ * CXP runs over these few constraints only;
+ * 3. otherwise, CXP finds the missing part X among the other constraints with the retained part and the delta
+ * in the background, and a last CXP minimizes the retained part, the delta and X.
+ * Every stage returns a minimal explanation, though not necessarily the one a fresh CXPlain would return.
+ */
+@Slf4j
+public class IncrementalCXPlain extends CXPlain {
+
+    // for evaluation
+    public static final String COUNTER_REUSED_EXPLANATIONS = "The number of reused explanations";
+    public static final String COUNTER_LOCAL_EXPLANATIONS = "The number of explanations found in the delta";
+    public static final String COUNTER_FULL_EXPLANATIONS = "The number of explanations found in the full model";
+
+    public IncrementalCXPlain(@NonNull ChocoConsistencyChecker checker) {
+        super(checker);
+    }
+
+    /**
+     * @param previous the explanation of the SCONF before the change, found in the previous model
+     * @param delta the changed assignments, i.e., their new values in the configuration
+     * @param REQ user requirement
+     * @param KB a knowledge base
+     * @param CONF the changed configuration
+     * @param NSCONF negative of subset of configuration
+     * @return an explanation or an empty set
+     */
+    public Set<Constraint> findExplanation(@NonNull Set<Constraint> previous,
+                                           @NonNull Collection<Assignment> delta,
+                                           @NonNull Set<Constraint> REQ,
+                                           @NonNull Set<Constraint> KB,
+                                           @NonNull Set<Constraint> CONF,
+                                           @NonNull Set<Constraint> NSCONF) {
+        log.debug("{}Identifying explanation incrementally for [previous={}, delta={}] >>>", LoggerUtils.tab(), previous, delta);
+        LoggerUtils.indent();
+
+        // as CXPlain, without an explanation if the changed configuration is inconsistent
+        Set<Constraint> C = Sets.union(Sets.union(CONF, REQ), KB);
+        if (!checker.isConsistent(C)) {
+            return done(Collections.emptySet());
+        }
+
+        Map<String, Constraint> constraints = new HashMap<>();
+        for (Set<Constraint> set : List.of(CONF, REQ, KB)) {
+            set.forEach(c -> constraints.putIfAbsent(c.getConstraint(), c));
+        }
+
+        Set<Constraint> retained = new LinkedHashSet<>();
+        previous.stream().map(c -> constraints.get(c.getConstraint())).filter(Objects::nonNull).forEach(retained::add);
+
+        // 1. the previous explanation still holds
+        if (retained.size() == previous.size() && !retained.isEmpty()) {
+            incrementCounter(COUNTER_CONSISTENCY_CHECKS);
+            if (!checker.isConsistent(Sets.union(retained, NSCONF))) {
+                incrementCounter(COUNTER_REUSED_EXPLANATIONS);
+                return done(retained);
+            }
+        }
+
+        // 2. the explanation lies in the retained part and the delta
+        Set<Constraint> region = new LinkedHashSet<>(retained);
+        delta.stream().map(a -> constraints.get(a.getVariable() + "=" + a.getValue()))
+                .filter(Objects::nonNull)
+                .forEach(region::add);
+        if ((region.size() > retained.size() || retained.size() < previous.size()) && !region.isEmpty()) {
+            incrementCounter(COUNTER_CONSISTENCY_CHECKS);
+            if (!checker.isConsistent(Sets.union(region, NSCONF))) {
+                incrementCounter(COUNTER_LOCAL_EXPLANATIONS);
+                start(TIMER_CXPLAIN);
+                Set<Constraint> exp = cxp(Collections.emptySet(), region, NSCONF);
+                stop(TIMER_CXPLAIN);
+                return done(exp);
+            }
+        }
+
+        // 3. the explanation needs other constraints of the model
+        incrementCounter(COUNTER_FULL_EXPLANATIONS);
+
+        start(TIMER_CXPLAIN);
+        Set<Constraint> exp;
+        if (region.isEmpty()) {
+            exp = cxp(Collections.emptySet(), C, NSCONF);
+        } else {
+            Set<Constraint> rest = new LinkedHashSet<>(C);
+            rest.removeAll(region);
+            if (rest.isEmpty()) { // region ∪ NSCONF is consistent, no explanation possible
+                stop(TIMER_CXPLAIN);
+                return done(Collections.emptySet());
+            }
+
+            Set<Constraint> X = cxp(Collections.emptySet(), rest, Sets.union(NSCONF, region));
+            Set<Constraint> candidates = new LinkedHashSet<>(region);
+            candidates.addAll(X);
+            exp = cxp(Collections.emptySet(), candidates, NSCONF);
+        }
+        stop(TIMER_CXPLAIN);
+        return done(exp);
+    }
+
+    private Set<Constraint> done(Set<Constraint> exp) {
+        LoggerUtils.outdent();
+        log.debug("{}<<< Found explanation [exp={}]", LoggerUtils.tab(), exp);
+        return exp;
+    }
+}
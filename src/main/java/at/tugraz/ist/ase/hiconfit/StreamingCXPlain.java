@@ -0,0 +1,177 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit;
+
+import at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import at.tugraz.ist.ase.hiconfit.split.SplitStrategy;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.function.Consumer;
+
+import static at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator.stop;
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * {@link CXPlain}, which streams each constraint of the explanation as soon as it is confirmed.
+ * <p>
+ * A constraint is confirmed when CXP returns it as a singleton: CXP never drops a returned set,
+ * hence the singleton belongs to the final explanation. The constraints are streamed in the order
+ * of the leaves of CXP, and all of them are streamed when the explanation is returned.
+ * <p>
+ * The recursion stops at the next CXP call after {@link #cancel()}, or after all subscribers of
+ * {@link #explain} cancelled their subscriptions, with a {@link CancellationException}.
+ * Like {@link CXPlain}, an instance explains one SCONF at a time.
+ */
+@Slf4j
+public class StreamingCXPlain extends CXPlain {
+
+    private volatile boolean cancelled;
+    private Consumer<? super Constraint> listener;
+    private SubmissionPublisher<Constraint> publisher;
+
+    private long startTime;
+    @Getter
+    private long firstLatency = -1; // ns until the first constraint of the last explanation, -1 - none
+    @Getter
+    private long totalLatency = -1; // ns until the last explanation
+
+    public StreamingCXPlain(@NonNull ChocoConsistencyChecker checker) {
+        super(checker);
+    }
+
+    public StreamingCXPlain(@NonNull ChocoConsistencyChecker checker, @NonNull SplitStrategy splitStrategy) {
+        super(checker, splitStrategy);
+    }
+
+    /**
+     * Finds an explanation, and passes each of its constraints to the listener as soon as it is confirmed.
+     *
+     * @param listener called on the explaining thread, may call {@link #cancel()}
+     * @return the explanation or an empty set
+     * @throws CancellationException if the explanation was cancelled
+     */
+    public Set<Constraint> findExplanation(@NonNull Set<Constraint> REQ,
+                                           @NonNull Set<Constraint> KB,
+                                           @NonNull Set<Constraint> CONF,
+                                           @NonNull Set<Constraint> NSCONF,
+                                           @NonNull Consumer<? super Constraint> listener) {
+        cancelled = false;
+        this.listener = listener;
+        startTime = System.nanoTime();
+        firstLatency = -1;
+        totalLatency = -1;
+        try {
+            Set<Constraint> exp = findExplanation(REQ, KB, CONF, NSCONF);
+            totalLatency = System.nanoTime() - startTime;
+            return exp;
+        } catch (CancellationException e) {
+            stop(TIMER_CXPLAIN);
+            log.debug("Explanation cancelled");
+            throw e;
+        } finally {
+            this.listener = null;
+        }
+    }
+
+    /**
+     * Finds an explanation asynchronously, and publishes its constraints to the subscriber
+     * from the {@link ForkJoinPool#commonPool()}.
+     *
+     * @see #explain(Set, Set, Set, Set, Flow.Subscriber, Executor, Executor, int)
+     */
+    public CompletableFuture<Set<Constraint>> explain(@NonNull Set<Constraint> REQ,
+                                                      @NonNull Set<Constraint> KB,
+                                                      @NonNull Set<Constraint> CONF,
+                                                      @NonNull Set<Constraint> NSCONF,
+                                                      @NonNull Flow.Subscriber<? super Constraint> subscriber,
+                                                      @NonNull Executor executor) {
+        return explain(REQ, KB, CONF, NSCONF, subscriber, executor, ForkJoinPool.commonPool(), Flow.defaultBufferSize());
+    }
+
+    /**
+     * Finds an explanation asynchronously, and publishes its constraints to the subscriber.
+     * The subscriber receives onComplete after the last constraint, or onError if the explanation failed.
+     * If the subscriber cancels its subscription, the explanation is cancelled.
+     * <p>
+     * The explanation waits while the subscriber has bufferCapacity undelivered constraints,
+     * hence the constraints are delivered by another executor than the one running the explanation.
+     *
+     * @param executor runs the explanation
+     * @param deliveryExecutor delivers the constraints, must not be the executor
+     * @param bufferCapacity the maximum number of undelivered constraints
+     * @return the explanation, completed after the last constraint is published
+     */
+    public CompletableFuture<Set<Constraint>> explain(@NonNull Set<Constraint> REQ,
+                                                      @NonNull Set<Constraint> KB,
+                                                      @NonNull Set<Constraint> CONF,
+                                                      @NonNull Set<Constraint> NSCONF,
+                                                      @NonNull Flow.Subscriber<? super Constraint> subscriber,
+                                                      @NonNull Executor executor,
+                                                      @NonNull Executor deliveryExecutor,
+                                                      int bufferCapacity) {
+        checkArgument(executor != deliveryExecutor, "The constraints must be delivered by another executor");
+        checkArgument(bufferCapacity > 0, "bufferCapacity must be positive");
+
+        SubmissionPublisher<Constraint> submissionPublisher = new SubmissionPublisher<>(deliveryExecutor, bufferCapacity);
+        submissionPublisher.subscribe(subscriber);
+
+        return CompletableFuture.supplyAsync(() -> {
+            publisher = submissionPublisher;
+            try {
+                Set<Constraint> exp = findExplanation(REQ, KB, CONF, NSCONF, submissionPublisher::submit);
+                submissionPublisher.close();
+                return exp;
+            } catch (RuntimeException e) {
+                submissionPublisher.closeExceptionally(e);
+                throw e;
+            } finally {
+                publisher = null;
+            }
+        }, executor);
+    }
+
+    /**
+     * Stops the current explanation at the next CXP call.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled || (publisher != null && !publisher.hasSubscribers());
+    }
+
+    @Override
+    protected Set<Constraint> cxp(Set<Constraint> D, Set<Constraint> C, Set<Constraint> B) {
+        if (isCancelled()) {
+            throw new CancellationException("The explanation was cancelled");
+        }
+
+        Set<Constraint> exp = super.cxp(D, C, B);
+
+        // a confirmed singleton
+        if (C.size() == 1 && !exp.isEmpty() && listener != null) {
+            if (firstLatency < 0) {
+                firstLatency = System.nanoTime() - startTime;
+            }
+            listener.accept(C.iterator().next());
+        }
+        return exp;
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.app;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.System.out;
+
+/**
+ * Writes result messages to the console and to an optional result file
+ * on a background thread, so that the evaluation loop never waits for I/O.
+ * <p>
+ * Messages are put into a bounded queue and drained in batches. The result file
+ * is flushed at most once per flush interval, and when the writer is closed.
+ * With a flush interval of 0, the result file is flushed after each batch.
+ * Messages above the configured {@link Verbosity} are dropped before they are rendered.
+ */
+@Slf4j
+public class AsyncResultWriter implements Closeable {
+
+    public enum Verbosity {
+        SUMMARY,     // measures averaged per feature model and size
+        DETAIL,      // measures of each configuration and SCONF
+        EXPLANATION  // DETAIL plus the found explanations
+    }
+
+    public static final int DEFAULT_CAPACITY = 8192;
+    public static final long DEFAULT_FLUSH_INTERVAL = 1000; // ms
+
+    private static final int MAX_BATCH_SIZE = 1024;
+    private static final String EOF = new String("EOF"); // identity sentinel
+
+    private final BufferedWriter writer;
+    @Getter
+    private final Verbosity verbosity;
+    private final long flushInterval;
+
+    private final BlockingQueue<String> queue;
+    private final Thread worker;
+
+    /**
+     * @param writer the result file writer, or null to print to the console only
+     * @param verbosity the highest level of messages to be printed
+     * @param capacity the capacity of the message queue
+     * @param flushInterval the maximal time (in milliseconds) a message stays unflushed in the result file,
+     *                      0 - flushed after each batch
+     */
+    public AsyncResultWriter(BufferedWriter writer, @NonNull Verbosity verbosity, int capacity, long flushInterval) {
+        checkArgument(flushInterval >= 0, "flushInterval must not be negative");
+
+        this.writer = writer;
+        this.verbosity = verbosity;
+        this.flushInterval = flushInterval;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+
+        worker = new Thread(this::drain, "result-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public AsyncResultWriter(BufferedWriter writer, @NonNull Verbosity verbosity) {
+        this(writer, verbosity, DEFAULT_CAPACITY, DEFAULT_FLUSH_INTERVAL);
+    }
+
+    public boolean isEnabled(@NonNull Verbosity level) {
+        return level.compareTo(verbosity) <= 0;
+    }
+
+    /**
+     * Prints a message at the {@link Verbosity#SUMMARY} level.
+     */
+    public void print(String message) {
+        print(Verbosity.SUMMARY, message);
+    }
+
+    public void print(@NonNull Verbosity level, String message) {
+        if (isEnabled(level)) {
+            enqueue(message);
+        }
+    }
+
+    /**
+     * Prints a message formatted by {@link String#format} only if the level is enabled.
+     */
+    public void print(@NonNull Verbosity level, @NonNull String format, Object... args) {
+        if (isEnabled(level)) {
+            enqueue(String.format(format, args));
+        }
+    }
+
+    /**
+     * Prints a message whose rendering is deferred until the level is known to be enabled.
+     */
+    public void print(@NonNull Verbosity level, @NonNull Supplier<String> message) {
+        if (isEnabled(level)) {
+            enqueue(message.get());
+        }
+    }
+
+    private void enqueue(String message) {
+        try {
+            queue.put(message);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while queuing message", e);
+        }
+    }
+
+    private void drain() {
+        List<String> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        StringBuilder text = new StringBuilder();
+        long lastFlush = System.currentTimeMillis();
+        boolean closed = false;
+
+        while (!closed) {
+            try {
+                // without a flush interval, waits for the next message instead of polling in a busy loop
+                String first = flushInterval > 0 ? queue.poll(flushInterval, TimeUnit.MILLISECONDS) : queue.take();
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                }
+            } catch (InterruptedException e) {
+                closed = true;
+            }
+
+            text.setLength(0);
+            for (String message : batch) {
+                if (message == EOF) {
+                    closed = true;
+                    break;
+                }
+                text.append(message).append(System.lineSeparator());
+            }
+            batch.clear();
+
+            if (!text.isEmpty()) {
+                out.print(text);
+            }
+
+            long now = System.currentTimeMillis();
+            boolean flush = closed || now - lastFlush >= flushInterval;
+            write(text, flush);
+            if (flush) {
+                lastFlush = now;
+            }
+        }
+    }
+
+    private void write(CharSequence text, boolean flush) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            if (!text.isEmpty()) {
+                writer.append(text);
+            }
+            if (flush) {
+                writer.flush();
+            }
+        } catch (IOException e) {
+            log.error("Error while writing message to file", e);
+        }
+    }
+
+    /**
+     * Waits until all queued messages are written, then closes the result file.
+     */
+    @Override
+    public void close() throws IOException {
+        enqueue(EOF);
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        out.flush();
+        if (writer != null) {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.app;
+
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Assignment;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Solution;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.writer.MultiLineTxtSolutionWriter;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writes solutions to files in an output folder on a background thread.
+ * <p>
+ * Producers hand over solutions through a bounded queue, which blocks them
+ * when the disk cannot keep up. The writer thread drains the queue in batches.
+ * The first I/O error is rethrown by {@link #close()}.
+ */
+@Slf4j
+public class AsyncSolutionWriter implements Closeable {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private static final int MAX_BATCH_SIZE = 512;
+    private static final Item EOF = new Item(null, null);
+
+    private record Item(String fileName, List<Assignment> assignments) {}
+
+    private final MultiLineTxtSolutionWriter writer;
+    private final BlockingQueue<Item> queue;
+    private final Thread worker;
+
+    @Getter
+    private volatile long numWrittenFiles = 0;
+    private volatile IOException error = null;
+
+    public AsyncSolutionWriter(@NonNull String outputFolder, int capacity) {
+        this.writer = new MultiLineTxtSolutionWriter(outputFolder);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+
+        worker = new Thread(this::drain, "solution-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public AsyncSolutionWriter(@NonNull String outputFolder) {
+        this(outputFolder, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Queues a solution to be written into the given file of the output folder.
+     */
+    public void write(@NonNull List<Assignment> assignments, @NonNull String fileName) throws InterruptedException {
+        queue.put(new Item(fileName, assignments));
+    }
+
+    private void drain() {
+        List<Item> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        boolean closed = false;
+
+        while (!closed) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+            } catch (InterruptedException e) {
+                closed = true;
+            }
+
+            for (Item item : batch) {
+                if (item == EOF) {
+                    closed = true;
+                    break;
+                }
+                if (error == null) {
+                    try {
+                        writer.write(Solution.builder().assignments(item.assignments()).build(), item.fileName());
+                        numWrittenFiles++;
+                    } catch (IOException e) {
+                        log.error("Error while writing {}", item.fileName(), e);
+                        error = e;
+                    }
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Waits until all queued solutions are written.
+     * @throws IOException the first error occurred while writing
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            queue.put(EOF);
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+}
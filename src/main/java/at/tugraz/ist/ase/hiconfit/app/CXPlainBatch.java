@@ -0,0 +1,372 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.app;
+
+import at.tugraz.ist.ase.hiconfit.CXPlain;
+import at.tugraz.ist.ase.hiconfit.app.cli.AppConfig;
+import at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Requirement;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.builder.RequirementBuilder;
+import at.tugraz.ist.ase.hiconfit.checker.ConfigurableConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.checker.PropagatingConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.checker.SolverSettings;
+import at.tugraz.ist.ase.hiconfit.common.cfg.TomlConfigLoader;
+import at.tugraz.ist.ase.hiconfit.common.cli.CmdLineOptions;
+import at.tugraz.ist.ase.hiconfit.eval.PerformanceEvaluator;
+import at.tugraz.ist.ase.hiconfit.fm.FMCausalExplanationTemplate;
+import at.tugraz.ist.ase.hiconfit.fm.FMSnapshot;
+import at.tugraz.ist.ase.hiconfit.fm.core.AbstractRelationship;
+import at.tugraz.ist.ase.hiconfit.fm.core.CTConstraint;
+import at.tugraz.ist.ase.hiconfit.fm.core.Feature;
+import at.tugraz.ist.ase.hiconfit.fm.core.FeatureModel;
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import at.tugraz.ist.ase.hiconfit.split.SplitStrategy;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Explains a stream of queries in one JVM, for pipelines with many queries over different feature models.
+ * <p>
+ * Queries and results are JSON lines, e.g.:
+ * <pre>
+ * {"id": "q1", "fm": "fqa.sxfm", "configuration": "FQAs=true,Security=false", "requirement": "", "sconf": "FQAs=true"}
+ * {"id":"q1","line":1,"explanation":["..."],"fmTime":0.01,"templateTime":0.002,"explainTime":0.004}
+ * </pre>
+ * + fm - the feature model file, relative to kbPath;
+ * + configuration, requirement and sconf - assignments "var=value" separated by commas, the requirement is optional;
+ * + id - optional, the line number by default.
+ * Queries that cannot be explained get a result with an error instead of an explanation.
+ * <p>
+ * Feature models are parsed once and shared by all queries. Queries run on #numThreads workers,
+ * each keeping the template of its last (feature model, configuration, requirement),
+ * so that consecutive queries on the same configuration share their model.
+ * At most #queueCapacity queries are in flight, which bounds the memory for long inputs.
+ * With orderedOutput = true, results are written in the order of the queries;
+ * otherwise as they are done, identified by their ids.
+ * Times are wall-clock seconds of the worker: loading the feature model, building the template and CXPlain.
+ * The counters and timers of {@link CAEvaluator} and {@link PerformanceEvaluator} are global and not thread-safe,
+ * hence with more than one worker their values are invalid. They are never reported,
+ * and are reset after a query whenever no other query is being explained, so that they do not grow with the input.
+ * Logs go to stderr, see logback.xml.
+ */
+@Slf4j
+public class CXPlainBatch implements Closeable {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    public record Query(String id, String fm, String configuration, String requirement, String sconf) {}
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Result(String id, long line, List<String> explanation,
+                         Double fmTime, Double templateTime, Double explainTime, String error) {}
+
+    private static final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final AppConfig cfg;
+    private final Writer out;
+    private final boolean ordered;
+    private final ExecutorService executor;
+    private final Semaphore inFlight;
+
+    private final Map<String, CompletableFuture<FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint>>> fms = new ConcurrentHashMap<>();
+    private final Map<Thread, Worker> workers = new ConcurrentHashMap<>();
+
+    // reorder buffer, sequence number -> result line
+    private final TreeMap<Long, String> pending = new TreeMap<>();
+    private long nextToWrite = 0;
+
+    // keeps the resets of the global evaluators away from running explanations,
+    // but does not make the concurrent updates of the explanations valid
+    private final ReadWriteLock evaluatorLock = new ReentrantReadWriteLock();
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    public CXPlainBatch(@NonNull AppConfig cfg, @NonNull Writer out) {
+        int numThreads = cfg.getNumThreads() > 0 ? cfg.getNumThreads() : Runtime.getRuntime().availableProcessors();
+        int capacity = cfg.getQueueCapacity() > 0 ? cfg.getQueueCapacity() : DEFAULT_QUEUE_CAPACITY;
+
+        this.cfg = cfg;
+        this.out = out;
+        this.ordered = cfg.isOrderedOutput();
+        this.executor = Executors.newFixedThreadPool(numThreads);
+        this.inFlight = new Semaphore(capacity);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        val programTitle = "CXPlain Batch";
+        val usage = "Usage: java -jar cxplain_batch.jar [options] < queries.jsonl > results.jsonl";
+
+        // Parse command line arguments
+        val cmdLineOptions = CmdLineOptions.withCfg(programTitle, usage);
+        cmdLineOptions.parseArgument(args);
+
+        if (cmdLineOptions.isHelp()) {
+            cmdLineOptions.printUsage();
+            System.exit(0);
+        }
+
+        // Read configurations
+        val confFile = cmdLineOptions.getConfFile() == null ? AppConfig.defaultConfigFile_CXPlainBatch : cmdLineOptions.getConfFile();
+        val cfg = TomlConfigLoader.loadConfig(confFile, AppConfig.class);
+
+        // results may go to stdout, hence messages go to stderr
+        Reader reader = cfg.getInputFile() != null
+                ? new FileReader(cfg.getInputFile(), StandardCharsets.UTF_8)
+                : new InputStreamReader(System.in, StandardCharsets.UTF_8);
+        Writer writer = cfg.getOutputFile() != null
+                ? new FileWriter(cfg.getOutputFile(), StandardCharsets.UTF_8)
+                : new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+
+        long start = System.nanoTime();
+        try (val in = new BufferedReader(reader);
+             val out = new BufferedWriter(writer);
+             val batch = new CXPlainBatch(cfg, out)) {
+            batch.run(in);
+
+            double runtime = (System.nanoTime() - start) / 1_000_000_000.0;
+            System.err.printf("%d queries, %d errors, %d feature models in %.3f s (%.1f queries/s)%n",
+                    batch.getQueries(), batch.getErrors(), batch.getNumFeatureModels(), runtime, batch.getQueries() / runtime);
+        }
+    }
+
+    /**
+     * Explains all queries of the input, and returns after all results are written.
+     */
+    public void run(@NonNull BufferedReader in) throws IOException, InterruptedException {
+        String text;
+        long line = 0;
+        long sequence = 0;
+        while ((text = in.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+
+            long l = line;
+            long s = sequence++;
+            String query = text;
+            inFlight.acquire();
+            executor.execute(() -> {
+                try {
+                    write(s, explain(l, query));
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+
+        executor.shutdown();
+        while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+            log.info("Waiting for the running queries");
+        }
+        out.flush();
+    }
+
+    private Result explain(long line, String text) {
+        queries.increment();
+
+        Query query;
+        try {
+            query = mapper.readValue(text, Query.class);
+        } catch (JsonProcessingException e) {
+            errors.increment();
+            return new Result(null, line, null, null, null, null, "Invalid query: " + e.getOriginalMessage());
+        }
+
+        String id = query.id() != null ? query.id() : Long.toString(line);
+        try {
+            checkArgument(query.fm() != null, "fm is missing");
+            checkArgument(query.configuration() != null, "configuration is missing");
+            checkArgument(query.sconf() != null && !query.sconf().isBlank(), "sconf is missing");
+
+            long start = System.nanoTime();
+            val fm = loadFM(query.fm());
+            long loaded = System.nanoTime();
+
+            Worker worker = workers.computeIfAbsent(Thread.currentThread(), t -> new Worker());
+            long prepared;
+            Set<Constraint> explanation;
+            evaluatorLock.readLock().lock();
+            try {
+                worker.prepare(query, fm);
+                val instance = worker.template.instantiate(toRequirement(query.sconf()));
+                prepared = System.nanoTime();
+
+                explanation = worker.cxPlain.findExplanation(instance.getREQ(), instance.getCF(), instance.getCONF(), instance.getNSCONF());
+            } finally {
+                evaluatorLock.readLock().unlock();
+                resetEvaluators();
+            }
+            long end = System.nanoTime();
+
+            return new Result(id, line, explanation.stream().map(Constraint::getConstraint).toList(),
+                    (loaded - start) / 1_000_000_000.0, (prepared - loaded) / 1_000_000_000.0, (end - prepared) / 1_000_000_000.0, null);
+        } catch (Exception e) {
+            errors.increment();
+            log.debug("Cannot explain query {} at line {}", id, line, e);
+            return new Result(id, line, null, null, null, null, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Resets the global evaluators if no query is being explained, otherwise a later query resets them.
+     */
+    private void resetEvaluators() {
+        if (evaluatorLock.writeLock().tryLock()) {
+            try {
+                PerformanceEvaluator.reset();
+                CAEvaluator.reset();
+            } finally {
+                evaluatorLock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Parses each feature model once, concurrent queries on the same feature model wait for the same parse.
+     * A failed parse is not kept, hence later queries try it again.
+     */
+    private FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> loadFM(String path) {
+        val created = new CompletableFuture<FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint>>();
+        val existing = fms.putIfAbsent(path, created);
+        if (existing != null) {
+            return existing.join();
+        }
+
+        File file = new File(path);
+        if (!file.isAbsolute() && cfg.getKbPath() != null) {
+            file = new File(cfg.getKbPath(), path);
+        }
+        try {
+            created.complete(FMSnapshot.loadOrCreate(file));
+        } catch (Exception e) {
+            fms.remove(path, created);
+            created.completeExceptionally(new IllegalArgumentException("Cannot read the feature model " + file + ": " + e.getMessage(), e));
+        }
+        return created.join();
+    }
+
+    private static Requirement toRequirement(String assignments) {
+        return assignments == null || assignments.isBlank()
+                ? Requirement.requirementBuilder().assignments(List.of()).build()
+                : new RequirementBuilder().build(assignments);
+    }
+
+    private void write(long sequence, Result result) {
+        String json;
+        try {
+            json = mapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            log.error("Cannot serialize the result of line {}", result.line(), e);
+            json = "{\"line\":" + result.line() + ",\"error\":\"Cannot serialize the result\"}";
+        }
+
+        synchronized (pending) {
+            try {
+                if (!ordered) {
+                    out.write(json);
+                    out.write('\n');
+                } else {
+                    pending.put(sequence, json);
+                    while (!pending.isEmpty() && pending.firstKey() == nextToWrite) {
+                        out.write(pending.pollFirstEntry().getValue());
+                        out.write('\n');
+                        nextToWrite++;
+                    }
+                }
+                out.flush();
+            } catch (IOException e) {
+                log.error("Cannot write the result of line {}", result.line(), e);
+            }
+        }
+    }
+
+    /**
+     * The template of the last (feature model, configuration, requirement) of one worker thread
+     */
+    private class Worker {
+        private FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> fm;
+        private String configuration;
+        private String requirement;
+        private FMCausalExplanationTemplate<Feature, AbstractRelationship<Feature>, CTConstraint> template;
+        private CXPlain cxPlain;
+
+        void prepare(Query query, FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> fm) {
+            String req = query.requirement() != null ? query.requirement() : "";
+            if (template != null && this.fm == fm && query.configuration().equals(configuration) && req.equals(requirement)) {
+                return;
+            }
+
+            dispose();
+            template = new FMCausalExplanationTemplate<>(fm, toRequirement(req), toRequirement(query.configuration()));
+            this.fm = fm;
+            this.configuration = query.configuration();
+            this.requirement = req;
+
+            // the same key as cxplain_eval, i.e., the path of the feature model relative to kbPath
+            SolverSettings solverSettings = cfg.getSolverSettings(query.fm());
+            ChocoConsistencyChecker checker;
+            if (!solverSettings.isDefault()) {
+                checker = new ConfigurableConsistencyChecker(template.getModel(), solverSettings, cfg.usePropagatingChecker());
+            } else if (cfg.usePropagatingChecker()) {
+                checker = new PropagatingConsistencyChecker(template.getModel());
+            } else {
+                checker = new ChocoConsistencyChecker(template.getModel());
+            }
+            cxPlain = new CXPlain(checker, SplitStrategy.of(cfg.getSplitStrategy()));
+        }
+
+        void dispose() {
+            if (template != null) {
+                template.dispose();
+                template = null;
+                fm = null;
+            }
+        }
+    }
+
+    /**
+     * Stops the workers, interrupting the running queries if {@link #run} did not return, and disposes their templates.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        workers.values().forEach(Worker::dispose);
+    }
+
+    public long getQueries() {
+        return queries.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public int getNumFeatureModels() {
+        return fms.size();
+    }
+}
@@ -8,26 +8,35 @@
 
 package at.tugraz.ist.ase.hiconfit.app;
 
+import at.tugraz.ist.ase.hiconfit.BackboneCXPlain;
 import at.tugraz.ist.ase.hiconfit.CXPlain;
+import at.tugraz.ist.ase.hiconfit.DecomposingCXPlain;
 import at.tugraz.ist.ase.hiconfit.app.cli.AppConfig;
 import at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker;
 import at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator;
 import at.tugraz.ist.ase.hiconfit.cacdr_core.Requirement;
 import at.tugraz.ist.ase.hiconfit.cacdr_core.reader.SolutionReader;
+import at.tugraz.ist.ase.hiconfit.checker.BDDConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.checker.CompiledFM;
+import at.tugraz.ist.ase.hiconfit.checker.ConfigurableConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.checker.PropagatingConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.checker.SolverSettings;
 import at.tugraz.ist.ase.hiconfit.common.LoggerUtils;
 import at.tugraz.ist.ase.hiconfit.common.MailService;
 import at.tugraz.ist.ase.hiconfit.common.cfg.TomlConfigLoader;
 import at.tugraz.ist.ase.hiconfit.common.cli.CmdLineOptions;
 import at.tugraz.ist.ase.hiconfit.eval.PerformanceEvaluator;
+import at.tugraz.ist.ase.hiconfit.fm.Backbone;
 import at.tugraz.ist.ase.hiconfit.fm.FMCausalExplanationModel;
 import at.tugraz.ist.ase.hiconfit.fm.FMCausalExplanationModelFactory;
+import at.tugraz.ist.ase.hiconfit.fm.FMSnapshot;
 import at.tugraz.ist.ase.hiconfit.fm.core.AbstractRelationship;
 import at.tugraz.ist.ase.hiconfit.fm.core.CTConstraint;
 import at.tugraz.ist.ase.hiconfit.fm.core.Feature;
-import at.tugraz.ist.ase.hiconfit.fm.factory.FeatureModels;
 import at.tugraz.ist.ase.hiconfit.fm.parser.FeatureModelParserException;
 import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
 import at.tugraz.ist.ase.hiconfit.kb.fm.FMKB;
+import at.tugraz.ist.ase.hiconfit.split.SplitStrategy;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 
@@ -38,9 +47,15 @@ import java.io.IOException;
 import java.util.*;
 
 import static at.tugraz.ist.ase.hiconfit.CXPlain.TIMER_CXPLAIN;
-import static at.tugraz.ist.ase.hiconfit.app.ConsoleUtils.printMessage;
+import static at.tugraz.ist.ase.hiconfit.BackboneCXPlain.COUNTER_BACKBONE_EXPLANATIONS;
+import static at.tugraz.ist.ase.hiconfit.app.AsyncResultWriter.Verbosity.DETAIL;
+import static at.tugraz.ist.ase.hiconfit.app.AsyncResultWriter.Verbosity.EXPLANATION;
 import static at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker.TIMER_SOLVER;
 import static at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator.*;
+import static at.tugraz.ist.ase.hiconfit.checker.BDDConsistencyChecker.COUNTER_BDD_CHECKS;
+import static at.tugraz.ist.ase.hiconfit.checker.BDDConsistencyChecker.TIMER_BDD_CHECK;
+import static at.tugraz.ist.ase.hiconfit.checker.ConfigurableConsistencyChecker.COUNTER_LIMIT_HITS;
+import static at.tugraz.ist.ase.hiconfit.checker.PropagatingConsistencyChecker.*;
 import static at.tugraz.ist.ase.hiconfit.common.IOUtils.checkAndCreateFolder;
 import static java.lang.System.out;
 
@@ -79,63 +94,123 @@ public class CXPlainEvaluation {
             mailService = null;
         }
 
-        BufferedWriter resultWriter;
-        if (cfg.isPrintResult()) {
-            resultWriter = new BufferedWriter(new FileWriter(cfg.getOutputFolder() + "result.txt"));
-        } else {
-            resultWriter = null;
-        }
         LoggerUtils.setUseThreadInfo(false);
 
         // check the output folder
         checkAndCreateFolder(cfg.getOutputFolder());
 
-        // warm up
-        evaluate(cfg, null);
-
-        Dictionary<String, Dictionary<String, Dictionary<String, Double>>> results = evaluate(cfg, resultWriter);
-
-        List<String> namKBs = cfg.getFullnameKBs().reversed();
-        // print results for each measure
-        printMessage("=========================================", resultWriter);
-        printMessage("Results solver runtime:", resultWriter);
-        printResultTable(namKBs, resultWriter, cfg.getSizeSCONFs(), results, "solver_runtime");
-        printMessage("Results CXPlain runtime:", resultWriter);
-        printResultTable(namKBs, resultWriter, cfg.getSizeSCONFs(), results, "cxplain_runtime");
-        printMessage("Results Consistency checks:", resultWriter);
-        printResultTable(namKBs, resultWriter, cfg.getSizeSCONFs(), results, "consistency_checks");
-        printMessage("Results Solver calls:", resultWriter);
-        printResultTable(namKBs, resultWriter, cfg.getSizeSCONFs(), results, "solver_calls");
+        if (cfg.isPipelineMode()) {
+            evaluatePipeline(cfg);
+        } else {
+            evaluateSCONFFiles(cfg);
+        }
 
         if (mailService != null) {
             mailService.sendMail(cfg.getEmailAddress(), cfg.getEmailAddress(), "DONE CXPLain evaluation", "DONE CXPLain evaluation");
         }
     }
 
+    private static BufferedWriter createResultFile(AppConfig cfg) throws IOException {
+        return cfg.isPrintResult()
+                ? new BufferedWriter(new FileWriter(cfg.getOutputFolder() + "result.txt"))
+                : null;
+    }
+
+    /**
+     * Generates SCONFs in memory and explains them on the fly, see {@link ExplanationPipeline}.
+     */
+    private static void evaluatePipeline(AppConfig cfg) throws FeatureModelParserException, IOException {
+        try (val resultWriter = new AsyncResultWriter(createResultFile(cfg), cfg.getVerbosity(), AsyncResultWriter.DEFAULT_CAPACITY, cfg.getFlushInterval())) {
+            val results = ExplanationPipeline.run(cfg, resultWriter);
+
+            List<String> namKBs = cfg.getFullnameKBs().reversed();
+            resultWriter.print("=========================================");
+            resultWriter.print("Results CXPlain runtime:");
+            printResultTable(namKBs, resultWriter, cfg.getSizeSCONFs(), results, "cxplain_runtime");
+            resultWriter.print("Results Explanation size:");
+            printResultTable(namKBs, resultWriter, cfg.getSizeSCONFs(), results, "explanation_size");
+            resultWriter.print("Results Throughput:");
+            printResultTable(namKBs, resultWriter, cfg.getSizeSCONFs(), results, "throughput");
+        }
+    }
+
+    private static void evaluateSCONFFiles(AppConfig cfg) throws FeatureModelParserException, IOException {
+        // warm up
+        try (val warmUpWriter = new AsyncResultWriter(null, cfg.getVerbosity(), AsyncResultWriter.DEFAULT_CAPACITY, cfg.getFlushInterval())) {
+            evaluate(cfg, warmUpWriter);
+        }
+
+        try (val resultWriter = new AsyncResultWriter(createResultFile(cfg), cfg.getVerbosity(), AsyncResultWriter.DEFAULT_CAPACITY, cfg.getFlushInterval())) {
+            Dictionary<String, Dictionary<String, Dictionary<String, Double>>> results = evaluate(cfg, resultWriter);
+
+            List<String> namKBs = cfg.getFullnameKBs().reversed();
+            // print results for each measure
+            resultWriter.print("=========================================");
+            resultWriter.print("Results solver runtime:");
+            printResultTable(namKBs, resultWriter, cfg.getSizeSCONFs(), results, "solver_runtime");
+            resultWriter.print("Results CXPlain runtime:");
+            printResultTable(namKBs, resultWriter, cfg.getSizeSCONFs(), results, "cxplain_runtime");
+            resultWriter.print("Results Consistency checks:");
+            printResultTable(namKBs, resultWriter, cfg.getSizeSCONFs(), results, "consistency_checks");
+            resultWriter.print("Results Solver calls:");
+            printResultTable(namKBs, resultWriter, cfg.getSizeSCONFs(), results, "solver_calls");
+            resultWriter.print("Results Check runtime:");
+            printResultTable(namKBs, resultWriter, cfg.getSizeSCONFs(), results, "check_runtime");
+        }
+    }
+
     private static Dictionary<String, Dictionary<String, Dictionary<String, Double>>>
-        evaluate(AppConfig cfg, BufferedWriter resultWriter) throws FeatureModelParserException, IOException {
+        evaluate(AppConfig cfg, AsyncResultWriter resultWriter) throws FeatureModelParserException, IOException {
 
         Dictionary<String, Dictionary<String, Dictionary<String, Double>>> results = new Hashtable<>();
         // loop through all variant feature models
         for (String fullnameKB : cfg.getFullnameKBs()) {
 
-            printMessage("=========================================", resultWriter);
+            resultWriter.print("=========================================");
             val fmFile = new File(cfg.getKbPath() + fullnameKB);
-            val fm = FeatureModels.fromFile(fmFile);
-            printMessage("\tEvaluating " + fmFile.getName() + "...", resultWriter);
+            val fm = FMSnapshot.loadOrCreate(fmFile);
+            resultWriter.print("\tEvaluating " + fmFile.getName() + "...");
 
             // add fullnameKB to results
             results.put(fullnameKB, new Hashtable<>());
 
+            // compile the feature model once, all SCONFs share it
+            CompiledFM compiledFM = cfg.useBDDChecker() ? CompiledFM.loadOrCompile(fmFile, fm, cfg.getBddNodeLimit()) : null;
+            if (compiledFM != null) {
+                resultWriter.print(String.format("\tBDD: %d nodes, %s in %.6f s", compiledFM.getBdd().size(),
+                        compiledFM.isFromCache() ? "loaded" : "compiled", compiledFM.getLoadTime()));
+            } else if (cfg.useBDDChecker()) {
+                resultWriter.print("\tBDD: not compilable, using Choco");
+            }
+            SolverSettings solverSettings = cfg.getSolverSettings(fullnameKB);
+            if (!solverSettings.isDefault()) {
+                resultWriter.print("\tSolver settings: " + solverSettings);
+            }
+            // compute the backbone once, all SCONFs share it
+            Backbone backbone = cfg.isUseBackbone() ? Backbone.loadOrCompute(fmFile, fm) : null;
+            if (backbone != null) {
+                resultWriter.print(String.format("\tBackbone: %d literals, %s in %.6f s", backbone.getLiterals().size(),
+                        backbone.isFromCache() ? "loaded" : "computed", backbone.getComputationTime()));
+            }
+            // learned split points are kept per feature model
+            SplitStrategy split = SplitStrategy.of(cfg.getSplitStrategy());
+            double fm_check_runtime = 0;
+            double fm_checks = 0;
+
             for (int size : cfg.getSizeSCONFs()) {
-                printMessage("\t----------------------------------------", resultWriter);
-                printMessage("\t\tSize " + size + "...", resultWriter);
+                resultWriter.print("\t----------------------------------------");
+                resultWriter.print("\t\tSize " + size + "...");
 
                 // measures
                 List<Double> solver_runtimes = new ArrayList<>();
                 List<Double> cxplain_runtimes = new ArrayList<>();
                 List<Double> consistency_checks = new ArrayList<>();
                 List<Double> solver_calls = new ArrayList<>();
+                List<Double> check_runtimes = new ArrayList<>();
+                List<Double> checks = new ArrayList<>();
+                List<Double> backbone_answers = new ArrayList<>();
+                List<Double> limit_hits = new ArrayList<>();
+                List<Double> component_sizes = new ArrayList<>();
 
                 for (int i = 1; i <= cfg.getNumConfs(); i++) {
 //                    for (int j = 1; j <= cfg.getNumVariants(); j++) {
@@ -156,11 +231,11 @@ public class CXPlainEvaluation {
 
                         // check exist files
                         if (!sconfFile.exists()) {
-                            printMessage("\t\tNo sconf: " + sconfFile.getName(), resultWriter);
+                            resultWriter.print(DETAIL, "\t\tNo sconf: %s", sconfFile.getName());
                             continue;
                         }
 
-                        printMessage("\t\tEvaluating " + confFile.getName() + " and " + sconfFile.getName() + "...", resultWriter);
+                        resultWriter.print(DETAIL, "\t\tEvaluating %s and %s...", confFile.getName(), sconfFile.getName());
 
                         // read configuration and sconf
                         val fmKB = new FMKB<>(fm, false);
@@ -175,7 +250,16 @@ public class CXPlainEvaluation {
 
 //                        System.out.println("\tNumber of constraints: " + diagModel.getAllConstraints().size());
 
-                        val checker = new ChocoConsistencyChecker(diagModel);
+                        ChocoConsistencyChecker checker;
+                        if (compiledFM != null) {
+                            checker = new BDDConsistencyChecker(diagModel, compiledFM);
+                        } else if (!solverSettings.isDefault()) {
+                            checker = new ConfigurableConsistencyChecker(diagModel, solverSettings, cfg.usePropagatingChecker());
+                        } else if (cfg.usePropagatingChecker()) {
+                            checker = new PropagatingConsistencyChecker(diagModel);
+                        } else {
+                            checker = new ChocoConsistencyChecker(diagModel);
+                        }
 
                         val REQ = diagModel.getREQ();
                         val CF = diagModel.getCF();
@@ -185,27 +269,68 @@ public class CXPlainEvaluation {
                         PerformanceEvaluator.reset();
                         setCommonTimer(TIMER_SOLVER);
                         setCommonTimer(TIMER_CXPLAIN);
-
-                        val cxPlain = new CXPlain(checker);
+                        setCommonTimer(TIMER_BDD_CHECK);
 
                         CAEvaluator.reset();
-                        Set<Constraint> explanation = cxPlain.findExplanation(REQ, CF, CONF, NSCONF);
+                        DecomposingCXPlain decomposing = backbone == null && cfg.isDecompose() ? new DecomposingCXPlain(checker) : null;
+                        Set<Constraint> explanation;
+                        if (backbone != null) {
+                            val cxPlain = new BackboneCXPlain(checker, backbone);
+                            cxPlain.setSplitStrategy(split);
+                            explanation = cxPlain.findExplanation(sconf, REQ, CF, CONF, NSCONF);
+                        } else if (decomposing != null) {
+                            decomposing.setSplitStrategy(split);
+                            explanation = decomposing.findExplanation(REQ, CF, CONF, NSCONF);
+                        } else {
+                            explanation = new CXPlain(checker, split).findExplanation(REQ, CF, CONF, NSCONF);
+                        }
 
                         double solver_runtime = (double) totalCommonTimer(TIMER_SOLVER) / 1_000_000_000.0;
                         double cxplain_runtime = (double) totalCommonTimer(TIMER_CXPLAIN) / 1_000_000_000.0;
                         double cc = getCounter(COUNTER_CONSISTENCY_CHECKS).getValue();
                         double sc = getCounter(COUNTER_CHOCO_SOLVER_CALLS).getValue();
-
-                        printMessage("\t\t\tExplanation: " + explanation, resultWriter);
-                        printMessage("\t\t\tSolver runtime: " + solver_runtime, resultWriter);
-                        printMessage("\t\t\tMergeFM runtime: " + cxplain_runtime, resultWriter);
-                        printMessage("\t\t\tConsistency checks: " + cc, resultWriter);
-                        printMessage("\t\t\tSolver calls: " + sc, resultWriter);
+                        double bdd_runtime = (double) totalCommonTimer(TIMER_BDD_CHECK) / 1_000_000_000.0;
+                        double bc = getCounter(COUNTER_BDD_CHECKS).getValue();
+                        double ba = getCounter(COUNTER_BACKBONE_EXPLANATIONS).getValue();
+                        double pc = getCounter(COUNTER_PROPAGATION_CONFLICTS).getValue();
+                        double ps = getCounter(COUNTER_PROPAGATION_SOLUTIONS).getValue();
+                        double sch = getCounter(COUNTER_SEARCH_CHECKS).getValue();
+                        double lh = getCounter(COUNTER_LIMIT_HITS).getValue();
+
+                        resultWriter.print(EXPLANATION, () -> "\t\t\tExplanation: " + explanation);
+                        resultWriter.print(DETAIL, "\t\t\tSolver runtime: %s", solver_runtime);
+                        resultWriter.print(DETAIL, "\t\t\tMergeFM runtime: %s", cxplain_runtime);
+                        resultWriter.print(DETAIL, "\t\t\tConsistency checks: %s", cc);
+                        resultWriter.print(DETAIL, "\t\t\tSolver calls: %s", sc);
+                        if (compiledFM != null) {
+                            resultWriter.print(DETAIL, "\t\t\tBDD runtime: %s", bdd_runtime);
+                            resultWriter.print(DETAIL, "\t\t\tBDD checks: %s", bc);
+                        }
+                        if (backbone != null) {
+                            resultWriter.print(DETAIL, "\t\t\tAnswered by the backbone: %s", ba > 0);
+                        }
+                        if (decomposing != null) {
+                            resultWriter.print(DETAIL, "\t\t\tComponent: %d of %d constraints, %d components",
+                                    decomposing.getLastComponentSize(), decomposing.getLastNumConstraints(), decomposing.getLastNumComponents());
+                            component_sizes.add((double) decomposing.getLastComponentSize());
+                        }
+                        if (solverSettings.hasLimits()) {
+                            resultWriter.print(DETAIL, "\t\t\tChecks hitting a limit: %s", lh);
+                        }
+                        if (checker instanceof PropagatingConsistencyChecker) {
+                            resultWriter.print(DETAIL, "\t\t\tDecided by propagation: %s inconsistent, %s consistent", pc, ps);
+                            resultWriter.print(DETAIL, "\t\t\tDecided by search: %s", sch);
+                        }
 
                         solver_runtimes.add(solver_runtime);
                         cxplain_runtimes.add(cxplain_runtime);
                         consistency_checks.add(cc);
                         solver_calls.add(sc);
+                        check_runtimes.add(solver_runtime + bdd_runtime);
+                        // checks decided by propagation are timed by the solver timer, but are no solver calls
+                        checks.add(sc + bc + pc + ps);
+                        backbone_answers.add(ba);
+                        limit_hits.add(lh);
                     }
                 }
 
@@ -214,12 +339,29 @@ public class CXPlainEvaluation {
                 double avg_cxplain_runtime = cxplain_runtimes.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
                 double avg_cc = consistency_checks.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
                 double avg_sc = solver_calls.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-
-                printMessage("\t\t-----------------------------------", resultWriter);
-                printMessage("\t\tAverage solver runtime: " + avg_solver_runtime, resultWriter);
-                printMessage("\t\tAverage CXPlain runtime: " + avg_cxplain_runtime, resultWriter);
-                printMessage("\t\tAverage Consistency checks: " + avg_cc, resultWriter);
-                printMessage("\t\tAverage Solver calls: " + avg_sc, resultWriter);
+                double total_check_runtime = check_runtimes.stream().mapToDouble(Double::doubleValue).sum();
+                double total_checks = checks.stream().mapToDouble(Double::doubleValue).sum();
+                double avg_check_runtime = total_checks > 0 ? total_check_runtime / total_checks : 0.0;
+                fm_check_runtime += total_check_runtime;
+                fm_checks += total_checks;
+
+                resultWriter.print("\t\t-----------------------------------");
+                resultWriter.print("\t\tAverage solver runtime: " + avg_solver_runtime);
+                resultWriter.print("\t\tAverage CXPlain runtime: " + avg_cxplain_runtime);
+                resultWriter.print("\t\tAverage Consistency checks: " + avg_cc);
+                resultWriter.print("\t\tAverage Solver calls: " + avg_sc);
+                resultWriter.print("\t\tAverage Check runtime: " + avg_check_runtime);
+                if (solverSettings.hasLimits()) {
+                    resultWriter.print("\t\tChecks hitting a limit: " + limit_hits.stream().mapToDouble(Double::doubleValue).sum()
+                            + " in " + limit_hits.stream().filter(h -> h > 0).count() + " of " + limit_hits.size() + " SCONFs");
+                }
+                if (!component_sizes.isEmpty()) {
+                    resultWriter.print("\t\tAverage Component size: " + component_sizes.stream().mapToDouble(Double::doubleValue).average().orElse(0.0));
+                }
+                if (backbone != null) {
+                    resultWriter.print("\t\tAnswered by the backbone: " + backbone_answers.stream().mapToDouble(Double::doubleValue).sum()
+                            + " of " + backbone_answers.size());
+                }
 
                 // store results
                 String strSize = Integer.toString(size);
@@ -228,20 +370,29 @@ public class CXPlainEvaluation {
                 sizeResults.put("cxplain_runtime", avg_cxplain_runtime);
                 sizeResults.put("consistency_checks", avg_cc);
                 sizeResults.put("solver_calls", avg_sc);
+                sizeResults.put("check_runtime", avg_check_runtime);
                 results.get(fullnameKB).put(strSize, sizeResults);
             }
+
+            // compilation cost against the time per check, to be compared with the runtime per check of Choco
+            if (compiledFM != null && fm_checks > 0) {
+                resultWriter.print("\t----------------------------------------");
+                resultWriter.print("\tChecks: " + fm_checks);
+                resultWriter.print("\tAverage Check runtime: " + fm_check_runtime / fm_checks);
+                resultWriter.print("\tCompilation time per check: " + compiledFM.getCompilationTime() / fm_checks);
+            }
         }
         return results;
     }
 
     private static void printResultTable(List<String> namKBs,
-                                         BufferedWriter resultWriter,
+                                         AsyncResultWriter resultWriter,
                                          List<Integer> sizeSCONFs,
                                          Dictionary<String, Dictionary<String, Dictionary<String, Double>>> results,
                                          String key) {
         StringBuilder header = new StringBuilder();
         namKBs.forEach(nameKB -> header.append("\t").append(nameKB));
-        printMessage(header.toString(), resultWriter);
+        resultWriter.print(header.toString());
 
         sizeSCONFs.forEach(size -> {
             StringBuilder line = new StringBuilder("\tSize ").append(size).append(":");
@@ -249,7 +400,7 @@ public class CXPlainEvaluation {
                 Double value = results.get(nameKB).get(Integer.toString(size)).get(key);
                 line.append(" ").append(value);
             });
-            printMessage(line.toString(), resultWriter);
+            resultWriter.print(line.toString());
         });
     }
 
@@ -263,5 +414,12 @@ public class CXPlainEvaluation {
         out.println("\tnumConfs: " + config.getNumConfs());
         out.println("\toutputFolder: " + config.getOutputFolder());
         out.println("\tprintResult: " + config.isPrintResult());
+        out.println("\tpipelineMode: " + config.isPipelineMode());
+        out.println("\tverbosity: " + config.getVerbosity());
+        out.println("\tflushInterval: " + config.getFlushInterval());
+        out.println("\tchecker: " + config.getChecker());
+        out.println("\tuseBackbone: " + config.isUseBackbone());
+        out.println("\tdecompose: " + config.isDecompose());
+        out.println("\tsplitStrategy: " + config.getSplitStrategy());
     }
 }
@@ -0,0 +1,237 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.app;
+
+import at.tugraz.ist.ase.hiconfit.app.cli.AppConfig;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Assignment;
+import at.tugraz.ist.ase.hiconfit.common.MailService;
+import at.tugraz.ist.ase.hiconfit.common.RandomStreams;
+import at.tugraz.ist.ase.hiconfit.common.cfg.TomlConfigLoader;
+import at.tugraz.ist.ase.hiconfit.common.cli.CmdLineOptions;
+import at.tugraz.ist.ase.hiconfit.fm.FMSnapshot;
+import at.tugraz.ist.ase.hiconfit.fm.core.AbstractRelationship;
+import at.tugraz.ist.ase.hiconfit.fm.core.CTConstraint;
+import at.tugraz.ist.ase.hiconfit.fm.core.Feature;
+import at.tugraz.ist.ase.hiconfit.fm.core.FeatureModel;
+import at.tugraz.ist.ase.hiconfit.fm.parser.FeatureModelParserException;
+import at.tugraz.ist.ase.hiconfit.kb.core.IBoolVarKB;
+import at.tugraz.ist.ase.hiconfit.kb.fm.FMKB;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.search.limits.FailCounter;
+import org.chocosolver.solver.search.strategy.Search;
+import org.chocosolver.solver.variables.BoolVar;
+import org.chocosolver.solver.variables.Variable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static at.tugraz.ist.ase.hiconfit.common.IOUtils.checkAndCreateFolder;
+
+/**
+ * Generates valid configurations of a feature model, in which a given ratio of features is preselected.
+ * <p>
+ * Each configuration is generated in two phases:
+ * 1. a randomized search with Luby restarts finds a random solution of the feature model,
+ * from which #preselectionRatio of the features are taken as preselected features;
+ * 2. the remaining features are completed by the default (false-first) search.
+ * An attempt that hits the fail limit is retried with the next random choices of the stream.
+ * <p>
+ * Configurations are generated in parallel, each worker thread with its own Choco model.
+ * Since the searches are limited by the number of fails instead of the time,
+ * the configuration valid_conf_i.txt depends only on the seed and i.
+ */
+@Slf4j
+public class ConfGenerator {
+
+    static String outputFileTemplate = "valid_conf_%d.txt";
+
+    public static final long DEFAULT_FAIL_LIMIT = 100_000; // of a search
+    public static final int RESTART_BASE = 100; // fails before the first restart of the randomized search
+    public static final int MAX_ATTEMPTS = 100;
+
+    public static void main(String[] args) throws FeatureModelParserException, IOException {
+        val programTitle = "Configuration Generator";
+        val usage = "Usage: java -jar conf_gen.jar [options]";
+
+        // Parse command line arguments
+        val cmdLineOptions = CmdLineOptions.withCfg(programTitle, usage);
+        cmdLineOptions.parseArgument(args);
+
+        if (cmdLineOptions.isHelp()) {
+            cmdLineOptions.printUsage();
+            System.exit(0);
+        }
+
+        cmdLineOptions.printWelcome();
+
+        // Read configurations
+        val confFile = cmdLineOptions.getConfFile() == null ? AppConfig.defaultConfigFile_ConfGenerator : cmdLineOptions.getConfFile();
+        val cfg = TomlConfigLoader.loadConfig(confFile, AppConfig.class);
+
+        printConf(cfg);
+        MailService mailService;
+        if (cfg.getEmailAddress() != null && cfg.getEmailPass() != null) {
+            mailService = new MailService(cfg.getEmailAddress(), cfg.getEmailPass());
+        } else {
+            mailService = null;
+        }
+
+        val outputFolder = cfg.getOutputFolder();
+        checkAndCreateFolder(outputFolder);
+
+        val featureModel = FMSnapshot.loadOrCreate(new File(cfg.getKBFilepath()));
+
+        long seed = cfg.getSeed() != null ? cfg.getSeed() : RandomStreams.newSeed();
+        int numThreads = cfg.getNumThreads() > 0 ? cfg.getNumThreads() : Runtime.getRuntime().availableProcessors();
+        long failLimit = cfg.getFailLimit() > 0 ? cfg.getFailLimit() : DEFAULT_FAIL_LIMIT;
+
+        System.out.println("=============================");
+        System.out.println("Seed: " + seed);
+        System.out.println("Threads: " + numThreads);
+
+        // each worker thread has its own Choco model
+        ThreadLocal<Generator> generators = ThreadLocal.withInitial(() -> new Generator(featureModel, cfg.getPreselectionRatio(), failLimit));
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try (val writer = new AsyncSolutionWriter(outputFolder)) {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 1; i <= cfg.getNumConfs(); i++) {
+                int index = i;
+                results.add(executor.submit(() -> {
+                    long jobStart = System.nanoTime();
+                    val random = RandomStreams.forJob(seed, "valid_conf", index);
+
+                    Generator generator = generators.get();
+                    for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+                        List<Assignment> configuration = generator.generate(random);
+                        if (configuration != null) {
+                            writer.write(configuration, String.format(outputFileTemplate, index));
+                            return String.format("valid_conf_%d.txt: %d attempt(s), %.2f s", index, attempt, (System.nanoTime() - jobStart) / 1_000_000_000.0);
+                        }
+                    }
+                    return String.format("valid_conf_%d.txt: FAILED after %d attempts", index, MAX_ATTEMPTS);
+                }));
+            }
+
+            for (Future<String> result : results) {
+                System.out.println(result.get());
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException("Configuration generation failed", e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        System.out.println("-----------------------------");
+        System.out.printf("DONE %d configurations in %.2f s (%.2f configurations/s)%n", cfg.getNumConfs(), seconds, cfg.getNumConfs() / seconds);
+
+        if (mailService != null) {
+            mailService.sendMail(cfg.getEmailAddress(), cfg.getEmailAddress(), "DONE conf_gen.sh - " + cfg.getMachine(), "Configuration generation is done!");
+        }
+    }
+
+    /**
+     * Generates configurations with its own Choco model, hence it must not be shared among threads.
+     */
+    static class Generator {
+        private final Model model;
+        private final BoolVar[] vars;
+        private final int numPreselected;
+        private final long failLimit;
+
+        Generator(@NonNull FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> featureModel,
+                  double preselectionRatio, long failLimit) {
+            val fmKB = new FMKB<>(featureModel, false);
+            this.model = fmKB.getModelKB();
+            this.failLimit = failLimit;
+
+            // post all constraints of the feature model
+            model.unpost(model.getCstrs());
+            fmKB.getRootConstraint().getChocoConstraints().forEach(model::post);
+            fmKB.getConstraintList().forEach(c -> c.getChocoConstraints().forEach(model::post));
+
+            // feature variables only, without views
+            this.vars = Arrays.stream(((IBoolVarKB) fmKB).getBoolVars())
+                    .filter(v -> (v.getTypeAndKind() & Variable.TYPE) == Variable.VAR)
+                    .toArray(BoolVar[]::new);
+            this.numPreselected = (int) Math.round(vars.length * preselectionRatio);
+        }
+
+        /**
+         * @return a valid configuration, or null if the fail limit is hit
+         */
+        List<Assignment> generate(@NonNull SplittableRandom random) {
+            Solver solver = model.getSolver();
+
+            // phase 1 - a random solution of the feature model, restarts leave the unlucky branches
+            solver.reset();
+            solver.setSearch(Search.randomSearch(vars, random.nextLong()));
+            solver.removeAllStopCriteria();
+            solver.limitFail(failLimit);
+            solver.clearRestarter();
+            solver.setLubyRestart(RESTART_BASE, new FailCounter(model, RESTART_BASE), Integer.MAX_VALUE);
+            if (!solver.solve()) {
+                return null;
+            }
+            int[] randomSolution = Arrays.stream(vars).mapToInt(BoolVar::getValue).toArray();
+
+            // preselect features with the values of the random solution
+            List<Integer> indexes = new ArrayList<>(vars.length);
+            for (int i = 0; i < vars.length; i++) {
+                indexes.add(i);
+            }
+            Collections.shuffle(indexes, random);
+
+            List<Constraint> preselection = indexes.subList(0, numPreselected).stream()
+                    .map(i -> model.arithm(vars[i], "=", randomSolution[i]))
+                    .toList();
+
+            // phase 2 - complete the preselected features
+            solver.reset();
+            solver.clearRestarter();
+            preselection.forEach(model::post);
+            try {
+                solver.setSearch(Search.inputOrderLBSearch(vars));
+                if (!solver.solve()) {
+                    return null;
+                }
+                return Arrays.stream(vars)
+                        .map(v -> new Assignment(v.getName(), v.getValue() == 1 ? "true" : "false"))
+                        .toList();
+            } finally {
+                solver.reset();
+                preselection.forEach(model::unpost);
+            }
+        }
+    }
+
+    private static void printConf(AppConfig config) {
+        System.out.println("Configurations:");
+        System.out.println("\tnameKB: " + config.getNameKB());
+        System.out.println("\tkbPath: " + config.getKbPath());
+        System.out.println("\tnumConfs: " + config.getNumConfs());
+        System.out.println("\tpreselectionRatio: " + config.getPreselectionRatio());
+        System.out.println("\tnumThreads: " + config.getNumThreads());
+        System.out.println("\tseed: " + config.getSeed());
+        System.out.println("\tfailLimit: " + config.getFailLimit());
+        System.out.println("\toutputFolder: " + config.getOutputFolder());
+    }
+}
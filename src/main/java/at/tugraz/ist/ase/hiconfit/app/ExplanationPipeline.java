@@ -0,0 +1,366 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.app;
+
+import at.tugraz.ist.ase.hiconfit.CXPlain;
+import at.tugraz.ist.ase.hiconfit.app.cli.AppConfig;
+import at.tugraz.ist.ase.hiconfit.cache.CachingCXPlain;
+import at.tugraz.ist.ase.hiconfit.cache.ExplanationCache;
+import at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Assignment;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Requirement;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.reader.SolutionReader;
+import at.tugraz.ist.ase.hiconfit.checker.BDDConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.checker.CompiledFM;
+import at.tugraz.ist.ase.hiconfit.checker.ConfigurableConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.checker.PropagatingConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.checker.SolverSettings;
+import at.tugraz.ist.ase.hiconfit.common.RandomStreams;
+import at.tugraz.ist.ase.hiconfit.eval.PerformanceEvaluator;
+import at.tugraz.ist.ase.hiconfit.fm.FMCausalExplanationTemplate;
+import at.tugraz.ist.ase.hiconfit.fm.FMSnapshot;
+import at.tugraz.ist.ase.hiconfit.fm.core.AbstractRelationship;
+import at.tugraz.ist.ase.hiconfit.fm.core.CTConstraint;
+import at.tugraz.ist.ase.hiconfit.fm.core.Feature;
+import at.tugraz.ist.ase.hiconfit.fm.core.FeatureModel;
+import at.tugraz.ist.ase.hiconfit.fm.parser.FeatureModelParserException;
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import at.tugraz.ist.ase.hiconfit.kb.fm.FMKB;
+import at.tugraz.ist.ase.hiconfit.split.SplitStrategy;
+import at.tugraz.ist.ase.hiconfit.verify.ExplanationVerifier;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static at.tugraz.ist.ase.hiconfit.app.AsyncResultWriter.Verbosity.DETAIL;
+import static at.tugraz.ist.ase.hiconfit.app.AsyncResultWriter.Verbosity.EXPLANATION;
+import static at.tugraz.ist.ase.hiconfit.app.SCONFGenerator.outputFileTemplate;
+import static at.tugraz.ist.ase.hiconfit.common.IOUtils.checkAndCreateFolder;
+
+/**
+ * Streaming pipeline, in which SCONFs are sampled in memory with the same semantics
+ * as {@link SCONFGenerator#selectSCONF} and are explained by a pool of workers
+ * without being written to and read back from the disk.
+ * <p>
+ * SCONFs flow from the sampling thread to the workers through a bounded queue.
+ * SCONFs are written into the sconfPath only if persistSCONFs is set, and
+ * explanations are written into the result file with the EXPLANATION verbosity.
+ * <p>
+ * Since workers run concurrently, CXPlain runtimes are measured as wall-clock time per SCONF by each worker,
+ * and are merged per size of SCONF. The counters and timers of {@link CAEvaluator} and {@link PerformanceEvaluator}
+ * are global and not thread-safe, hence with concurrent workers (and verifiers) their values are invalid.
+ * They are never reported, and are reset for each feature model once the workers of the previous one terminated.
+ * <p>
+ * With verificationSampleRate > 0, a sample of the explanations is verified in the background
+ * by an {@link ExplanationVerifier}, whose report is printed for each feature model.
+ */
+@Slf4j
+public class ExplanationPipeline {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    public static final long PUT_TIMEOUT_MS = 100; // between two checks of the workers while the queue is full
+
+    private record Task(String confName, Requirement configuration, int sizeSCONF, int counter, List<Assignment> SCONF) {}
+
+    private static final Task EOF = new Task(null, null, 0, 0, null);
+
+    /**
+     * Measures of a (feature model, size of SCONF) cell
+     */
+    private static class Measures {
+        final LongAdder numSCONFs = new LongAdder();
+        final LongAdder runtime = new LongAdder(); // ns
+        final LongAdder explanationSize = new LongAdder();
+        final LongAdder limitHits = new LongAdder();
+        final AtomicLong start = new AtomicLong(Long.MAX_VALUE);
+        final AtomicLong end = new AtomicLong(0);
+    }
+
+    public static Dictionary<String, Dictionary<String, Dictionary<String, Double>>>
+        run(AppConfig cfg, AsyncResultWriter resultWriter) throws FeatureModelParserException, IOException {
+
+        long seed = cfg.getSeed() != null ? cfg.getSeed() : RandomStreams.newSeed();
+        int numWorkers = cfg.getNumThreads() > 0 ? cfg.getNumThreads() : Runtime.getRuntime().availableProcessors();
+        int capacity = cfg.getQueueCapacity() > 0 ? cfg.getQueueCapacity() : DEFAULT_QUEUE_CAPACITY;
+        resultWriter.print("Pipeline mode [seed=" + seed + ", workers=" + numWorkers + ", queueCapacity=" + capacity + "]");
+
+        // one explanation cache for all feature models
+        ExplanationCache cache = null;
+        if (cfg.isCacheExplanations()) {
+            int cacheSize = cfg.getExplanationCacheSize() > 0 ? cfg.getExplanationCacheSize() : ExplanationCache.DEFAULT_MAX_ENTRIES;
+            cache = cfg.getExplanationCacheFile() != null
+                    ? new ExplanationCache(cacheSize, new File(cfg.getExplanationCacheFile()))
+                    : new ExplanationCache(cacheSize);
+            resultWriter.print("Explanation cache [size=" + cacheSize + ", file=" + cfg.getExplanationCacheFile() + ", entries=" + cache.size() + "]");
+        }
+
+        Dictionary<String, Dictionary<String, Dictionary<String, Double>>> results = new Hashtable<>();
+        try {
+            for (String fullnameKB : cfg.getFullnameKBs()) {
+                runFM(cfg, fullnameKB, seed, numWorkers, capacity, cache, resultWriter, results);
+            }
+        } finally {
+            if (cache != null) {
+                cache.close();
+            }
+        }
+        return results;
+    }
+
+    private static void runFM(AppConfig cfg, String fullnameKB, long seed, int numWorkers, int capacity,
+                              ExplanationCache cache, AsyncResultWriter resultWriter,
+                              Dictionary<String, Dictionary<String, Dictionary<String, Double>>> results) throws FeatureModelParserException, IOException {
+        resultWriter.print("=========================================");
+        val fmFile = new File(cfg.getKbPath() + fullnameKB);
+        val fm = FMSnapshot.loadOrCreate(fmFile);
+        resultWriter.print("\tEvaluating " + fmFile.getName() + "...");
+
+        // the global counters are not reported, but must not grow across feature models
+        PerformanceEvaluator.reset();
+        CAEvaluator.reset();
+
+        // a compiled feature model is read-only, hence it is shared by all workers
+        CompiledFM compiledFM = cfg.useBDDChecker() ? CompiledFM.loadOrCompile(fmFile, fm, cfg.getBddNodeLimit()) : null;
+        if (compiledFM != null) {
+            resultWriter.print(String.format("\tBDD: %d nodes, %s in %.6f s", compiledFM.getBdd().size(),
+                    compiledFM.isFromCache() ? "loaded" : "compiled", compiledFM.getLoadTime()));
+        }
+
+        // the cache serves all feature models, hence its statistics are taken as deltas
+        long memoryHits = cache != null ? cache.getMemoryHits() : 0;
+        long diskHits = cache != null ? cache.getDiskHits() : 0;
+        long misses = cache != null ? cache.getMisses() : 0;
+
+        Map<Integer, Measures> measures = new TreeMap<>();
+        cfg.getSizeSCONFs().forEach(size -> measures.put(size, new Measures()));
+
+        AsyncSolutionWriter sconfWriter = null;
+        if (cfg.isPersistSCONFs()) {
+            String sconfFolder = cfg.getSconfPath() + cfg.getNameKB(fullnameKB) + "/";
+            checkAndCreateFolder(sconfFolder);
+            sconfWriter = new AsyncSolutionWriter(sconfFolder);
+        }
+
+        ExplanationVerifier verifier = null;
+        if (cfg.getVerificationSampleRate() > 0) {
+            int numVerifiers = cfg.getVerificationThreads() > 0 ? cfg.getVerificationThreads() : Math.max(1, numWorkers / 4);
+            verifier = new ExplanationVerifier(fm, cfg.getVerificationSampleRate(), numVerifiers);
+        }
+
+        // shared by all workers, so that the verifier can reuse its templates across workers
+        val userRequirement = Requirement.requirementBuilder().assignments(List.of()).build();
+
+        BlockingQueue<Task> queue = new ArrayBlockingQueue<>(capacity);
+        ExecutorService workers = Executors.newFixedThreadPool(numWorkers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < numWorkers; w++) {
+                ExplanationVerifier v = verifier;
+                futures.add(workers.submit(() -> work(fullnameKB, fm, userRequirement, compiledFM, cfg.usePropagatingChecker(), cfg.getSolverSettings(fullnameKB), cfg.getSplitStrategy(), cache, v, queue, measures, resultWriter)));
+            }
+
+            produce(cfg, fullnameKB, fm, seed, queue, futures, sconfWriter);
+            for (int w = 0; w < numWorkers; w++) {
+                put(fullnameKB, queue, EOF, futures);
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException("Pipeline failed for " + fullnameKB, e);
+        } finally {
+            workers.shutdownNow();
+            awaitTermination(fullnameKB, workers);
+            if (sconfWriter != null) {
+                sconfWriter.close();
+            }
+            if (verifier != null) {
+                verifier.close();
+            }
+        }
+
+        results.put(fullnameKB, new Hashtable<>());
+        measures.forEach((size, m) -> {
+            double n = Math.max(1, m.numSCONFs.sum());
+            double avg_runtime = m.runtime.sum() / n / 1_000_000_000.0;
+            double avg_size = m.explanationSize.sum() / n;
+            double wall = Math.max(1, m.end.get() - m.start.get()) / 1_000_000_000.0;
+            double throughput = m.numSCONFs.sum() / wall;
+
+            resultWriter.print("\t----------------------------------------");
+            resultWriter.print("\t\tSize " + size + ": " + m.numSCONFs.sum() + " SCONFs");
+            resultWriter.print("\t\tAverage CXPlain runtime: " + avg_runtime);
+            resultWriter.print("\t\tAverage explanation size: " + avg_size);
+            if (cfg.getSolverSettings(fullnameKB).hasLimits()) {
+                resultWriter.print("\t\tChecks hitting a limit: " + m.limitHits.sum());
+            }
+            resultWriter.print("\t\tThroughput (SCONFs/s): " + throughput);
+
+            Dictionary<String, Double> sizeResults = new Hashtable<>();
+            sizeResults.put("cxplain_runtime", avg_runtime);
+            sizeResults.put("explanation_size", avg_size);
+            sizeResults.put("throughput", throughput);
+            results.get(fullnameKB).put(Integer.toString(size), sizeResults);
+        });
+
+        if (cache != null) {
+            resultWriter.print("\t----------------------------------------");
+            memoryHits = cache.getMemoryHits() - memoryHits;
+            diskHits = cache.getDiskHits() - diskHits;
+            misses = cache.getMisses() - misses;
+            long lookups = memoryHits + diskHits + misses;
+            resultWriter.print(String.format("\tExplanation cache: %d memory hits, %d disk hits, %d misses, hit rate %.4f",
+                    memoryHits, diskHits, misses, lookups == 0 ? 0.0 : (double) (memoryHits + diskHits) / lookups));
+        }
+        if (verifier != null) {
+            resultWriter.print("\t----------------------------------------");
+            resultWriter.print("\t" + verifier.getReport());
+        }
+    }
+
+    private static void produce(AppConfig cfg, String fullnameKB,
+                                FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> fm,
+                                long seed, BlockingQueue<Task> queue, List<Future<?>> workers,
+                                AsyncSolutionWriter sconfWriter) throws InterruptedException {
+        val reader = new SolutionReader(new FMKB<>(fm, false));
+
+        for (int i = 1; i <= cfg.getNumConfs(); i++) {
+            val confFile = new File(cfg.getConfPath() + cfg.getNameKB(fullnameKB) + String.format("/valid_conf_%d.txt", i));
+            Requirement configuration = reader.read(confFile);
+            String confIndex = Integer.toString(i);
+
+            for (int size : cfg.getSizeSCONFs()) {
+                SCONFGenerator.selectSCONF(configuration, size, cfg.getMaxCombinations(),
+                        RandomStreams.forJob(seed, confIndex, size),
+                        (counter, SCONF) -> {
+                            put(fullnameKB, queue, new Task(confFile.getName(), configuration, size, counter, SCONF), workers);
+                            if (sconfWriter != null) {
+                                sconfWriter.write(SCONF, String.format(outputFileTemplate, confIndex, size, counter));
+                            }
+                        });
+            }
+        }
+    }
+
+    /**
+     * Waits for the interrupted workers of a failed feature model, so that they do not
+     * update the global evaluators while they are reset for the next feature model.
+     */
+    private static void awaitTermination(String fullnameKB, ExecutorService workers) {
+        try {
+            if (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.warn("Workers of {} did not stop after being interrupted", fullnameKB);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queues the task, but stops the producer if a worker is done before EOF, i.e., it failed.
+     * Otherwise, the producer would wait forever on a full queue once all workers failed.
+     */
+    private static void put(String fullnameKB, BlockingQueue<Task> queue, Task task, List<Future<?>> workers) throws InterruptedException {
+        while (!queue.offer(task, PUT_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            for (Future<?> worker : workers) {
+                if (worker.isDone()) {
+                    try {
+                        worker.get();
+                    } catch (ExecutionException e) {
+                        throw new IllegalStateException("Pipeline failed for " + fullnameKB, e.getCause());
+                    }
+                    throw new IllegalStateException("Pipeline failed for " + fullnameKB + ": a worker stopped before the end of the queue");
+                }
+            }
+        }
+    }
+
+    private static Void work(String fullnameKB,
+                             FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> fm,
+                             Requirement userRequirement,
+                             CompiledFM compiledFM,
+                             boolean propagate,
+                             SolverSettings solverSettings,
+                             String splitStrategy,
+                             ExplanationCache cache,
+                             ExplanationVerifier verifier,
+                             BlockingQueue<Task> queue,
+                             Map<Integer, Measures> measures,
+                             AsyncResultWriter resultWriter) throws InterruptedException {
+        // SCONFs of a configuration are queued one after another,
+        // hence each worker keeps the template, the checker and CXPlain of its current configuration
+        Requirement configuration = null;
+        FMCausalExplanationTemplate<Feature, AbstractRelationship<Feature>, CTConstraint> template = null;
+        ChocoConsistencyChecker checker = null;
+        CXPlain cxPlain = null;
+        // learned split points are kept per worker
+        SplitStrategy split = SplitStrategy.of(splitStrategy);
+
+        for (Task task = queue.take(); task != EOF; task = queue.take()) {
+            val sconf = Requirement.requirementBuilder().assignments(task.SCONF()).build();
+
+            long start = System.nanoTime();
+            if (task.configuration() != configuration) {
+                if (template != null) {
+                    template.dispose();
+                }
+                configuration = task.configuration();
+                template = new FMCausalExplanationTemplate<>(fm, userRequirement, configuration);
+                if (compiledFM != null) {
+                    checker = new BDDConsistencyChecker(template.getModel(), compiledFM);
+                } else if (!solverSettings.isDefault()) {
+                    checker = new ConfigurableConsistencyChecker(template.getModel(), solverSettings, propagate);
+                } else if (propagate) {
+                    checker = new PropagatingConsistencyChecker(template.getModel());
+                } else {
+                    checker = new ChocoConsistencyChecker(template.getModel());
+                }
+                cxPlain = cache != null
+                        ? new CachingCXPlain(checker, cache, fullnameKB)
+                        : new CXPlain(checker);
+                cxPlain.setSplitStrategy(split);
+            }
+            long limitHits = checker instanceof ConfigurableConsistencyChecker c ? c.getLimitHits() : 0;
+            val instance = template.instantiate(sconf);
+            if (checker instanceof BDDConsistencyChecker bddChecker) {
+                bddChecker.setSCONF(instance);
+            }
+
+            Set<Constraint> explanation = cxPlain.findExplanation(instance.getREQ(), instance.getCF(), instance.getCONF(), instance.getNSCONF());
+            long end = System.nanoTime();
+
+            if (verifier != null) {
+                verifier.submit(userRequirement, configuration, sconf, explanation);
+            }
+
+            val m = measures.get(task.sizeSCONF());
+            m.numSCONFs.increment();
+            m.runtime.add(end - start);
+            m.explanationSize.add(explanation.size());
+            if (checker instanceof ConfigurableConsistencyChecker c) {
+                m.limitHits.add(c.getLimitHits() - limitHits);
+            }
+            m.start.accumulateAndGet(start, Math::min);
+            m.end.accumulateAndGet(end, Math::max);
+
+            Task t = task;
+            resultWriter.print(DETAIL, () -> String.format("\t\t%s - size %d - SCONF %d: %.6f s", t.confName(), t.sizeSCONF(), t.counter(), (end - start) / 1_000_000_000.0));
+            resultWriter.print(EXPLANATION, () -> "\t\t\tExplanation: " + explanation);
+        }
+        return null;
+    }
+}
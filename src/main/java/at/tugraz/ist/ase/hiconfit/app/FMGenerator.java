@@ -0,0 +1,297 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.app;
+
+import at.tugraz.ist.ase.hiconfit.CXPlain;
+import at.tugraz.ist.ase.hiconfit.app.cli.AppConfig;
+import at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Assignment;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Requirement;
+import at.tugraz.ist.ase.hiconfit.common.MailService;
+import at.tugraz.ist.ase.hiconfit.common.RandomStreams;
+import at.tugraz.ist.ase.hiconfit.common.cfg.TomlConfigLoader;
+import at.tugraz.ist.ase.hiconfit.common.cli.CmdLineOptions;
+import at.tugraz.ist.ase.hiconfit.eval.PerformanceEvaluator;
+import at.tugraz.ist.ase.hiconfit.fm.FMCausalExplanationTemplate;
+import at.tugraz.ist.ase.hiconfit.fm.RandomFeatureModelGenerator;
+import at.tugraz.ist.ase.hiconfit.fm.core.AbstractRelationship;
+import at.tugraz.ist.ase.hiconfit.fm.core.CTConstraint;
+import at.tugraz.ist.ase.hiconfit.fm.core.Feature;
+import at.tugraz.ist.ase.hiconfit.fm.core.FeatureModel;
+import at.tugraz.ist.ase.hiconfit.fm.factory.FeatureModels;
+import at.tugraz.ist.ase.hiconfit.fm.parser.FeatureModelParserException;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+import static at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker.TIMER_SOLVER;
+import static at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator.*;
+import static at.tugraz.ist.ase.hiconfit.common.IOUtils.checkAndCreateFolder;
+
+/**
+ * Generates synthetic feature models of the sizes #fmSizes with {@link RandomFeatureModelGenerator},
+ * together with their valid configurations and SCONFs, in the layout of ./data:
+ * + fms/synthetic_n.sxfm
+ * + confs/synthetic_n/valid_conf_i.txt
+ * + sconfs/synthetic_n/sconf_i_size_counter.txt
+ * <p>
+ * The first configuration is the witness of the generator, the others are generated
+ * as in {@link ConfGenerator}. SCONFs are selected as in {@link SCONFGenerator}.
+ * <p>
+ * With evaluate = true, all SCONFs are also explained by CXPlain, and the growth of
+ * consistency checks and runtimes with the size of the feature model is reported.
+ */
+@Slf4j
+public class FMGenerator {
+
+    static String fmFileTemplate = "synthetic_%d.sxfm";
+
+    /**
+     * Measures of a (feature model size, size of SCONF) cell
+     */
+    private record Measures(int numFeatures, int numCTCs, int sizeSCONF, int numSCONFs,
+                            double consistencyChecks, double solverCalls, double runtime) {}
+
+    public static void main(String[] args) throws FeatureModelParserException, IOException {
+        val programTitle = "Feature Model Generator";
+        val usage = "Usage: java -jar fm_gen.jar [options]";
+
+        // Parse command line arguments
+        val cmdLineOptions = CmdLineOptions.withCfg(programTitle, usage);
+        cmdLineOptions.parseArgument(args);
+
+        if (cmdLineOptions.isHelp()) {
+            cmdLineOptions.printUsage();
+            System.exit(0);
+        }
+
+        cmdLineOptions.printWelcome();
+
+        // Read configurations
+        val confFile = cmdLineOptions.getConfFile() == null ? AppConfig.defaultConfigFile_FMGenerator : cmdLineOptions.getConfFile();
+        val cfg = TomlConfigLoader.loadConfig(confFile, AppConfig.class);
+
+        printConf(cfg);
+        MailService mailService;
+        if (cfg.getEmailAddress() != null && cfg.getEmailPass() != null) {
+            mailService = new MailService(cfg.getEmailAddress(), cfg.getEmailPass());
+        } else {
+            mailService = null;
+        }
+
+        long seed = cfg.getSeed() != null ? cfg.getSeed() : RandomStreams.newSeed();
+        long failLimit = cfg.getFailLimit() > 0 ? cfg.getFailLimit() : ConfGenerator.DEFAULT_FAIL_LIMIT;
+        System.out.println("=============================");
+        System.out.println("Seed: " + seed);
+
+        val fmFolder = cfg.getOutputFolder() + "fms/";
+        checkAndCreateFolder(fmFolder);
+
+        List<Measures> measures = new ArrayList<>();
+        for (int numFeatures : cfg.getFmSizes()) {
+            long start = System.nanoTime();
+
+            // feature model
+            val generator = new RandomFeatureModelGenerator(numFeatures, cfg.getCtcRatio(), cfg.getExcludesRatio());
+            val fmFile = new File(fmFolder + String.format(fmFileTemplate, numFeatures));
+            val name = cfg.getNameKB(fmFile.getName());
+            val syntheticFM = generator.generate(name, RandomStreams.forJob(seed, "fm", numFeatures));
+            Files.writeString(fmFile.toPath(), syntheticFM.sxfm(), StandardCharsets.UTF_8);
+
+            // read back, which also validates the written file
+            val fm = FeatureModels.fromFile(fmFile);
+
+            // configurations and SCONFs
+            Map<String, Requirement> configurations = generateConfigurations(cfg, name, fm, syntheticFM.witness(), seed, failLimit);
+            Map<String, Map<Integer, List<Requirement>>> sconfs = generateSCONFs(cfg, name, configurations, seed);
+
+            System.out.printf("%s: %d features, %d CTCs, %d configurations, generated in %.2f s%n", fmFile.getName(),
+                    syntheticFM.numFeatures(), syntheticFM.numCTCs(), configurations.size(), (System.nanoTime() - start) / 1_000_000_000.0);
+
+            if (cfg.isEvaluate()) {
+                measures.addAll(evaluate(fm, syntheticFM, configurations, sconfs, cfg.getSizeSCONFs()));
+            }
+        }
+
+        if (cfg.isEvaluate()) {
+            printMeasures(measures);
+        }
+        System.out.println("DONE");
+
+        if (mailService != null) {
+            mailService.sendMail(cfg.getEmailAddress(), cfg.getEmailAddress(), "DONE fm_gen.sh - " + cfg.getMachine(), "Feature model generation is done!");
+        }
+    }
+
+    /**
+     * A configuration whose attempts all hit the fail limit is skipped with a warning,
+     * and the next ones keep contiguous indexes.
+     *
+     * @return configuration index -> configuration
+     */
+    private static Map<String, Requirement> generateConfigurations(AppConfig cfg, String name,
+                                                                   FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> fm,
+                                                                   List<Assignment> witness, long seed, long failLimit) throws IOException {
+        val confFolder = cfg.getOutputFolder() + "confs/" + name + "/";
+        checkAndCreateFolder(confFolder);
+
+        Map<String, Requirement> configurations = new LinkedHashMap<>();
+        try (val writer = new AsyncSolutionWriter(confFolder)) {
+            configurations.put("1", Requirement.requirementBuilder().assignments(witness).build());
+
+            val generator = cfg.getNumConfs() > 1 ? new ConfGenerator.Generator(fm, cfg.getPreselectionRatio(), failLimit) : null;
+            for (int i = 2; i <= cfg.getNumConfs(); i++) {
+                val random = RandomStreams.forJob(seed, name, i);
+                List<Assignment> configuration = null;
+                for (int attempt = 1; attempt <= ConfGenerator.MAX_ATTEMPTS && configuration == null; attempt++) {
+                    configuration = generator.generate(random);
+                }
+
+                if (configuration != null) {
+                    configurations.put(Integer.toString(configurations.size() + 1), Requirement.requirementBuilder().assignments(configuration).build());
+                } else {
+                    log.warn("Skipped configuration {} of {}: {} attempts hit the fail limit", i, name, ConfGenerator.MAX_ATTEMPTS);
+                }
+            }
+
+            for (Map.Entry<String, Requirement> entry : configurations.entrySet()) {
+                writer.write(entry.getValue().getAssignments(), String.format(ConfGenerator.outputFileTemplate, Integer.parseInt(entry.getKey())));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Configuration generation interrupted", e);
+        }
+        return configurations;
+    }
+
+    /**
+     * @return configuration index -> size of SCONF -> SCONFs
+     */
+    private static Map<String, Map<Integer, List<Requirement>>> generateSCONFs(AppConfig cfg, String name,
+                                                                              Map<String, Requirement> configurations,
+                                                                              long seed) throws IOException {
+        val sconfFolder = cfg.getOutputFolder() + "sconfs/" + name + "/";
+        checkAndCreateFolder(sconfFolder);
+
+        Map<String, Map<Integer, List<Requirement>>> sconfs = new LinkedHashMap<>();
+        try (val writer = new AsyncSolutionWriter(sconfFolder)) {
+            for (Map.Entry<String, Requirement> entry : configurations.entrySet()) {
+                String confIndex = entry.getKey();
+                Map<Integer, List<Requirement>> sconfsOfConf = new TreeMap<>();
+                sconfs.put(confIndex, sconfsOfConf);
+
+                for (int size : cfg.getSizeSCONFs()) {
+                    List<Requirement> selected = new ArrayList<>();
+                    sconfsOfConf.put(size, selected);
+
+                    SCONFGenerator.selectSCONF(entry.getValue(), size, cfg.getMaxCombinations(),
+                            RandomStreams.forJob(seed, name + "_" + confIndex, size),
+                            (counter, SCONF) -> {
+                                writer.write(SCONF, String.format(SCONFGenerator.outputFileTemplate, confIndex, size, counter));
+                                if (cfg.isEvaluate()) {
+                                    selected.add(Requirement.requirementBuilder().assignments(SCONF).build());
+                                }
+                            });
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("SCONF generation interrupted", e);
+        }
+        return sconfs;
+    }
+
+    /**
+     * Explains all SCONFs, with one {@link FMCausalExplanationTemplate} per configuration.
+     */
+    private static List<Measures> evaluate(FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> fm,
+                                           RandomFeatureModelGenerator.SyntheticFM syntheticFM,
+                                           Map<String, Requirement> configurations,
+                                           Map<String, Map<Integer, List<Requirement>>> sconfs,
+                                           List<Integer> sizeSCONFs) {
+        val userRequirement = Requirement.requirementBuilder().assignments(List.of()).build();
+
+        Map<Integer, double[]> sums = new TreeMap<>(); // size -> {SCONFs, checks, solver calls, runtime}
+        sizeSCONFs.forEach(size -> sums.put(size, new double[4]));
+
+        for (Map.Entry<String, Requirement> entry : configurations.entrySet()) {
+            val template = new FMCausalExplanationTemplate<>(fm, userRequirement, entry.getValue());
+            val cxPlain = new CXPlain(new ChocoConsistencyChecker(template.getModel()));
+
+            sconfs.get(entry.getKey()).forEach((size, sconfsOfSize) -> {
+                for (Requirement sconf : sconfsOfSize) {
+                    val instance = template.instantiate(sconf);
+
+                    PerformanceEvaluator.reset();
+                    setCommonTimer(TIMER_SOLVER);
+                    CAEvaluator.reset();
+                    long start = System.nanoTime();
+                    cxPlain.findExplanation(instance.getREQ(), instance.getCF(), instance.getCONF(), instance.getNSCONF());
+                    long end = System.nanoTime();
+
+                    double[] sum = sums.get(size);
+                    sum[0]++;
+                    sum[1] += getCounter(COUNTER_CONSISTENCY_CHECKS).getValue();
+                    sum[2] += getCounter(COUNTER_CHOCO_SOLVER_CALLS).getValue();
+                    sum[3] += (end - start) / 1_000_000_000.0;
+                }
+            });
+            template.dispose();
+        }
+
+        List<Measures> measures = new ArrayList<>();
+        sums.forEach((size, sum) -> {
+            double n = Math.max(1, sum[0]);
+            measures.add(new Measures(syntheticFM.numFeatures(), syntheticFM.numCTCs(), size, (int) sum[0],
+                    sum[1] / n, sum[2] / n, sum[3] / n));
+        });
+        return measures;
+    }
+
+    /**
+     * Prints the measures, with the growth exponent k of the runtime, i.e., runtime ~ features^k,
+     * between consecutive feature model sizes.
+     */
+    private static void printMeasures(List<Measures> measures) {
+        System.out.println("-----------------------------");
+        System.out.println("features\tCTCs\tsize\tSCONFs\tconsistency checks\tsolver calls\tCXPlain runtime (s)\truntime growth");
+
+        Map<Integer, Measures> previous = new HashMap<>(); // size of SCONF -> measures of the previous feature model
+        for (Measures m : measures) {
+            Measures p = previous.put(m.sizeSCONF(), m);
+            String growth = "-";
+            if (p != null && p.runtime() > 0 && m.runtime() > 0 && m.numFeatures() != p.numFeatures()) {
+                growth = String.format("%.2f", Math.log(m.runtime() / p.runtime()) / Math.log((double) m.numFeatures() / p.numFeatures()));
+            }
+            System.out.printf("%d\t%d\t%d\t%d\t%.2f\t%.2f\t%.6f\t%s%n", m.numFeatures(), m.numCTCs(), m.sizeSCONF(),
+                    m.numSCONFs(), m.consistencyChecks(), m.solverCalls(), m.runtime(), growth);
+        }
+    }
+
+    private static void printConf(AppConfig config) {
+        System.out.println("Configurations:");
+        System.out.println("\tfmSizes: " + config.getFmSizes());
+        System.out.println("\tctcRatio: " + config.getCtcRatio());
+        System.out.println("\texcludesRatio: " + config.getExcludesRatio());
+        System.out.println("\tnumConfs: " + config.getNumConfs());
+        System.out.println("\tpreselectionRatio: " + config.getPreselectionRatio());
+        System.out.println("\tsizeSCONFs: " + config.getSizeSCONFs());
+        System.out.println("\tmaxCombinations: " + config.getMaxCombinations());
+        System.out.println("\tseed: " + config.getSeed());
+        System.out.println("\tfailLimit: " + config.getFailLimit());
+        System.out.println("\tevaluate: " + config.isEvaluate());
+        System.out.println("\toutputFolder: " + config.getOutputFolder());
+    }
+}
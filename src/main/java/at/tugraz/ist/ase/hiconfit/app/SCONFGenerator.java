@@ -11,26 +11,27 @@ package at.tugraz.ist.ase.hiconfit.app;
 import at.tugraz.ist.ase.hiconfit.app.cli.AppConfig;
 import at.tugraz.ist.ase.hiconfit.cacdr_core.Assignment;
 import at.tugraz.ist.ase.hiconfit.cacdr_core.Requirement;
-import at.tugraz.ist.ase.hiconfit.cacdr_core.Solution;
 import at.tugraz.ist.ase.hiconfit.cacdr_core.reader.SolutionReader;
-import at.tugraz.ist.ase.hiconfit.cacdr_core.writer.MultiLineTxtSolutionWriter;
+import at.tugraz.ist.ase.hiconfit.common.CombinationSampler;
 import at.tugraz.ist.ase.hiconfit.common.MailService;
-import at.tugraz.ist.ase.hiconfit.common.RandomUtils;
-import at.tugraz.ist.ase.hiconfit.common.Utils;
+import at.tugraz.ist.ase.hiconfit.common.RandomStreams;
 import at.tugraz.ist.ase.hiconfit.common.cfg.TomlConfigLoader;
 import at.tugraz.ist.ase.hiconfit.common.cli.CmdLineOptions;
-import at.tugraz.ist.ase.hiconfit.fm.factory.FeatureModels;
+import at.tugraz.ist.ase.hiconfit.fm.FMSnapshot;
 import at.tugraz.ist.ase.hiconfit.fm.parser.FeatureModelParserException;
 import at.tugraz.ist.ase.hiconfit.kb.fm.FMKB;
-import com.google.common.collect.Sets;
+import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.random.RandomGenerator;
 
 import static at.tugraz.ist.ase.hiconfit.common.IOUtils.checkAndCreateFolder;
 
@@ -75,125 +76,113 @@ public class SCONFGenerator {
         // check the output folder
         checkAndCreateFolder(outputFolder);
 
-        val featureModel = FeatureModels.fromFile(fmFile);
+        val featureModel = FMSnapshot.loadOrCreate(fmFile);
         val fmKB = new FMKB<>(featureModel, false);
 
         // read configuration files from the confs directory
-        for (final File file : Objects.requireNonNull(confsFolder.listFiles())) {
-            String fileName = file.getName();
-            if (fileName.endsWith(".txt")) {
-                System.out.println("=============================");
-                System.out.println("Processing: " + fileName);
-
-                SolutionReader reader = new SolutionReader(fmKB);
-                Requirement configuration = reader.read(file);
-
-                // extract the number of valid_conf_1.txt
-                String confIndex = fileName.split("_")[2].replace(".txt", "");
-
-                // select SCONF
-                for (int size : cfg.getSizeSCONFs()) {
-                    selectSCONF(configuration, size, cfg.getMaxCombinations(), outputFolder, confIndex);
-                }
+        SolutionReader reader = new SolutionReader(fmKB);
+        List<Job> jobs = new ArrayList<>();
+        File[] confFiles = Objects.requireNonNull(confsFolder.listFiles((dir, name) -> name.endsWith(".txt")));
+        Arrays.sort(confFiles);
+
+        long seed = cfg.getSeed() != null ? cfg.getSeed() : RandomStreams.newSeed();
+        for (final File file : confFiles) {
+            Requirement configuration = reader.read(file);
+
+            // extract the number of valid_conf_1.txt
+            String confIndex = file.getName().split("_")[2].replace(".txt", "");
+
+            for (int size : cfg.getSizeSCONFs()) {
+                // the random stream depends only on the seed and the (configuration, size) pair
+                jobs.add(new Job(file.getName(), confIndex, configuration, size, RandomStreams.forJob(seed, confIndex, size)));
             }
         }
 
+        int numThreads = cfg.getNumThreads() > 0 ? cfg.getNumThreads() : Runtime.getRuntime().availableProcessors();
+        System.out.println("=============================");
+        System.out.println("Seed: " + seed);
+        System.out.println("Jobs: " + jobs.size() + " (" + confFiles.length + " configurations x " + cfg.getSizeSCONFs().size() + " sizes)");
+        System.out.println("Threads: " + numThreads);
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try (val writer = new AsyncSolutionWriter(outputFolder)) {
+            List<Future<String>> results = new ArrayList<>();
+            for (Job job : jobs) {
+                results.add(executor.submit(() -> runJob(job, cfg.getMaxCombinations(), writer)));
+            }
+
+            // print progress summaries in the job order
+            for (Future<String> result : results) {
+                System.out.println(result.get());
+            }
+
+            System.out.println("-----------------------------");
+            System.out.println("Writing the remaining files...");
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException("SCONF generation failed", e);
+        } finally {
+            executor.shutdownNow();
+        }
+        System.out.printf("DONE in %.2f s%n", (System.nanoTime() - start) / 1_000_000_000.0);
+
         if (mailService != null) {
             mailService.sendMail(cfg.getEmailAddress(), cfg.getEmailAddress(), "DONE sconf_gen.sh - " + cfg.getMachine(), "Sconf generation is done!");
         }
     }
 
-    public static void selectSCONF(Requirement configuration,
-                                   int sizeSCONF,
-                                   int maxCombinations,
-                                   String outputFolder,
-                                   String confIndex) throws IOException {
-
-        if (sizeSCONF <= configuration.size()) {
+    /**
+     * A generation job for a (configuration, size of SCONF) pair, with its own random number generator.
+     */
+    private record Job(String fileName, String confIndex, Requirement configuration, int sizeSCONF, SplittableRandom random) {}
 
-            Integer[] indexesArr = createIndexesArray(configuration.size());
-            Set<Integer> targetSet = Sets.newHashSet(indexesArr);
+    private static String runJob(Job job, int maxCombinations, AsyncSolutionWriter writer) throws InterruptedException {
+        long start = System.nanoTime();
 
-            // generate variable_combinations
-            Set<Set<Integer>> var_combinations = Sets.combinations(targetSet, sizeSCONF);
+        int numSelected = selectSCONF(job.configuration(), job.sizeSCONF(), maxCombinations, job.random(),
+                (counter, SCONF) -> writer.write(SCONF, String.format(outputFileTemplate, job.confIndex(), job.sizeSCONF(), counter)));
 
-            System.out.println("-----------------------------");
-            System.out.println("\tSize of SCONF: " + sizeSCONF);
-            System.out.println("\t\tNumber of combinations: " + var_combinations.size());
-
-            // select randomly maximum 100_000 variable combinations for each card
-            int numSelectedVarComb = Math.min(var_combinations.size(), maxCombinations);
-
-            // select variable_combinations
-            List<Integer> selected_var_combinations = selectIndexes(numSelectedVarComb, var_combinations.size(), false);
-
-            System.out.println("\t\tGet selected combinations");
-            Set<Set<Integer>> selectedVarCombs = Utils.getSelectedCombinations(var_combinations, selected_var_combinations);
-            System.out.println("\t\tNumber of selected combinations: " + selectedVarCombs.size());
-
-            // foreach the selected combination
-            int counter = 0;
-            for (Set<Integer> var_comb : selectedVarCombs) {
-                System.out.println("\t\t\t" + ++counter + " - " + var_comb);
-
-                // get assignments from the configuration based on the selected indexes
-                List<Assignment> SCONF = var_comb.stream()
-                        .map(i -> configuration.getAssignment(i - 1))
-                        .map(assignment -> {
-                            try {
-                                return (Assignment) assignment.clone();
-                            } catch (CloneNotSupportedException e) {
-                                throw new RuntimeException(e);
-                            }
-                        }).toList();
-
-                String outputFile = String.format(outputFileTemplate, confIndex, sizeSCONF, counter);
-                MultiLineTxtSolutionWriter writer = new MultiLineTxtSolutionWriter(outputFolder);
-//                // order assignments in the SCONF according to assignments in configuration
-//                List<Assignment> orderedSCONF = configuration.getAssignments().stream()
-//                        .filter(SCONF::contains)
-//                        .collect(Collectors.toList());
-
-                // save
-                writer.write(Solution.builder().assignments(SCONF).build(), outputFile);
-            }
-        }
+        return String.format("%s - size %d: %d SCONFs selected in %.2f s",
+                job.fileName(), job.sizeSCONF(), numSelected, (System.nanoTime() - start) / 1_000_000_000.0);
     }
 
-    private static Integer[] createIndexesArray(int numVar) {
-        return IntStream.range(0, numVar).mapToObj(i -> i + 1).toArray(Integer[]::new);
+    @FunctionalInterface
+    public interface SCONFConsumer {
+        /**
+         * @param counter the 1-based number of the SCONF
+         * @param SCONF the assignments of the SCONF, in the order of the configuration
+         */
+        void accept(int counter, List<Assignment> SCONF) throws InterruptedException;
     }
 
     /**
-     * randomly select #numIndexes combinations from #indexesSize combinations
-     * @param numIndexes the number of combinations to be selected
-     * @param indexesSize the size of the list of combinations
-     * @param sort        true if the selected indexes are sorted
-     * @return list of combination indexes
+     * Selects randomly maximum #maxCombinations SCONFs of size #sizeSCONF from the configuration.
+     * @return the number of selected SCONFs
      */
-    private static List<Integer> selectIndexes(int numIndexes, int indexesSize, boolean sort) {
-        List<Integer> selectedIndexes = new ArrayList<>();
-
-        if (indexesSize > numIndexes) {
-            int index;
-            for (int i = 0; i < numIndexes; i++) {
-                do {
-                    index = RandomUtils.getRandomInt(indexesSize); // 0 - indexes.size() - 1
-                } while (selectedIndexes.contains(index));
-                selectedIndexes.add(index);
-
-                if (sort) {
-                    Collections.sort(selectedIndexes);
-                }
-            }
-        } else {
-            selectedIndexes = IntStream.range(0, indexesSize).boxed().collect(Collectors.toList());
+    public static int selectSCONF(@NonNull Requirement configuration,
+                                  int sizeSCONF,
+                                  int maxCombinations,
+                                  @NonNull RandomGenerator random,
+                                  @NonNull SCONFConsumer consumer) throws InterruptedException {
+        if (sizeSCONF > configuration.size()) {
+            return 0;
+        }
 
-            if (!sort) {
-                Collections.shuffle(selectedIndexes);
-            }
+        // the combination space is never materialized,
+        // selected combinations are unranked directly from random ranks
+        val sampler = new CombinationSampler(configuration.size(), sizeSCONF);
+        List<int[]> selectedVarCombs = sampler.sample(maxCombinations, random);
+
+        int counter = 0;
+        for (int[] var_comb : selectedVarCombs) {
+            // get assignments from the configuration based on the selected indexes
+            List<Assignment> SCONF = Arrays.stream(var_comb)
+                    .mapToObj(configuration::getAssignment)
+                    .toList();
+
+            consumer.accept(++counter, SCONF);
         }
-        return selectedIndexes;
+        return counter;
     }
 
     private static void printConf(AppConfig config) {
@@ -202,6 +191,9 @@ public class SCONFGenerator {
         System.out.println("\tkbPath: " + config.getKbPath());
         System.out.println("\tconfPath: " + config.getConfPath());
         System.out.println("\tsizeSCONFs: " + config.getSizeSCONFs());
+        System.out.println("\tmaxCombinations: " + config.getMaxCombinations());
+        System.out.println("\tnumThreads: " + config.getNumThreads());
+        System.out.println("\tseed: " + config.getSeed());
         System.out.println("\toutputFolder: " + config.getOutputFolder());
     }
 }
@@ -8,18 +8,30 @@
 
 package at.tugraz.ist.ase.hiconfit.app.cli;
 
+import at.tugraz.ist.ase.hiconfit.app.AsyncResultWriter;
+import at.tugraz.ist.ase.hiconfit.checker.BDD;
+import at.tugraz.ist.ase.hiconfit.checker.SolverSettings;
+import at.tugraz.ist.ase.hiconfit.split.SplitStrategy;
 import at.tugraz.ist.ase.hiconfit.common.cfg.BaseAppConfig;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.util.List;
+import java.util.Map;
 
 @Getter
 @Setter
 public class AppConfig extends BaseAppConfig {
     public static String defaultConfigFile_SCONFGenerator = "./conf/sconf_gen_arcade-game.cfg";
     public static String defaultConfigFile_CXPlainEvaluation = "./conf/cxplain_eval.cfg";
+    public static String defaultConfigFile_ConfGenerator = "./conf/conf_gen_arcade-game.toml";
+    public static String defaultConfigFile_FMGenerator = "./conf/fm_gen.toml";
+    public static String defaultConfigFile_CXPlainBatch = "./conf/cxplain_batch.toml";
+
+    public static final String CHECKER_CHOCO = "choco";
+    public static final String CHECKER_BDD = "bdd";
+    public static final String CHECKER_PROPAGATION = "propagation";
 
     @JsonProperty("nameKB")
     private String nameKB;
@@ -48,6 +60,84 @@ public class AppConfig extends BaseAppConfig {
     @JsonProperty("maxCombinations")
     private int maxCombinations;
 
+    @JsonProperty("seed")
+    private Long seed; // null - a random seed
+
+    @JsonProperty("numThreads")
+    private int numThreads; // 0 - the number of available processors
+
+    @JsonProperty("preselectionRatio")
+    private double preselectionRatio = 0.5;
+
+    @JsonProperty("failLimit")
+    private long failLimit; // of a search generating a configuration, 0 - the default limit
+
+    @JsonProperty("fmSizes")
+    private List<Integer> fmSizes;
+
+    @JsonProperty("ctcRatio")
+    private double ctcRatio = 0.1; // cross-tree constraints per feature
+
+    @JsonProperty("excludesRatio")
+    private double excludesRatio = 0.5;
+
+    @JsonProperty("evaluate")
+    private boolean evaluate;
+
+    @JsonProperty("pipelineMode")
+    private boolean pipelineMode;
+
+    @JsonProperty("persistSCONFs")
+    private boolean persistSCONFs;
+
+    @JsonProperty("queueCapacity")
+    private int queueCapacity; // 0 - the default capacity
+
+    @JsonProperty("inputFile")
+    private String inputFile; // JSON lines of the batch mode, null - stdin
+
+    @JsonProperty("outputFile")
+    private String outputFile; // JSON lines of the batch mode, null - stdout
+
+    @JsonProperty("orderedOutput")
+    private boolean orderedOutput = true; // false - results are written as they are done, tagged with their ids
+
+    @JsonProperty("cacheExplanations")
+    private boolean cacheExplanations;
+
+    @JsonProperty("explanationCacheFile")
+    private String explanationCacheFile; // null - in memory only
+
+    @JsonProperty("explanationCacheSize")
+    private int explanationCacheSize; // 0 - the default size
+
+    @JsonProperty("verificationSampleRate")
+    private double verificationSampleRate; // share of explanations verified in the background, 0 - off
+
+    @JsonProperty("verificationThreads")
+    private int verificationThreads; // 0 - a quarter of the workers, at least 1
+
+    @JsonProperty("checker")
+    private String checker = CHECKER_CHOCO; // choco, bdd, or propagation
+
+    @JsonProperty("bddNodeLimit")
+    private int bddNodeLimit = BDD.DEFAULT_NODE_LIMIT;
+
+    @JsonProperty("useBackbone")
+    private boolean useBackbone; // explain backbone literals by their supports (cached as <fm>.backbone)
+
+    @JsonProperty("decompose")
+    private boolean decompose; // explain in the component of the constraint graph containing SCONF
+
+    @JsonProperty("splitStrategy")
+    private String splitStrategy = SplitStrategy.HALVES; // halves, galloping, or learned
+
+    @JsonProperty("solverSettings")
+    private SolverSettings solverSettings = new SolverSettings(); // for all feature models
+
+    @JsonProperty("fmSolverSettings")
+    private Map<String, SolverSettings> fmSolverSettings = Map.of(); // fullnameKB -> settings replacing solverSettings
+
     @JsonProperty("machine")
     private String machine;
 
@@ -60,11 +150,29 @@ public class AppConfig extends BaseAppConfig {
     @JsonProperty("printResult")
     private boolean printResult;
 
+    @JsonProperty("verbosity")
+    private AsyncResultWriter.Verbosity verbosity = AsyncResultWriter.Verbosity.DETAIL;
+
+    @JsonProperty("flushInterval")
+    private long flushInterval = AsyncResultWriter.DEFAULT_FLUSH_INTERVAL; // ms, 0 - flushed after each batch
+
     public String getNameKB(String fullnameKB) {
         int index = fullnameKB.lastIndexOf('.');
         return (index != -1) ? fullnameKB.substring(0, index) : fullnameKB;
     }
 
+    public boolean useBDDChecker() {
+        return CHECKER_BDD.equalsIgnoreCase(checker);
+    }
+
+    public SolverSettings getSolverSettings(String fullnameKB) {
+        return fmSolverSettings.getOrDefault(fullnameKB, solverSettings);
+    }
+
+    public boolean usePropagatingChecker() {
+        return CHECKER_PROPAGATION.equalsIgnoreCase(checker);
+    }
+
     public String getKBFilepath() {
         return kbPath + nameKB;
     }
@@ -0,0 +1,112 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.cache;
+
+import at.tugraz.ist.ase.hiconfit.CXPlain;
+import at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+import static at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator.incrementCounter;
+
+/**
+ * {@link CXPlain} in front of an {@link ExplanationCache}.
+ * <p>
+ * An explanation is looked up by the hash of KB and the constraints of CONF, REQ and NSCONF,
+ * and CXPlain runs only on a miss. Cached explanations are mapped back by their names
+ * to the constraints of REQ, KB and CONF, in the order in which CXPlain found them.
+ * <p>
+ * The checker is not thread-safe, hence each thread needs its own CachingCXPlain,
+ * while the cache can be shared.
+ */
+@Slf4j
+public class CachingCXPlain extends CXPlain {
+
+    // for evaluation
+    public static final String COUNTER_CACHE_HITS = "The number of explanation cache hits";
+    public static final String COUNTER_CACHE_MISSES = "The number of explanation cache misses";
+
+    private final ExplanationCache cache;
+    private final String fmName;
+
+    // the hash of the last KB, which is usually the same set for all explanations
+    private Set<Constraint> lastKB;
+    private String lastHash;
+
+    /**
+     * @param fmName the name of the feature model, whose explanations are invalidated when its hash changes
+     */
+    public CachingCXPlain(@NonNull ChocoConsistencyChecker checker, @NonNull ExplanationCache cache, @NonNull String fmName) {
+        super(checker);
+        this.cache = cache;
+        this.fmName = fmName;
+    }
+
+    @Override
+    public Set<Constraint> findExplanation(@NonNull Set<Constraint> REQ,
+                                           @NonNull Set<Constraint> KB,
+                                           @NonNull Set<Constraint> CONF,
+                                           @NonNull Set<Constraint> NSCONF) {
+        try {
+            String fmHash = hashOf(KB);
+            String key = ExplanationCache.keyOf(fmHash, CONF, REQ, NSCONF);
+
+            List<String> names = cache.get(key);
+            if (names != null) {
+                Set<Constraint> explanation = resolve(names, REQ, KB, CONF);
+                if (explanation != null) {
+                    incrementCounter(COUNTER_CACHE_HITS);
+                    return explanation;
+                }
+                log.warn("Cached explanation {} does not match the constraints, it is recomputed", names);
+            }
+            incrementCounter(COUNTER_CACHE_MISSES);
+
+            Set<Constraint> explanation = super.findExplanation(REQ, KB, CONF, NSCONF);
+            cache.put(fmHash, key, explanation.stream().map(Constraint::getConstraint).toList());
+            return explanation;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String hashOf(Set<Constraint> KB) throws IOException {
+        if (KB != lastKB) {
+            lastHash = ExplanationCache.hashOf(KB);
+            lastKB = KB;
+            cache.bind(fmName, lastHash);
+        }
+        return lastHash;
+    }
+
+    /**
+     * @return the constraints with the given names, or null if one of them is missing
+     */
+    private static Set<Constraint> resolve(List<String> names, Set<Constraint> REQ, Set<Constraint> KB, Set<Constraint> CONF) {
+        Map<String, Constraint> constraints = new HashMap<>();
+        for (Set<Constraint> set : List.of(REQ, KB, CONF)) {
+            set.forEach(c -> constraints.putIfAbsent(c.getConstraint(), c));
+        }
+
+        Set<Constraint> explanation = new LinkedHashSet<>();
+        for (String name : names) {
+            Constraint constraint = constraints.get(name);
+            if (constraint == null) {
+                return null;
+            }
+            explanation.add(constraint);
+        }
+        return explanation;
+    }
+}
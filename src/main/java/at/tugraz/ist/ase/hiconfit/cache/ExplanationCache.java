@@ -0,0 +1,320 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.cache;
+
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A two-level cache of explanations, i.e., of the names of their constraints.
+ * <p>
+ * The first level is an LRU map of at most #maxEntries explanations in memory.
+ * The optional second level is an append-only log file, whose offsets are indexed in memory,
+ * so that an explanation evicted from the memory is read back with a single seek.
+ * Log records are lines of tab-separated fields:
+ * + E, fmHash, key, names of the constraints separated by \u001F - an explanation
+ * + I, fmHash - the invalidation of all explanations of a feature model
+ * <p>
+ * Keys are SHA-256 hashes of the feature model hash, CONF, REQ and NSCONF, see {@link #keyOf}.
+ * The feature model hash is a SHA-256 hash of its constraints, see {@link #hashOf}.
+ * Explanations of a feature model are dropped once it is bound with another hash, see {@link #bind}.
+ * <p>
+ * Records of dropped explanations and invalidations are dead. The log file is compacted, i.e., rewritten
+ * with the live explanations only, when it is loaded with dead records, and once more than
+ * #COMPACTION_THRESHOLD records are dead and they outnumber the live ones.
+ * <p>
+ * All methods are synchronized, so that one cache can serve several threads.
+ */
+@Slf4j
+public class ExplanationCache implements Closeable {
+
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+    public static final int COMPACTION_THRESHOLD = 1024;
+
+    private static final String EXPLANATION = "E";
+    private static final String INVALIDATION = "I";
+    private static final String SEPARATOR = "\u001F";
+
+    private record Entry(String fmHash, List<String> explanation) {}
+    private record DiskEntry(String fmHash, long offset) {}
+
+    private final LinkedHashMap<String, Entry> memory;
+    private final Map<String, DiskEntry> disk = new HashMap<>();
+    private final Map<String, String> fmHashes = new HashMap<>(); // feature model name -> hash
+    private final File logFile;
+    private RandomAccessFile file;
+    private long deadRecords = 0;
+
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * A cache in memory only.
+     */
+    public ExplanationCache(int maxEntries) {
+        checkArgument(maxEntries > 0, "maxEntries must be positive");
+
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.logFile = null;
+        this.file = null;
+    }
+
+    /**
+     * A cache in memory, backed by the log file, which is created if it does not exist.
+     */
+    public ExplanationCache(int maxEntries, @NonNull File logFile) throws IOException {
+        checkArgument(maxEntries > 0, "maxEntries must be positive");
+
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.logFile = logFile;
+        this.file = new RandomAccessFile(logFile, "rw");
+        replay();
+        if (deadRecords > 0) {
+            compact();
+        }
+    }
+
+    /**
+     * Rebuilds the index of the log file.
+     */
+    private void replay() throws IOException {
+        long offset = 0;
+        long records = 0;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(logFile))) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            long position = 0;
+            int b;
+            while ((b = in.read()) != -1) {
+                position++;
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+
+                records++;
+                String[] fields = line.toString(StandardCharsets.UTF_8).split("\t", -1);
+                if (fields[0].equals(EXPLANATION) && fields.length == 4) {
+                    disk.put(fields[2], new DiskEntry(fields[1], offset));
+                } else if (fields[0].equals(INVALIDATION) && fields.length == 2) {
+                    disk.values().removeIf(e -> e.fmHash().equals(fields[1]));
+                }
+                line.reset();
+                offset = position;
+            }
+        }
+        // drops a truncated last record
+        file.setLength(offset);
+        deadRecords = records - disk.size();
+        log.debug("Loaded {} explanations from {}, {} dead records", disk.size(), logFile, deadRecords);
+    }
+
+    /**
+     * @return the hash of a feature model, given by its constraints
+     */
+    public static String hashOf(@NonNull Collection<Constraint> constraints) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        constraints.forEach(c -> hasher.putString(c.getConstraint(), StandardCharsets.UTF_8).putChar('\n'));
+        return hasher.hash().toString();
+    }
+
+    /**
+     * @return the key of the explanation of NSCONF in the feature model, with the given CONF and REQ
+     */
+    public static String keyOf(@NonNull String fmHash, @NonNull Collection<Constraint> CONF,
+                               @NonNull Collection<Constraint> REQ, @NonNull Collection<Constraint> NSCONF) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putString(fmHash, StandardCharsets.UTF_8).putChar('\u001E');
+        for (Collection<Constraint> constraints : List.of(CONF, REQ, NSCONF)) {
+            constraints.forEach(c -> hasher.putString(c.getConstraint(), StandardCharsets.UTF_8).putChar('\n'));
+            hasher.putChar('\u001E');
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Binds a feature model to its current hash.
+     * If the feature model was bound with another hash, all its explanations are invalidated.
+     */
+    public synchronized void bind(@NonNull String fmName, @NonNull String fmHash) throws IOException {
+        String previous = fmHashes.put(fmName, fmHash);
+        if (previous != null && !previous.equals(fmHash)) {
+            invalidate(previous);
+        }
+    }
+
+    /**
+     * Removes all explanations of the feature model with the given hash.
+     */
+    public synchronized void invalidate(@NonNull String fmHash) throws IOException {
+        memory.values().removeIf(e -> e.fmHash().equals(fmHash));
+        int size = disk.size();
+        if (file != null && disk.values().removeIf(e -> e.fmHash().equals(fmHash))) {
+            append(INVALIDATION + "\t" + fmHash);
+            // the dropped explanations and the invalidation itself
+            deadRecords += size - disk.size() + 1;
+            if (deadRecords > COMPACTION_THRESHOLD && deadRecords > disk.size()) {
+                compact();
+            }
+        }
+        log.debug("Invalidated the explanations of {}", fmHash);
+    }
+
+    /**
+     * @return the names of the constraints of the explanation, or null if it is not cached
+     */
+    public synchronized List<String> get(@NonNull String key) throws IOException {
+        Entry entry = memory.get(key);
+        if (entry != null) {
+            memoryHits.increment();
+            return entry.explanation();
+        }
+
+        DiskEntry diskEntry = disk.get(key);
+        if (diskEntry != null) {
+            String[] fields = readRecord(diskEntry.offset()).split("\t", -1);
+            List<String> explanation = fields[3].isEmpty() ? List.of() : List.of(fields[3].split(SEPARATOR, -1));
+
+            memory.put(key, new Entry(diskEntry.fmHash(), explanation));
+            diskHits.increment();
+            return explanation;
+        }
+
+        misses.increment();
+        return null;
+    }
+
+    public synchronized void put(@NonNull String fmHash, @NonNull String key, @NonNull List<String> explanation) throws IOException {
+        List<String> names = List.copyOf(explanation);
+        memory.put(key, new Entry(fmHash, names));
+
+        // names with line breaks, tabs or separators stay in memory only
+        boolean writable = names.stream().noneMatch(n -> n.contains("\n") || n.contains("\r") || n.contains("\t") || n.contains(SEPARATOR));
+        if (file != null && writable && !disk.containsKey(key)) {
+            long offset = append(String.join("\t", EXPLANATION, fmHash, key, String.join(SEPARATOR, names)));
+            disk.put(key, new DiskEntry(fmHash, offset));
+        }
+    }
+
+    /**
+     * Rewrites the log file with the live explanations only, in a temporary file that replaces the log file.
+     */
+    private void compact() throws IOException {
+        Path target = logFile.getAbsoluteFile().toPath();
+        Path tmp = Files.createTempFile(target.getParent(), logFile.getName(), ".tmp");
+        Map<String, DiskEntry> compacted = new HashMap<>();
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                long offset = 0;
+                for (Map.Entry<String, DiskEntry> e : disk.entrySet()) {
+                    byte[] record = (readRecord(e.getValue().offset()) + "\n").getBytes(StandardCharsets.UTF_8);
+                    out.write(record);
+                    compacted.put(e.getKey(), new DiskEntry(e.getValue().fmHash(), offset));
+                    offset += record.length;
+                }
+            }
+            file.close();
+            try {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                // the compacted or, if the move failed, the unchanged log file
+                file = new RandomAccessFile(logFile, "rw");
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+
+        log.debug("Compacted {}, {} dead records dropped", logFile, deadRecords);
+        disk.clear();
+        disk.putAll(compacted);
+        deadRecords = 0;
+    }
+
+    /**
+     * @return the offset of the appended record
+     */
+    private long append(String record) throws IOException {
+        long offset = file.length();
+        file.seek(offset);
+        file.write((record + "\n").getBytes(StandardCharsets.UTF_8));
+        return offset;
+    }
+
+    /**
+     * Reads the record starting at the given offset of the log file.
+     */
+    private String readRecord(long offset) throws IOException {
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        file.seek(offset);
+        int n;
+        while ((n = file.read(buffer)) != -1) {
+            for (int i = 0; i < n; i++) {
+                if (buffer[i] == '\n') {
+                    record.write(buffer, 0, i);
+                    return record.toString(StandardCharsets.UTF_8);
+                }
+            }
+            record.write(buffer, 0, n);
+        }
+        return record.toString(StandardCharsets.UTF_8);
+    }
+
+    public long getMemoryHits() {
+        return memoryHits.sum();
+    }
+
+    public long getDiskHits() {
+        return diskHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        long hits = getMemoryHits() + getDiskHits();
+        long total = hits + getMisses();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    public synchronized int size() {
+        return Math.max(memory.size(), disk.size());
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (file != null) {
+            file.close();
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.checker;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A reduced ordered binary decision diagram (ROBDD) over Boolean variables,
+ * which are identified by their levels 0..numVars-1 in the variable order.
+ * <p>
+ * Nodes are hash-consed, and nodes 0 and 1 are the terminals FALSE and TRUE.
+ * Once built, a BDD is only read by {@link #isSatisfiable(int, byte[])},
+ * hence it can be shared among threads.
+ */
+public class BDD {
+
+    public static final int FALSE = 0;
+    public static final int TRUE = 1;
+
+    public static final byte UNASSIGNED = -1;
+
+    public static final int DEFAULT_NODE_LIMIT = 2_000_000;
+
+    public static class NodeLimitExceededException extends RuntimeException {
+        public NodeLimitExceededException(int nodeLimit) {
+            super("BDD exceeds the node limit of " + nodeLimit);
+        }
+    }
+
+    private record NodeKey(int var, int low, int high) {}
+
+    @Getter
+    private final int numVars;
+    private final int nodeLimit;
+
+    private int[] vars;
+    private int[] lows;
+    private int[] highs;
+    private int size;
+
+    private final Map<NodeKey, Integer> unique = new HashMap<>();
+
+    public BDD(int numVars, int nodeLimit) {
+        checkArgument(numVars >= 0, "numVars must be non-negative");
+
+        this.numVars = numVars;
+        this.nodeLimit = nodeLimit;
+
+        int capacity = 1024;
+        vars = new int[capacity];
+        lows = new int[capacity];
+        highs = new int[capacity];
+
+        // terminals are below all variables
+        vars[FALSE] = vars[TRUE] = numVars;
+        size = 2;
+    }
+
+    /**
+     * Restores a BDD from its node arrays, see {@link CompiledFM}.
+     */
+    BDD(int numVars, int @NonNull [] vars, int @NonNull [] lows, int @NonNull [] highs) {
+        this.numVars = numVars;
+        this.nodeLimit = Integer.MAX_VALUE;
+        this.vars = vars;
+        this.lows = lows;
+        this.highs = highs;
+        this.size = vars.length;
+
+        for (int n = 2; n < size; n++) {
+            unique.put(new NodeKey(vars[n], lows[n], highs[n]), n);
+        }
+    }
+
+    /**
+     * @return the number of nodes, including the two terminals
+     */
+    public int size() {
+        return size;
+    }
+
+    public int var(int node) {
+        return vars[node];
+    }
+
+    public int low(int node) {
+        return lows[node];
+    }
+
+    public int high(int node) {
+        return highs[node];
+    }
+
+    /**
+     * @return the node (var ? high : low), which is reduced and shared
+     */
+    public int mk(int var, int low, int high) {
+        if (low == high) {
+            return low;
+        }
+
+        NodeKey key = new NodeKey(var, low, high);
+        Integer node = unique.get(key);
+        if (node != null) {
+            return node;
+        }
+
+        if (size >= nodeLimit) {
+            throw new NodeLimitExceededException(nodeLimit);
+        }
+        if (size == vars.length) {
+            int capacity = size * 2;
+            vars = Arrays.copyOf(vars, capacity);
+            lows = Arrays.copyOf(lows, capacity);
+            highs = Arrays.copyOf(highs, capacity);
+        }
+        vars[size] = var;
+        lows[size] = low;
+        highs[size] = high;
+        unique.put(key, size);
+        return size++;
+    }
+
+    /**
+     * @return the BDD of the literal (var = value)
+     */
+    public int literal(int var, boolean value) {
+        return value ? mk(var, FALSE, TRUE) : mk(var, TRUE, FALSE);
+    }
+
+    public int and(int a, int b) {
+        return apply(a, b, true, new HashMap<>());
+    }
+
+    public int or(int a, int b) {
+        return apply(a, b, false, new HashMap<>());
+    }
+
+    private int apply(int a, int b, boolean isAnd, Map<Long, Integer> memo) {
+        if (a == b) {
+            return a;
+        }
+        if (a <= TRUE || b <= TRUE) {
+            int terminal = a <= TRUE ? a : b;
+            int other = a <= TRUE ? b : a;
+            if (isAnd) {
+                return terminal == FALSE ? FALSE : other;
+            }
+            return terminal == TRUE ? TRUE : other;
+        }
+
+        long key = a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+        Integer result = memo.get(key);
+        if (result != null) {
+            return result;
+        }
+
+        int var = Math.min(vars[a], vars[b]);
+        int aLow = vars[a] == var ? lows[a] : a;
+        int aHigh = vars[a] == var ? highs[a] : a;
+        int bLow = vars[b] == var ? lows[b] : b;
+        int bHigh = vars[b] == var ? highs[b] : b;
+
+        int node = mk(var, apply(aLow, bLow, isAnd, memo), apply(aHigh, bHigh, isAnd, memo));
+        memo.put(key, node);
+        return node;
+    }
+
+    /**
+     * Checks whether the function rooted at the given node, conditioned on a partial assignment,
+     * has a satisfying assignment. Each node is visited at most once, so that the check
+     * is linear in the size of the BDD.
+     *
+     * @param root a node of this BDD
+     * @param assignment the value (0, 1, or {@link #UNASSIGNED}) of each variable
+     */
+    public boolean isSatisfiable(int root, byte @NonNull [] assignment) {
+        checkArgument(assignment.length >= numVars, "The assignment must cover all variables");
+
+        // nodes known to be unsatisfiable under the assignment
+        boolean[] dead = new boolean[size];
+        return isSatisfiable(root, assignment, dead);
+    }
+
+    private boolean isSatisfiable(int node, byte[] assignment, boolean[] dead) {
+        if (node <= TRUE) {
+            return node == TRUE;
+        }
+        if (dead[node]) {
+            return false;
+        }
+
+        byte value = assignment[vars[node]];
+        boolean satisfiable = switch (value) {
+            case 0 -> isSatisfiable(lows[node], assignment, dead);
+            case 1 -> isSatisfiable(highs[node], assignment, dead);
+            default -> isSatisfiable(lows[node], assignment, dead) || isSatisfiable(highs[node], assignment, dead);
+        };
+        if (!satisfiable) {
+            dead[node] = true;
+        }
+        return satisfiable;
+    }
+
+    int[] getVars() {
+        return Arrays.copyOf(vars, size);
+    }
+
+    int[] getLows() {
+        return Arrays.copyOf(lows, size);
+    }
+
+    int[] getHighs() {
+        return Arrays.copyOf(highs, size);
+    }
+}
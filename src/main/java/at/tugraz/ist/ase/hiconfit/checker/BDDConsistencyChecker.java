@@ -0,0 +1,195 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.checker;
+
+import at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Requirement;
+import at.tugraz.ist.ase.hiconfit.fm.FMCausalExplanationInstance;
+import at.tugraz.ist.ase.hiconfit.fm.FMCausalExplanationModel;
+import at.tugraz.ist.ase.hiconfit.fm.FMCausalExplanationTemplate;
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+
+import static at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator.*;
+
+/**
+ * A drop-in replacement of {@link ChocoConsistencyChecker} for {@link FMCausalExplanationModel}s,
+ * which answers consistency checks by conditioning a {@link CompiledFM} instead of solving.
+ * <p>
+ * Constraints of the feature model are mapped to their selectors, CONF and REQ constraints
+ * to unit literals, and NSCONF to a clause of negated SCONF literals.
+ * A check is then a satisfiability test of the conditioned BDD, which is linear in its size.
+ * Checks containing other constraints are delegated to the Choco solver.
+ */
+@Slf4j
+public class BDDConsistencyChecker extends ChocoConsistencyChecker {
+
+    // for evaluation
+    public static final String TIMER_BDD_CHECK = "Timer for BDD checks";
+    public static final String COUNTER_BDD_CHECKS = "The number of BDD checks";
+    public static final String COUNTER_BDD_FALLBACKS = "The number of checks delegated to Choco";
+
+    private static final String COPIED_SUFFIX = " [copied]";
+
+    private final CompiledFM compiled;
+
+    // constraint of the feature model -> level of its selector
+    private final Map<Constraint, Integer> selectors = new IdentityHashMap<>();
+    // CONF or REQ constraint -> {level, value}
+    private final Map<Constraint, int[]> literals = new IdentityHashMap<>();
+    // constraint -> {{level, value}, ...}
+    private final Map<Constraint, int[][]> clauses = new IdentityHashMap<>();
+
+    // reused by the checks, a checker is used by one thread at a time
+    private final byte[] assignment;
+    private final List<int[][]> activeClauses = new ArrayList<>();
+
+    public BDDConsistencyChecker(@NonNull FMCausalExplanationModel<?, ?, ?> diagModel, @NonNull CompiledFM compiled) {
+        super(diagModel);
+        this.compiled = compiled;
+        this.assignment = new byte[compiled.getBdd().getNumVars()];
+
+        // CF holds the root constraint and the FMKB constraints in the reversed order
+        List<Constraint> CF = new ArrayList<>(diagModel.getCF());
+        Collections.reverse(CF);
+        if (CF.size() != compiled.getConstraintNames().size()) {
+            log.warn("The compiled feature model does not match the diagnosis model, checks are delegated to Choco");
+            return;
+        }
+        for (int i = 0; i < CF.size(); i++) {
+            if (!CF.get(i).getConstraint().equals(compiled.getConstraintNames().get(i))) {
+                log.warn("Unexpected constraint {}, checks are delegated to Choco", CF.get(i));
+                selectors.clear();
+                return;
+            }
+            selectors.put(CF.get(i), compiled.getSelectorLevels()[i]);
+        }
+
+        diagModel.getCONF().forEach(this::addUnitLiteral);
+        diagModel.getREQ().forEach(this::addUnitLiteral);
+
+        if (diagModel.getSCONF() != null) {
+            setSCONF(diagModel.getSCONF(), diagModel.getNSCONF());
+        }
+    }
+
+    /**
+     * Replaces the SCONF whose NSCONF is mapped to a clause, e.g., when this checker
+     * is shared by the instances of a {@link FMCausalExplanationTemplate}.
+     */
+    public void setSCONF(@NonNull Requirement SCONF, @NonNull Collection<Constraint> NSCONF) {
+        clauses.clear();
+
+        // NSCONF = not (a1 and a2 and ...) = (not a1) or (not a2) or ...
+        int[][] clause = SCONF.getAssignments().stream()
+                .map(a -> toLiteral(a.getVariable(), a.getValue(), true))
+                .toArray(int[][]::new);
+        if (Arrays.stream(clause).noneMatch(Objects::isNull)) {
+            NSCONF.forEach(c -> clauses.put(c, clause));
+        }
+    }
+
+    public void setSCONF(@NonNull FMCausalExplanationInstance<?, ?, ?> instance) {
+        setSCONF(instance.getSCONF(), instance.getNSCONF());
+    }
+
+    /**
+     * Maps a constraint named "var=value" or "var=value [copied]" to its literal.
+     */
+    private void addUnitLiteral(Constraint constraint) {
+        String name = constraint.getConstraint();
+        if (name.endsWith(COPIED_SUFFIX)) {
+            name = name.substring(0, name.length() - COPIED_SUFFIX.length());
+        }
+        int index = name.lastIndexOf('=');
+        if (index > 0) {
+            int[] literal = toLiteral(name.substring(0, index), name.substring(index + 1), false);
+            if (literal != null) {
+                literals.put(constraint, literal);
+            }
+        }
+    }
+
+    private int[] toLiteral(String variable, String value, boolean negated) {
+        Integer level = compiled.getFeatureLevels().get(variable.trim());
+        if (level == null || !(value.equals("true") || value.equals("false"))) {
+            return null;
+        }
+        boolean isTrue = value.equals("true") != negated;
+        return new int[] {level, isTrue ? 1 : 0};
+    }
+
+    @Override
+    public boolean isConsistent(@NonNull Collection<Constraint> C) {
+        Arrays.fill(assignment, BDD.UNASSIGNED);
+        // constraints not in C are disabled
+        for (int level : compiled.getSelectorLevels()) {
+            assignment[level] = 0;
+        }
+
+        activeClauses.clear();
+        boolean conflict = false;
+        for (Constraint c : C) {
+            Integer selector = selectors.get(c);
+            int[] literal = literals.get(c);
+            int[][] clause = clauses.get(c);
+
+            if (selector != null) {
+                assignment[selector] = 1;
+            } else if (literal != null) {
+                if (assignment[literal[0]] != BDD.UNASSIGNED && assignment[literal[0]] != literal[1]) {
+                    conflict = true; // e.g., a=true and a=false
+                }
+                assignment[literal[0]] = (byte) literal[1];
+            } else if (clause != null) {
+                activeClauses.add(clause);
+            } else {
+                incrementCounter(COUNTER_BDD_FALLBACKS);
+                return super.isConsistent(C);
+            }
+        }
+
+        incrementCounter(COUNTER_BDD_CHECKS);
+        start(TIMER_BDD_CHECK);
+        boolean consistent = !conflict && isSatisfiable(assignment, activeClauses, 0);
+        activeClauses.clear();
+        stop(TIMER_BDD_CHECK);
+        return consistent;
+    }
+
+    /**
+     * Satisfies the clauses one after another by branching on their literals.
+     */
+    private boolean isSatisfiable(byte[] assignment, List<int[][]> clauses, int index) {
+        if (index == clauses.size()) {
+            return compiled.getBdd().isSatisfiable(compiled.getRoot(), assignment);
+        }
+
+        int[][] clause = clauses.get(index);
+        for (int[] literal : clause) {
+            if (assignment[literal[0]] == literal[1]) {
+                return isSatisfiable(assignment, clauses, index + 1);
+            }
+        }
+        for (int[] literal : clause) {
+            if (assignment[literal[0]] == BDD.UNASSIGNED) {
+                assignment[literal[0]] = (byte) literal[1];
+                boolean satisfiable = isSatisfiable(assignment, clauses, index + 1);
+                assignment[literal[0]] = BDD.UNASSIGNED;
+                if (satisfiable) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
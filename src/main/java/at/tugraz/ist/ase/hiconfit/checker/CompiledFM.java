@@ -0,0 +1,182 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.checker;
+
+import at.tugraz.ist.ase.hiconfit.fm.core.AbstractRelationship;
+import at.tugraz.ist.ase.hiconfit.fm.core.CTConstraint;
+import at.tugraz.ist.ase.hiconfit.fm.core.Feature;
+import at.tugraz.ist.ase.hiconfit.fm.core.FeatureModel;
+import com.google.common.hash.Hashing;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * A feature model compiled into a single {@link BDD} of the conjunction of (s_i -> c_i),
+ * where c_i is the i-th constraint of the FMKB (the root constraint first) and s_i is its selector variable.
+ * Assigning all selectors decides which constraints take part in a consistency check.
+ * <p>
+ * Compiled feature models are cached on the disk next to the feature model file,
+ * and a cached one is only used if the SHA-256 hash of the feature model file is unchanged.
+ */
+@Slf4j
+@Getter
+public class CompiledFM {
+
+    public static final String FILE_EXTENSION = ".bdd";
+    private static final String FORMAT = "CXPLAIN-BDD-2";
+
+    private final String hash;
+    private final List<String> constraintNames;
+    private final int[] selectorLevels;
+    private final Map<String, Integer> featureLevels;
+    private final BDD bdd;
+    private final int root;
+
+    private double compilationTime; // seconds needed to compile, without hashing, also if loaded from the cache
+    private double loadTime; // seconds needed by loadOrCompile, i.e., to compile or to load from the cache
+    private boolean fromCache;
+
+    CompiledFM(@NonNull String hash, @NonNull List<String> constraintNames, int @NonNull [] selectorLevels,
+               @NonNull Map<String, Integer> featureLevels, @NonNull BDD bdd, int root) {
+        this.hash = hash;
+        this.constraintNames = constraintNames;
+        this.selectorLevels = selectorLevels;
+        this.featureLevels = featureLevels;
+        this.bdd = bdd;
+        this.root = root;
+    }
+
+    /**
+     * Loads the compiled feature model from the cache, or compiles it and stores it into the cache.
+     *
+     * @param fmFile the feature model file
+     * @param fm the feature model read from fmFile
+     * @param nodeLimit the maximal number of BDD nodes
+     * @return the compiled feature model, or null if it exceeds the node limit or cannot be compiled
+     */
+    public static CompiledFM loadOrCompile(@NonNull File fmFile,
+                                           @NonNull FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> fm,
+                                           int nodeLimit) throws IOException {
+        long start = System.nanoTime();
+        String hash = hash(fmFile);
+        File cacheFile = new File(fmFile.getPath() + FILE_EXTENSION);
+
+        CompiledFM compiled = load(cacheFile, hash);
+        if (compiled != null) {
+            compiled.fromCache = true;
+        } else {
+            long compilationStart = System.nanoTime();
+            try {
+                compiled = new FMCompiler(fm, nodeLimit).compile(hash);
+            } catch (RuntimeException e) {
+                // node limit, expansion limit, or a constraint the oracle cannot handle
+                log.warn("Cannot compile {}: {}", fmFile.getName(), e.getMessage());
+                return null;
+            }
+            // stored in the cache, so that later runs report the cost of the first compilation
+            compiled.compilationTime = (System.nanoTime() - compilationStart) / 1_000_000_000.0;
+            compiled.save(cacheFile);
+        }
+        compiled.loadTime = (System.nanoTime() - start) / 1_000_000_000.0;
+        return compiled;
+    }
+
+    public static String hash(@NonNull File file) throws IOException {
+        return Hashing.sha256().hashBytes(Files.readAllBytes(file.toPath())).toString();
+    }
+
+    public void save(@NonNull File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeUTF(FORMAT);
+            out.writeUTF(hash);
+            out.writeDouble(compilationTime);
+
+            out.writeInt(constraintNames.size());
+            for (int i = 0; i < constraintNames.size(); i++) {
+                out.writeUTF(constraintNames.get(i));
+                out.writeInt(selectorLevels[i]);
+            }
+
+            out.writeInt(featureLevels.size());
+            for (Map.Entry<String, Integer> entry : featureLevels.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+
+            int[] vars = bdd.getVars();
+            int[] lows = bdd.getLows();
+            int[] highs = bdd.getHighs();
+            out.writeInt(bdd.getNumVars());
+            out.writeInt(vars.length);
+            for (int n = 0; n < vars.length; n++) {
+                out.writeInt(vars[n]);
+                out.writeInt(lows[n]);
+                out.writeInt(highs[n]);
+            }
+            out.writeInt(root);
+        }
+    }
+
+    /**
+     * @return the compiled feature model stored in the file, or null if the file
+     * does not exist, is unreadable, or belongs to another version of the feature model
+     */
+    public static CompiledFM load(@NonNull File file, @NonNull String expectedHash) {
+        if (!file.exists()) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (!FORMAT.equals(in.readUTF()) || !expectedHash.equals(in.readUTF())) {
+                log.info("{} is outdated and will be recompiled", file.getName());
+                return null;
+            }
+            double compilationTime = in.readDouble();
+
+            int numConstraints = in.readInt();
+            List<String> constraintNames = new ArrayList<>(numConstraints);
+            int[] selectorLevels = new int[numConstraints];
+            for (int i = 0; i < numConstraints; i++) {
+                constraintNames.add(in.readUTF());
+                selectorLevels[i] = in.readInt();
+            }
+
+            int numFeatures = in.readInt();
+            Map<String, Integer> featureLevels = new LinkedHashMap<>();
+            for (int i = 0; i < numFeatures; i++) {
+                featureLevels.put(in.readUTF(), in.readInt());
+            }
+
+            int numVars = in.readInt();
+            int size = in.readInt();
+            int[] vars = new int[size];
+            int[] lows = new int[size];
+            int[] highs = new int[size];
+            for (int n = 0; n < size; n++) {
+                vars[n] = in.readInt();
+                lows[n] = in.readInt();
+                highs[n] = in.readInt();
+            }
+            int root = in.readInt();
+
+            CompiledFM compiled = new CompiledFM(expectedHash, constraintNames, selectorLevels, featureLevels,
+                    new BDD(numVars, vars, lows, highs), root);
+            compiled.compilationTime = compilationTime;
+            return compiled;
+        } catch (IOException e) {
+            log.warn("Cannot read {}, it will be recompiled", file.getName(), e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.checker;
+
+import at.tugraz.ist.ase.hiconfit.cdrmodel.AbstractCDRModel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.search.limits.FailCounter;
+import org.chocosolver.solver.search.strategy.strategy.AbstractStrategy;
+import org.chocosolver.solver.variables.IntVar;
+
+import static at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator.incrementCounter;
+
+/**
+ * A consistency checker whose searches run with the limits and the search strategy of {@link SolverSettings}.
+ * <p>
+ * A search stopped by a limit is undecided, and is answered as consistent: for CXPlain, a wrong "consistent"
+ * only keeps more constraints in the explanation, which stays sufficient but may be not minimal,
+ * whereas a wrong "inconsistent" would drop constraints the explanation needs.
+ * Such checks are counted separately, so that the limits can be tuned on the tail of hard checks.
+ */
+@Slf4j
+public class ConfigurableConsistencyChecker extends PropagatingConsistencyChecker {
+
+    // for evaluation
+    public static final String COUNTER_LIMIT_HITS = "The number of checks stopped by a solver limit";
+
+    private final SolverSettings settings;
+    private final AbstractStrategy<IntVar> strategy;
+
+    @Getter
+    private long limitHits; // of this checker, for concurrent use of several checkers
+
+    /**
+     * @param propagationFirst true - checks are decided by propagation if possible, see {@link PropagatingConsistencyChecker}
+     */
+    public ConfigurableConsistencyChecker(@NonNull AbstractCDRModel diagModel, @NonNull SolverSettings settings,
+                                          boolean propagationFirst) {
+        super(diagModel, propagationFirst);
+        this.settings = settings;
+        this.strategy = settings.createStrategy(chocoModel);
+    }
+
+    @Override
+    protected boolean search(Solver solver) {
+        solver.reset();
+        solver.removeAllStopCriteria();
+        if (settings.getTimeLimit() > 0) {
+            solver.limitTime(settings.getTimeLimit());
+        }
+        if (settings.getNodeLimit() > 0) {
+            solver.limitNode(settings.getNodeLimit());
+        }
+        if (settings.getFailLimit() > 0) {
+            solver.limitFail(settings.getFailLimit());
+        }
+        if (strategy != null) {
+            solver.setSearch(strategy);
+        }
+        // the restart policies are chained by each set, hence the one of the previous check is removed first
+        solver.clearRestarter();
+        switch (settings.getRestarts().toLowerCase()) {
+            case "luby" -> solver.setLubyRestart(settings.getRestartBase(),
+                    new FailCounter(chocoModel, settings.getRestartBase()), Integer.MAX_VALUE);
+            case "geometric" -> solver.setGeometricalRestart(settings.getRestartBase(), settings.getRestartGrow(),
+                    new FailCounter(chocoModel, settings.getRestartBase()), Integer.MAX_VALUE);
+            default -> { }
+        }
+
+        boolean consistent = solver.solve();
+        if (!consistent && solver.isStopCriterionMet()) {
+            limitHits++;
+            incrementCounter(COUNTER_LIMIT_HITS);
+            log.debug("A check hit a solver limit [settings={}]", settings);
+            return true;
+        }
+        return consistent;
+    }
+}
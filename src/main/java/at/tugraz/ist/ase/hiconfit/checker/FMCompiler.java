@@ -0,0 +1,221 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.checker;
+
+import at.tugraz.ist.ase.hiconfit.fm.core.AbstractRelationship;
+import at.tugraz.ist.ase.hiconfit.fm.core.CTConstraint;
+import at.tugraz.ist.ase.hiconfit.fm.core.Feature;
+import at.tugraz.ist.ase.hiconfit.fm.core.FeatureModel;
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import at.tugraz.ist.ase.hiconfit.kb.core.IBoolVarKB;
+import at.tugraz.ist.ase.hiconfit.kb.fm.FMKB;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.solver.Cause;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.BoolVar;
+import org.chocosolver.solver.variables.Variable;
+import org.chocosolver.solver.variables.view.IView;
+import org.chocosolver.util.ESat;
+
+import java.util.*;
+
+/**
+ * Compiles the constraints of a feature model into a {@link CompiledFM}.
+ * <p>
+ * Each constraint is compiled by Shannon expansion over the features in its scope,
+ * using its own Choco model as an oracle: a branch ends with FALSE if propagation fails,
+ * and with TRUE if the constraint is entailed. Branches reaching a complete assignment
+ * of the scope are decided by the solver.
+ * <p>
+ * The variable order places the selector of each constraint before the features
+ * that first appear in it, so that related features stay close to each other.
+ */
+@Slf4j
+class FMCompiler {
+
+    public static final int MAX_EXPANSIONS = 100_000; // per constraint
+
+    static class CompilationException extends RuntimeException {
+        CompilationException(String message) {
+            super(message);
+        }
+    }
+
+    private final FMKB<Feature, AbstractRelationship<Feature>, CTConstraint> fmKB;
+    private final Model model;
+    private final int nodeLimit;
+
+    private BDD bdd;
+    private int expansions;
+
+    FMCompiler(@NonNull FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> fm, int nodeLimit) {
+        // a private model, which is not shared with any diagnosis model
+        this.fmKB = new FMKB<>(fm, false);
+        this.model = fmKB.getModelKB();
+        this.nodeLimit = nodeLimit;
+
+        model.unpost(model.getCstrs());
+    }
+
+    CompiledFM compile(@NonNull String hash) {
+        List<Constraint> constraints = new ArrayList<>();
+        constraints.add(fmKB.getRootConstraint());
+        constraints.addAll(fmKB.getConstraintList());
+
+        // feature variables only, without views
+        BoolVar[] features = Arrays.stream(((IBoolVarKB) fmKB).getBoolVars())
+                .filter(v -> (v.getTypeAndKind() & Variable.TYPE) == Variable.VAR)
+                .toArray(BoolVar[]::new);
+        Set<String> featureNames = new HashSet<>();
+        Arrays.stream(features).forEach(f -> featureNames.add(f.getName()));
+
+        // variable order
+        List<BoolVar[]> scopes = new ArrayList<>(constraints.size());
+        int[] selectorLevels = new int[constraints.size()];
+        Map<String, Integer> featureLevels = new LinkedHashMap<>();
+        int numVars = 0;
+        for (int i = 0; i < constraints.size(); i++) {
+            selectorLevels[i] = numVars++;
+
+            BoolVar[] scope = scopeOf(constraints.get(i), featureNames);
+            for (BoolVar var : scope) {
+                if (!featureLevels.containsKey(var.getName())) {
+                    featureLevels.put(var.getName(), numVars++);
+                }
+            }
+            scopes.add(scope);
+        }
+        for (BoolVar feature : features) {
+            if (!featureLevels.containsKey(feature.getName())) {
+                featureLevels.put(feature.getName(), numVars++);
+            }
+        }
+
+        bdd = new BDD(numVars, nodeLimit);
+        int root = BDD.TRUE;
+        List<String> constraintNames = new ArrayList<>(constraints.size());
+        for (int i = 0; i < constraints.size(); i++) {
+            Constraint constraint = constraints.get(i);
+            constraintNames.add(constraint.getConstraint());
+
+            BoolVar[] scope = scopes.get(i);
+            Arrays.sort(scope, Comparator.comparing(v -> featureLevels.get(v.getName())));
+            int[] levels = Arrays.stream(scope).mapToInt(v -> featureLevels.get(v.getName())).toArray();
+
+            List<org.chocosolver.solver.constraints.Constraint> chocoConstraints = constraint.getChocoConstraints();
+            chocoConstraints.forEach(model::post);
+            expansions = 0;
+            int c = expand(chocoConstraints, scope, levels, new int[scope.length], 0);
+            chocoConstraints.forEach(model::unpost);
+
+            // s_i -> c_i
+            root = bdd.and(root, bdd.or(bdd.literal(selectorLevels[i], false), c));
+        }
+        log.debug("Compiled {} constraints over {} features into {} BDD nodes",
+                constraints.size(), featureLevels.size(), bdd.size());
+
+        return new CompiledFM(hash, constraintNames, selectorLevels, featureLevels, bdd, root);
+    }
+
+    /**
+     * @return the features in the scope of the constraint, where a view (e.g., not(x)) stands for its feature
+     */
+    private static BoolVar[] scopeOf(Constraint constraint, Set<String> featureNames) {
+        Map<String, BoolVar> scope = new LinkedHashMap<>();
+        for (org.chocosolver.solver.constraints.Constraint c : constraint.getChocoConstraints()) {
+            for (Propagator<?> propagator : c.getPropagators()) {
+                for (Variable var : propagator.getVars()) {
+                    Variable feature = underlying(var);
+                    if (featureNames.contains(feature.getName()) && feature instanceof BoolVar boolVar) {
+                        scope.putIfAbsent(feature.getName(), boolVar);
+                    }
+                }
+            }
+        }
+        return scope.values().toArray(BoolVar[]::new);
+    }
+
+    private static Variable underlying(Variable var) {
+        while (var instanceof IView view) {
+            var = view.getVariable();
+        }
+        return var;
+    }
+
+    private int expand(List<org.chocosolver.solver.constraints.Constraint> chocoConstraints,
+                       BoolVar[] scope, int[] levels, int[] values, int depth) {
+        if (++expansions > MAX_EXPANSIONS) {
+            throw new CompilationException("A constraint needs more than " + MAX_EXPANSIONS + " expansions");
+        }
+
+        ESat status = evaluate(chocoConstraints, scope, values, depth);
+        if (status == ESat.FALSE) {
+            return BDD.FALSE;
+        }
+        if (status == ESat.TRUE) {
+            return BDD.TRUE;
+        }
+        if (depth == scope.length) {
+            return isSatisfiable(scope, values) ? BDD.TRUE : BDD.FALSE;
+        }
+
+        values[depth] = 0;
+        int low = expand(chocoConstraints, scope, levels, values, depth + 1);
+        values[depth] = 1;
+        int high = expand(chocoConstraints, scope, levels, values, depth + 1);
+        return bdd.mk(levels[depth], low, high);
+    }
+
+    /**
+     * Propagates the first #depth values of the scope.
+     * @return FALSE if propagation fails, TRUE if the posted constraints are entailed, otherwise UNDEFINED
+     */
+    private ESat evaluate(List<org.chocosolver.solver.constraints.Constraint> chocoConstraints,
+                          BoolVar[] scope, int[] values, int depth) {
+        Solver solver = model.getSolver();
+        IEnvironment environment = model.getEnvironment();
+
+        environment.worldPush();
+        try {
+            for (int j = 0; j < depth; j++) {
+                scope[j].instantiateTo(values[j], Cause.Null);
+            }
+            solver.propagate();
+
+            boolean entailed = chocoConstraints.stream().allMatch(c -> c.isSatisfied() == ESat.TRUE);
+            return entailed ? ESat.TRUE : ESat.UNDEFINED;
+        } catch (ContradictionException e) {
+            solver.getEngine().flush();
+            return ESat.FALSE;
+        } finally {
+            environment.worldPop();
+        }
+    }
+
+    private boolean isSatisfiable(BoolVar[] scope, int[] values) {
+        Solver solver = model.getSolver();
+
+        List<org.chocosolver.solver.constraints.Constraint> assignment = new ArrayList<>(scope.length);
+        for (int j = 0; j < scope.length; j++) {
+            assignment.add(model.arithm(scope[j], "=", values[j]));
+        }
+        assignment.forEach(model::post);
+        try {
+            return solver.solve();
+        } finally {
+            solver.reset();
+            assignment.forEach(model::unpost);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.checker;
+
+import at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.cdrmodel.AbstractCDRModel;
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import lombok.NonNull;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.Variable;
+import org.chocosolver.util.ESat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator.*;
+
+/**
+ * A two-phase {@link ChocoConsistencyChecker} for the FM and KB models:
+ * 1. the constraints are propagated to a fix point, and the check is decided if a domain
+ * is wiped out (inconsistent) or all variables are instantiated and all constraints are satisfied (consistent);
+ * 2. otherwise, the Choco solver searches for a solution.
+ * <p>
+ * Propagation runs in a backtrackable world, which is popped before the search,
+ * so that the search starts from the same state as in {@link ChocoConsistencyChecker}.
+ */
+public class PropagatingConsistencyChecker extends ChocoConsistencyChecker {
+
+    // for evaluation
+    public static final String COUNTER_PROPAGATION_CONFLICTS = "The number of checks decided inconsistent by propagation";
+    public static final String COUNTER_PROPAGATION_SOLUTIONS = "The number of checks decided consistent by propagation";
+    public static final String COUNTER_SEARCH_CHECKS = "The number of checks decided by search";
+
+    protected final Model chocoModel;
+    private final boolean propagationFirst;
+
+    public PropagatingConsistencyChecker(@NonNull AbstractCDRModel diagModel) {
+        this(diagModel, true);
+    }
+
+    /**
+     * @param propagationFirst false - every check is decided by search, e.g., for subclasses only changing the search
+     */
+    protected PropagatingConsistencyChecker(@NonNull AbstractCDRModel diagModel, boolean propagationFirst) {
+        super(diagModel);
+        this.chocoModel = diagModel.getModel();
+        this.propagationFirst = propagationFirst;
+    }
+
+    @Override
+    public boolean isConsistent(@NonNull Collection<Constraint> C) {
+        Solver solver = chocoModel.getSolver();
+        List<org.chocosolver.solver.constraints.Constraint> posted = new ArrayList<>();
+        C.forEach(c -> posted.addAll(c.getChocoConstraints()));
+
+        start(TIMER_SOLVER);
+        try {
+            posted.forEach(chocoModel::post);
+
+            // 1. propagation
+            Boolean decided = propagationFirst ? propagate(solver) : null;
+            if (decided != null) {
+                incrementCounter(decided ? COUNTER_PROPAGATION_SOLUTIONS : COUNTER_PROPAGATION_CONFLICTS);
+                return decided;
+            }
+
+            // 2. search
+            incrementCounter(COUNTER_SEARCH_CHECKS);
+            incrementCounter(COUNTER_CHOCO_SOLVER_CALLS);
+            return search(solver);
+        } finally {
+            stop(TIMER_SOLVER);
+            solver.reset();
+            posted.forEach(chocoModel::unpost);
+        }
+    }
+
+    /**
+     * @return false on a contradiction, true if propagation found a solution, or null if a search is needed
+     */
+    private Boolean propagate(Solver solver) {
+        chocoModel.getEnvironment().worldPush();
+        try {
+            solver.propagate();
+
+            if (Arrays.stream(chocoModel.getVars()).allMatch(Variable::isInstantiated)
+                    && Arrays.stream(chocoModel.getCstrs()).allMatch(c -> c.isSatisfied() == ESat.TRUE)) {
+                return true;
+            }
+            return null;
+        } catch (ContradictionException e) {
+            solver.getEngine().flush();
+            return false;
+        } finally {
+            chocoModel.getEnvironment().worldPop();
+        }
+    }
+
+    /**
+     * Searches for a solution of the posted constraints.
+     */
+    protected boolean search(Solver solver) {
+        solver.reset();
+        return solver.solve();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.checker;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.ToString;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.search.strategy.Search;
+import org.chocosolver.solver.search.strategy.strategy.AbstractStrategy;
+import org.chocosolver.solver.variables.IntVar;
+
+/**
+ * Limits and search strategy of the Choco solver for each consistency check,
+ * read from a table of the TOML configuration, e.g.:
+ * <pre>
+ * [solverSettings]
+ * timeLimit = 1000
+ * varHeuristic = "domwdeg"
+ * restarts = "luby"
+ * </pre>
+ * Heuristics:
+ * + varHeuristic - default, input, dom (smallest domain first), domwdeg, activity, or random;
+ * + valHeuristic - min or max, for input and dom only;
+ * + restarts - none, luby or geometric, with restartBase fails and restartGrow for geometric.
+ * Limits of 0 are no limits.
+ */
+@Getter
+@Setter
+@ToString
+public class SolverSettings {
+
+    public static final String DEFAULT = "default";
+
+    @JsonProperty("timeLimit")
+    private long timeLimit; // ms
+
+    @JsonProperty("nodeLimit")
+    private long nodeLimit;
+
+    @JsonProperty("failLimit")
+    private long failLimit;
+
+    @JsonProperty("varHeuristic")
+    private String varHeuristic = DEFAULT;
+
+    @JsonProperty("valHeuristic")
+    private String valHeuristic = "min";
+
+    @JsonProperty("restarts")
+    private String restarts = "none";
+
+    @JsonProperty("restartBase")
+    private int restartBase = 100;
+
+    @JsonProperty("restartGrow")
+    private double restartGrow = 1.5;
+
+    @JsonProperty("seed")
+    private long seed = 0;
+
+    /**
+     * @return true if checks run without limits, with the default search of Choco
+     */
+    @JsonIgnore
+    public boolean isDefault() {
+        return timeLimit <= 0 && nodeLimit <= 0 && failLimit <= 0
+                && DEFAULT.equalsIgnoreCase(varHeuristic) && "none".equalsIgnoreCase(restarts);
+    }
+
+    @JsonIgnore
+    public boolean hasLimits() {
+        return timeLimit > 0 || nodeLimit > 0 || failLimit > 0;
+    }
+
+    /**
+     * @return the search strategy over the decision variables of the model, or null for the default search
+     */
+    public AbstractStrategy<IntVar> createStrategy(@NonNull Model model) {
+        IntVar[] vars = model.retrieveIntVars(true);
+        boolean max = "max".equalsIgnoreCase(valHeuristic);
+        return switch (varHeuristic.toLowerCase()) {
+            case DEFAULT -> null;
+            case "input" -> max ? Search.inputOrderUBSearch(vars) : Search.inputOrderLBSearch(vars);
+            case "dom" -> max ? Search.minDomUBSearch(vars) : Search.minDomLBSearch(vars);
+            case "domwdeg" -> Search.domOverWDegSearch(vars);
+            case "activity" -> Search.activityBasedSearch(vars);
+            case "random" -> Search.randomSearch(vars, seed);
+            default -> throw new IllegalArgumentException("Unknown variable heuristic " + varHeuristic);
+        };
+    }
+}
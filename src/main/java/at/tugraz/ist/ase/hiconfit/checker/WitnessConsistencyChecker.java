@@ -0,0 +1,237 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.checker;
+
+import at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Assignment;
+import at.tugraz.ist.ase.hiconfit.fm.FMCausalExplanationInstance;
+import at.tugraz.ist.ase.hiconfit.fm.FMCausalExplanationTemplate;
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import at.tugraz.ist.ase.hiconfit.kb.core.IBoolVarKB;
+import lombok.NonNull;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.variables.BoolVar;
+import org.chocosolver.solver.variables.Variable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator.*;
+
+/**
+ * A {@link ChocoConsistencyChecker} for the single-assignment SCONFs of one configuration,
+ * i.e., the instances of one {@link FMCausalExplanationTemplate} with SCONF = {f=v}.
+ * <p>
+ * Checkers of the same template, e.g., one per thread, share a {@link SharedResults}, and
+ * answer checks without the solver as follows:
+ * 1. a check of X ∪ NSCONF, where X holds f=v (in CONF or REQ), is inconsistent;
+ * 2. a check of X ∪ NSCONF is consistent if a witness, i.e., a solution of a previous check
+ * of a superset of X, assigns f to the other value - the witness satisfies X and NSCONF;
+ * 3. a check without NSCONF, e.g., consistent(CONF ∪ REQ ∪ CF) of CXPlain, is answered
+ * by the result of the same check for another SCONF.
+ * Every solution found by the solver becomes a witness for the other SCONFs.
+ * <p>
+ * Constraints of CONF, REQ and CF are identified by their positions in the template,
+ * which are the same for the templates of the same (feature model, configuration, requirement).
+ */
+public class WitnessConsistencyChecker extends ChocoConsistencyChecker {
+
+    // for evaluation
+    public static final String COUNTER_WITNESS_HITS = "The number of checks answered by a witness";
+    public static final String COUNTER_TRIVIAL_CONFLICTS = "The number of checks answered by a unit conflict";
+    public static final String COUNTER_SHARED_CHECKS = "The number of checks answered by a shared result";
+
+    public static final int MAX_WITNESSES = 256;
+
+    /**
+     * A solution of the feature variables, and the constraints of the check that found it
+     */
+    private record Witness(BitSet constraints, int[] values) {}
+
+    /**
+     * Witnesses and results of checks without NSCONF, shared by the checkers of one template
+     */
+    public static class SharedResults {
+        private final Deque<Witness> witnesses = new ArrayDeque<>();
+        private final Map<BitSet, Boolean> results = new ConcurrentHashMap<>();
+
+        private synchronized void addWitness(Witness witness) {
+            witnesses.addFirst(witness);
+            if (witnesses.size() > MAX_WITNESSES) {
+                witnesses.removeLast();
+            }
+        }
+
+        /**
+         * @return true if a witness satisfies X and assigns the variable to a value other than the given one
+         */
+        private synchronized boolean hasWitness(BitSet X, int variable, int value) {
+            for (Witness witness : witnesses) {
+                if (witness.values()[variable] != value && isSubset(X, witness.constraints())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public synchronized int getNumWitnesses() {
+            return witnesses.size();
+        }
+    }
+
+    private final Model model;
+    private final BoolVar[] vars;
+    private final Map<String, Integer> varIndexes = new HashMap<>();
+
+    private final SharedResults shared;
+
+    // constraint of CONF, REQ or CF -> position in the template
+    private final Map<Constraint, Integer> indexes = new IdentityHashMap<>();
+    // position of a CONF or REQ constraint -> {variable, value}
+    private final Map<Integer, int[]> units = new HashMap<>();
+
+    // NSCONF of the current instance, and the literal {variable, value} of its SCONF
+    private Set<Constraint> NSCONF = Collections.emptySet();
+    private int[] sconfLiteral;
+
+    public WitnessConsistencyChecker(@NonNull FMCausalExplanationTemplate<?, ?, ?> template, @NonNull SharedResults shared) {
+        super(template.getModel());
+        this.shared = shared;
+
+        IBoolVarKB kb = (IBoolVarKB) template.getModel().getFeatureModelKB();
+        this.model = template.getModel().getFeatureModelKB().getModelKB();
+        // feature variables only, without views
+        this.vars = Arrays.stream(kb.getBoolVars())
+                .filter(v -> (v.getTypeAndKind() & Variable.TYPE) == Variable.VAR)
+                .toArray(BoolVar[]::new);
+        for (int i = 0; i < vars.length; i++) {
+            varIndexes.put(vars[i].getName(), i);
+        }
+
+        int index = 0;
+        for (Set<Constraint> set : List.of(template.getCONF(), template.getREQ(), template.getCF())) {
+            for (Constraint c : set) {
+                indexes.put(c, index);
+                int[] literal = toUnitLiteral(c);
+                if (literal != null && set != template.getCF()) {
+                    units.put(index, literal);
+                }
+                index++;
+            }
+        }
+    }
+
+    /**
+     * Sets the instance whose NSCONF occurs in the next checks.
+     * The shortcuts only apply to SCONFs of a single assignment, other SCONFs are checked by the solver.
+     */
+    public void setSCONF(@NonNull FMCausalExplanationInstance<?, ?, ?> instance) {
+        NSCONF = Collections.newSetFromMap(new IdentityHashMap<>());
+        NSCONF.addAll(instance.getNSCONF());
+
+        List<Assignment> assignments = instance.getSCONF().getAssignments();
+        sconfLiteral = assignments.size() == 1 ? toLiteral(assignments.get(0).getVariable(), assignments.get(0).getValue()) : null;
+    }
+
+    @Override
+    public boolean isConsistent(@NonNull Collection<Constraint> C) {
+        BitSet X = new BitSet(indexes.size());
+        boolean withNSCONF = false;
+        for (Constraint c : C) {
+            Integer index = indexes.get(c);
+            if (index != null) {
+                X.set(index);
+            } else if (NSCONF.contains(c)) {
+                withNSCONF = true;
+            } else {
+                return super.isConsistent(C);
+            }
+        }
+
+        if (withNSCONF) {
+            if (sconfLiteral == null) {
+                return solve(C, X);
+            }
+            // 1. X holds f=v, which contradicts NSCONF
+            for (int i = X.nextSetBit(0); i >= 0; i = X.nextSetBit(i + 1)) {
+                if (Arrays.equals(units.get(i), sconfLiteral)) {
+                    incrementCounter(COUNTER_TRIVIAL_CONFLICTS);
+                    return false;
+                }
+            }
+            // 2. a witness satisfies X and NSCONF
+            if (shared.hasWitness(X, sconfLiteral[0], sconfLiteral[1])) {
+                incrementCounter(COUNTER_WITNESS_HITS);
+                return true;
+            }
+            return solve(C, X);
+        }
+
+        // 3. the same check for another SCONF
+        Boolean result = shared.results.get(X);
+        if (result != null) {
+            incrementCounter(COUNTER_SHARED_CHECKS);
+            return result;
+        }
+        boolean consistent = solve(C, X);
+        shared.results.put(X, consistent);
+        return consistent;
+    }
+
+    /**
+     * Solves C with the Choco solver, and shares the solution as a witness of X.
+     */
+    private boolean solve(Collection<Constraint> C, BitSet X) {
+        Solver solver = model.getSolver();
+        List<org.chocosolver.solver.constraints.Constraint> posted = new ArrayList<>();
+        C.forEach(c -> posted.addAll(c.getChocoConstraints()));
+
+        incrementCounter(COUNTER_CHOCO_SOLVER_CALLS);
+        start(TIMER_SOLVER);
+        try {
+            posted.forEach(model::post);
+            boolean consistent = solver.solve();
+            if (consistent) {
+                shared.addWitness(new Witness(X, Arrays.stream(vars).mapToInt(BoolVar::getValue).toArray()));
+            }
+            return consistent;
+        } finally {
+            stop(TIMER_SOLVER);
+            solver.reset();
+            posted.forEach(model::unpost);
+        }
+    }
+
+    /**
+     * @return the literal of a constraint named "var=value" or "var=value [copied]", or null
+     */
+    private int[] toUnitLiteral(Constraint constraint) {
+        String name = constraint.getConstraint();
+        if (name.endsWith(" [copied]")) {
+            name = name.substring(0, name.length() - " [copied]".length());
+        }
+        int index = name.lastIndexOf('=');
+        return index > 0 ? toLiteral(name.substring(0, index), name.substring(index + 1)) : null;
+    }
+
+    private int[] toLiteral(String variable, String value) {
+        Integer index = varIndexes.get(variable.trim());
+        if (index == null || !(value.equals("true") || value.equals("false"))) {
+            return null;
+        }
+        return new int[] {index, value.equals("true") ? 1 : 0};
+    }
+
+    private static boolean isSubset(BitSet X, BitSet Y) {
+        BitSet rest = (BitSet) X.clone();
+        rest.andNot(Y);
+        return rest.isEmpty();
+    }
+}
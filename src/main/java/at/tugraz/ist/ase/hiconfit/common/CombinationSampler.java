@@ -0,0 +1,159 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.common;
+
+import com.google.common.primitives.Ints;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.*;
+import java.util.random.RandomGenerator;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Samples distinct k-subsets of {0, ..., n-1} uniformly at random
+ * without materializing the combination space.
+ * <p>
+ * Distinct ranks in [0, C(n, k)) are drawn with Floyd's algorithm and unranked
+ * into k-subsets using the combinatorial number system, so that sampling m subsets
+ * takes O(m * k * log n) time and O(m + n * k) memory.
+ * If C(n, k) does not fit into a long, k-subsets are drawn directly
+ * and duplicates are rejected.
+ */
+public class CombinationSampler {
+
+    @Getter
+    private final int n;
+    @Getter
+    private final int k;
+
+    // binomials[i][j] = C(i, j), saturated at Long.MAX_VALUE
+    private final long[][] binomials;
+
+    public CombinationSampler(int n, int k) {
+        checkArgument(n >= 0 && k >= 0 && k <= n, "Requires 0 <= k <= n");
+
+        this.n = n;
+        this.k = k;
+        this.binomials = createBinomials(n, k);
+    }
+
+    private static long[][] createBinomials(int n, int k) {
+        long[][] binomials = new long[n + 1][k + 1];
+        for (int i = 0; i <= n; i++) {
+            binomials[i][0] = 1;
+            for (int j = 1; j <= Math.min(i, k); j++) {
+                long sum = binomials[i - 1][j - 1] + binomials[i - 1][j];
+                binomials[i][j] = sum < 0 ? Long.MAX_VALUE : sum; // saturate on overflow
+            }
+        }
+        return binomials;
+    }
+
+    /**
+     * @return true if the number of k-subsets fits into a long, i.e., subsets can be ranked
+     */
+    public boolean isRankable() {
+        return binomials[n][k] < Long.MAX_VALUE;
+    }
+
+    /**
+     * @return the number of k-subsets, or Long.MAX_VALUE if it does not fit into a long
+     */
+    public long getNumCombinations() {
+        return binomials[n][k];
+    }
+
+    /**
+     * Converts a rank in the combinatorial number system into its k-subset.
+     * @param rank a rank in [0, C(n, k))
+     * @return the indexes of the k-subset in ascending order
+     */
+    public int[] unrank(long rank) {
+        checkArgument(isRankable(), "C(%s, %s) is too large to be ranked", n, k);
+        checkArgument(rank >= 0 && rank < binomials[n][k], "Rank out of range: %s", rank);
+
+        int[] subset = new int[k];
+        int upper = n;
+        for (int i = k; i >= 1; i--) {
+            // the largest x < upper with C(x, i) <= rank
+            int lo = i - 1, hi = upper - 1;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (binomials[mid][i] <= rank) {
+                    lo = mid;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            subset[i - 1] = lo;
+            rank -= binomials[lo][i];
+            upper = lo;
+        }
+        return subset;
+    }
+
+    /**
+     * Selects randomly #numSamples distinct k-subsets.
+     * If there are no more than #numSamples k-subsets, all of them are returned.
+     * @param numSamples the number of k-subsets to be selected
+     * @param random the source of randomness
+     * @return distinct k-subsets, each one in ascending order
+     */
+    public List<int[]> sample(int numSamples, @NonNull RandomGenerator random) {
+        checkArgument(numSamples >= 0, "numSamples must be non-negative");
+
+        if (!isRankable()) {
+            return sampleByRejection(numSamples, random);
+        }
+
+        long[] ranks = selectRanks(numSamples, binomials[n][k], random);
+        Arrays.sort(ranks);
+
+        List<int[]> subsets = new ArrayList<>(ranks.length);
+        for (long rank : ranks) {
+            subsets.add(unrank(rank));
+        }
+        return subsets;
+    }
+
+    /**
+     * Floyd's algorithm, selecting min(m, size) distinct values from [0, size)
+     */
+    private static long[] selectRanks(int m, long size, RandomGenerator random) {
+        if (size <= m) {
+            long[] ranks = new long[(int) size];
+            for (int i = 0; i < ranks.length; i++) {
+                ranks[i] = i;
+            }
+            return ranks;
+        }
+
+        Set<Long> selected = new HashSet<>(m * 2);
+        for (long j = size - m; j < size; j++) {
+            long t = random.nextLong(j + 1);
+            if (!selected.add(t)) {
+                selected.add(j);
+            }
+        }
+        return selected.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private List<int[]> sampleByRejection(int numSamples, RandomGenerator random) {
+        // C(n, k) > Long.MAX_VALUE >> numSamples, hence collisions are rare
+        Set<List<Integer>> selected = new LinkedHashSet<>(numSamples * 2);
+        while (selected.size() < numSamples) {
+            long[] indexes = selectRanks(k, n, random);
+            Arrays.sort(indexes);
+            selected.add(Ints.asList(Arrays.stream(indexes).mapToInt(i -> (int) i).toArray()));
+        }
+        return selected.stream().map(Ints::toArray).toList();
+    }
+}
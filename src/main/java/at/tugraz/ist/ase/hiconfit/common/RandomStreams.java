@@ -0,0 +1,57 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.common;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.SplittableRandom;
+
+/**
+ * Derives independent, reproducible random number generators from a seed and a job key,
+ * e.g., (configuration, size of SCONF).
+ * <p>
+ * The generator of a job depends only on the seed and the key,
+ * but not on the number of jobs or the order in which they are run.
+ * Hence, any job can be regenerated alone, and parallel runs give
+ * the same output as sequential runs.
+ */
+@UtilityClass
+public class RandomStreams {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    public SplittableRandom forJob(long seed, long... keys) {
+        long state = mix64(seed);
+        for (long key : keys) {
+            state = mix64(state ^ mix64(key + GOLDEN_GAMMA));
+        }
+        return new SplittableRandom(state);
+    }
+
+    public SplittableRandom forJob(long seed, String key, long... keys) {
+        long[] allKeys = new long[keys.length + 1];
+        allKeys[0] = key.hashCode();
+        System.arraycopy(keys, 0, allKeys, 1, keys.length);
+        return forJob(seed, allKeys);
+    }
+
+    /**
+     * @return a seed for runs without a configured seed
+     */
+    public long newSeed() {
+        return new SplittableRandom().nextLong();
+    }
+
+    // the finalizer of SplitMix64
+    private long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.fm;
+
+import at.tugraz.ist.ase.hiconfit.CXPlain;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Assignment;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Requirement;
+import at.tugraz.ist.ase.hiconfit.checker.CompiledFM;
+import at.tugraz.ist.ase.hiconfit.checker.WitnessConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.fm.core.AbstractRelationship;
+import at.tugraz.ist.ase.hiconfit.fm.core.CTConstraint;
+import at.tugraz.ist.ase.hiconfit.fm.core.Feature;
+import at.tugraz.ist.ase.hiconfit.fm.core.FeatureModel;
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import at.tugraz.ist.ase.hiconfit.kb.core.IBoolVarKB;
+import com.google.common.collect.Sets;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.chocosolver.solver.variables.Variable;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * The backbone of a feature model, i.e., its core features (true in all configurations)
+ * and dead features (false in all configurations).
+ * <p>
+ * Each backbone literal f=v comes with its support, a minimal subset of the constraints of the
+ * feature model implying f=v, found by {@link CXPlain} with CONF = REQ = Φ.
+ * The support is hence a KB-only explanation of every SCONF {f=v}.
+ * <p>
+ * Candidates are tested with a {@link WitnessConsistencyChecker}, whose witnesses rule out
+ * every literal they violate, so that only a few literals need the solver.
+ * Backbones are cached on the disk next to the feature model file, as {@link CompiledFM}s.
+ */
+@Slf4j
+public class Backbone {
+
+    public static final String FILE_EXTENSION = ".backbone";
+    private static final String FORMAT = "CXPLAIN-BACKBONE-1";
+
+    /**
+     * @param value the value of the feature in all configurations
+     * @param support the names of the constraints implying feature=value
+     */
+    public record Literal(String feature, boolean value, List<String> support) {}
+
+    @Getter
+    private final String hash;
+    private final Map<String, Literal> literals;
+
+    @Getter
+    private double computationTime; // seconds needed to compute or to load from the cache
+    @Getter
+    private boolean fromCache;
+
+    Backbone(@NonNull String hash, @NonNull Map<String, Literal> literals) {
+        this.hash = hash;
+        this.literals = literals;
+    }
+
+    /**
+     * @return the backbone literal of the feature, or null if the feature is variable
+     */
+    public Literal get(@NonNull String feature) {
+        return literals.get(feature);
+    }
+
+    /**
+     * @return true if assignment is a backbone literal
+     */
+    public boolean contains(@NonNull Assignment assignment) {
+        Literal literal = literals.get(assignment.getVariable());
+        return literal != null && String.valueOf(literal.value()).equals(assignment.getValue());
+    }
+
+    public Collection<Literal> getLiterals() {
+        return Collections.unmodifiableCollection(literals.values());
+    }
+
+    /**
+     * Loads the backbone from the cache, or computes it and stores it into the cache.
+     *
+     * @param fmFile the feature model file
+     * @param fm the feature model read from fmFile
+     */
+    public static Backbone loadOrCompute(@NonNull File fmFile,
+                                         @NonNull FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> fm) throws IOException {
+        long start = System.nanoTime();
+        String hash = CompiledFM.hash(fmFile);
+        File cacheFile = new File(fmFile.getPath() + FILE_EXTENSION);
+
+        Backbone backbone = load(cacheFile, hash);
+        if (backbone != null) {
+            backbone.fromCache = true;
+        } else {
+            backbone = compute(fm, hash);
+            backbone.save(cacheFile);
+        }
+        backbone.computationTime = (System.nanoTime() - start) / 1_000_000_000.0;
+        return backbone;
+    }
+
+    public static <F extends Feature, R extends AbstractRelationship<F>, C extends CTConstraint>
+    Backbone compute(@NonNull FeatureModel<F, R, C> fm, @NonNull String hash) {
+        Requirement empty = Requirement.requirementBuilder().assignments(List.of()).build();
+        FMCausalExplanationTemplate<F, R, C> template = new FMCausalExplanationTemplate<>(fm, empty, empty);
+        WitnessConsistencyChecker checker = new WitnessConsistencyChecker(template, new WitnessConsistencyChecker.SharedResults());
+        CXPlain cxplain = new CXPlain(checker);
+
+        Map<String, Literal> literals = new LinkedHashMap<>();
+        try {
+            Set<Constraint> CF = template.getCF();
+            // feature variables only, without views
+            List<String> features = Arrays.stream(((IBoolVarKB) template.getModel().getFeatureModelKB()).getBoolVars())
+                    .filter(v -> (v.getTypeAndKind() & Variable.TYPE) == Variable.VAR)
+                    .map(Variable::getName)
+                    .toList();
+
+            if (!checker.isConsistent(CF)) {
+                log.warn("{} is inconsistent and has no backbone", fm.getName());
+                return new Backbone(hash, literals);
+            }
+
+            for (String feature : features) {
+                for (boolean value : new boolean[] {true, false}) {
+                    FMCausalExplanationInstance<F, R, C> instance = template.instantiate(Requirement.requirementBuilder()
+                            .assignments(List.of(new Assignment(feature, String.valueOf(value))))
+                            .build());
+                    checker.setSCONF(instance);
+
+                    // feature=value is a backbone literal iff CF ∪ {feature!=value} is inconsistent
+                    if (!checker.isConsistent(Sets.union(CF, instance.getNSCONF()))) {
+                        Set<Constraint> support = cxplain.findExplanation(template.getREQ(), CF, template.getCONF(), instance.getNSCONF());
+                        literals.put(feature, new Literal(feature, value, support.stream().map(Constraint::getConstraint).toList()));
+                        break;
+                    }
+                }
+            }
+        } finally {
+            template.dispose();
+        }
+        log.debug("Found {} backbone literals of {}", literals.size(), fm.getName());
+        return new Backbone(hash, literals);
+    }
+
+    public void save(@NonNull File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeUTF(FORMAT);
+            out.writeUTF(hash);
+
+            out.writeInt(literals.size());
+            for (Literal literal : literals.values()) {
+                out.writeUTF(literal.feature());
+                out.writeBoolean(literal.value());
+                out.writeInt(literal.support().size());
+                for (String name : literal.support()) {
+                    out.writeUTF(name);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the backbone stored in the file, or null if the file does not exist,
+     * is unreadable, or belongs to another version of the feature model
+     */
+    public static Backbone load(@NonNull File file, @NonNull String expectedHash) {
+        if (!file.exists()) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (!FORMAT.equals(in.readUTF()) || !expectedHash.equals(in.readUTF())) {
+                log.info("{} is outdated and will be recomputed", file.getName());
+                return null;
+            }
+
+            int size = in.readInt();
+            Map<String, Literal> literals = new LinkedHashMap<>();
+            for (int i = 0; i < size; i++) {
+                String feature = in.readUTF();
+                boolean value = in.readBoolean();
+                int supportSize = in.readInt();
+                List<String> support = new ArrayList<>(supportSize);
+                for (int j = 0; j < supportSize; j++) {
+                    support.add(in.readUTF());
+                }
+                literals.put(feature, new Literal(feature, value, support));
+            }
+            return new Backbone(expectedHash, literals);
+        } catch (IOException e) {
+            log.warn("Cannot read {}, it will be recomputed", file.getName(), e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.fm;
+
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Requirement;
+import at.tugraz.ist.ase.hiconfit.fm.core.AbstractRelationship;
+import at.tugraz.ist.ase.hiconfit.fm.core.CTConstraint;
+import at.tugraz.ist.ase.hiconfit.fm.core.Feature;
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Set;
+
+/**
+ * A causal explanation model of a SCONF, created by {@link FMCausalExplanationTemplate#instantiate(Requirement)}.
+ * CONF, REQ and CF are the sets of the template, only NSCONF belongs to the instance.
+ */
+@Getter
+@RequiredArgsConstructor
+public class FMCausalExplanationInstance<F extends Feature, R extends AbstractRelationship<F>, C extends CTConstraint> {
+
+    private final @NonNull FMCausalExplanationTemplate<F, R, C> template;
+    private final @NonNull Requirement SCONF;
+    private final @NonNull Set<Constraint> NSCONF;
+
+    public Set<Constraint> getCONF() {
+        return template.getCONF();
+    }
+
+    public Set<Constraint> getREQ() {
+        return template.getREQ();
+    }
+
+    public Set<Constraint> getCF() {
+        return template.getCF();
+    }
+}
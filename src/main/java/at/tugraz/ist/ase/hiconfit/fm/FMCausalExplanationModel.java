@@ -17,8 +17,10 @@ import at.tugraz.ist.ase.hiconfit.fm.core.CTConstraint;
 import at.tugraz.ist.ase.hiconfit.fm.core.Feature;
 import at.tugraz.ist.ase.hiconfit.fm.core.FeatureModel;
 import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import at.tugraz.ist.ase.hiconfit.kb.core.KB;
 import at.tugraz.ist.ase.hiconfit.negator.ISolutionNegatable;
 import at.tugraz.ist.ase.hiconfit.negator.fm.FMSolutionNegator;
+import at.tugraz.ist.ase.hiconfit.translator.AssignmentTranslator;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
@@ -36,6 +38,9 @@ import java.util.*;
  * + cfInConflicts = true
  * + reversedConstraintsOrder = false
  * Output model can be used for the following algorithms: CXPlain
+ * <p>
+ * Each model builds its own KB of the feature model, whose Choco model is emptied by {@link #initialize()}.
+ * The feature model is only read, hence several threads can build models of the same feature model.
  */
 @Slf4j
 public class FMCausalExplanationModel<F extends Feature, R extends AbstractRelationship<F>, C extends CTConstraint>
@@ -51,6 +56,7 @@ public class FMCausalExplanationModel<F extends Feature, R extends AbstractRelat
     @Getter
     protected Set<Constraint> NSCONF = new LinkedHashSet<>();
 
+    @Getter
     protected Requirement SCONF;
     protected Solution configuration;
 
@@ -69,9 +75,23 @@ public class FMCausalExplanationModel<F extends Feature, R extends AbstractRelat
                                     @NonNull Requirement requirement,
                                     @NonNull Solution configuration // v2
     ) {
-        super(fm, requirement, false, true, true, false);
+        this(fm, requirement, configuration);
 
         this.SCONF = SCONF;
+    }
+
+    /**
+     * A constructor for a model without SCONF, whose CONF, REQ and CF are shared
+     * by several SCONFs, see {@link FMCausalExplanationTemplate}.
+     * NSCONF stays empty, and SCONFs are negated by {@link #negate(Requirement)}.
+     *
+     * @param fm a {@link FeatureModel}
+     */
+    public FMCausalExplanationModel(@NonNull FeatureModel<F, R, C> fm,
+                                    @NonNull Requirement requirement,
+                                    @NonNull Solution configuration) {
+        super(fm, requirement, false, true, true, false);
+
         this.configuration = configuration;
     }
 
@@ -88,13 +108,13 @@ public class FMCausalExplanationModel<F extends Feature, R extends AbstractRelat
         // prepare constraints for possibly faulty constraints
         // translates configuration to Choco constraints
         log.trace("{}Translating configuration to Choco constraints", LoggerUtils.tab());
-        List<Constraint> constraints = solutionTranslator.translateToList(configuration, fmkb);
+        List<Constraint> constraints = AssignmentTranslator.translateToList(configuration, fmkb);
         List<Constraint> C = new LinkedList<>(constraints);
         CONF.addAll(constraints);
 
         // constraints from requirement
         log.trace("{}Translating requirement to Choco constraints", LoggerUtils.tab());
-        constraints = solutionTranslator.translateToList(requirement, fmkb);
+        constraints = AssignmentTranslator.translateToList(requirement, fmkb);
 
         List<Constraint> copiedConstraints = new LinkedList<>();
         constraints.forEach(c -> copiedConstraints.add(c.withConstraint(c.getConstraint() + " [copied]")));
@@ -115,27 +135,48 @@ public class FMCausalExplanationModel<F extends Feature, R extends AbstractRelat
 
         this.setPossiblyFaultyConstraints(C);
 
-        log.trace("{}Adding correct constraints", LoggerUtils.tab());
-        // SCONF
-        log.trace("{}Translating SCONF to Choco constraints", LoggerUtils.tab());
-        Constraint constraint = negator.negate(SCONF, fmkb);
-        this.setCorrectConstraints(List.of(constraint));
-        NSCONF.add(constraint);
+        if (SCONF != null) {
+            log.trace("{}Adding correct constraints", LoggerUtils.tab());
+            // SCONF
+            log.trace("{}Translating SCONF to Choco constraints", LoggerUtils.tab());
+            Constraint constraint = negate(SCONF);
+            this.setCorrectConstraints(List.of(constraint));
+            NSCONF.add(constraint);
+        }
 
-        // remove all Choco constraints
+        // remove all Choco constraints of the own KB, which no other model uses
         model.unpost(model.getCstrs());
 
         LoggerUtils.outdent();
         log.debug("{}<<< Model {} initialized", LoggerUtils.tab(), getName());
     }
 
+    /**
+     * @return the knowledge base of the feature model, whose Choco model holds the variables of this model
+     */
+    public KB getFeatureModelKB() {
+        return fmkb;
+    }
+
+    /**
+     * Negates a SCONF over the Choco model of this model, without posting it.
+     *
+     * @param SCONF a subset of the configuration
+     * @return the constraint NSCONF = not(SCONF)
+     */
+    public Constraint negate(@NonNull Requirement SCONF) {
+        return negator.negate(SCONF, fmkb);
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public Object clone() throws CloneNotSupportedException {
         FMCausalExplanationModel<F, R, C> clone = (FMCausalExplanationModel<F, R, C>) super.clone();
 
         clone.configuration = (Solution) configuration.clone();
-        clone.SCONF = (Requirement) SCONF.clone();
+        if (SCONF != null) {
+            clone.SCONF = (Requirement) SCONF.clone();
+        }
 
         return clone;
     }
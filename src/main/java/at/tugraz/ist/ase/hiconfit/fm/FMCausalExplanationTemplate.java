@@ -0,0 +1,78 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.fm;
+
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Requirement;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Solution;
+import at.tugraz.ist.ase.hiconfit.fm.core.AbstractRelationship;
+import at.tugraz.ist.ase.hiconfit.fm.core.CTConstraint;
+import at.tugraz.ist.ase.hiconfit.fm.core.Feature;
+import at.tugraz.ist.ase.hiconfit.fm.core.FeatureModel;
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * A template of causal explanation models for one (feature model, configuration, requirement).
+ * <p>
+ * The template translates CONF, REQ and CF once and keeps them immutable.
+ * Each SCONF of the configuration then gets a lightweight {@link FMCausalExplanationInstance},
+ * which shares these sets by reference and only adds its own NSCONF.
+ * Hence, creating an instance costs only the negation of its SCONF,
+ * and the memory does not grow with the number of live instances.
+ * <p>
+ * All instances share the Choco model of the template, so that one consistency checker
+ * created from {@link #getModel()} serves all of them.
+ * <p>
+ * Since Choco models are not thread-safe, and an instantiation may create variables in the shared model,
+ * a template, its instances and its checker belong to one thread. Threads explaining the same configuration
+ * create their own templates, see {@link at.tugraz.ist.ase.hiconfit.BatchCXPlain}.
+ */
+public class FMCausalExplanationTemplate<F extends Feature, R extends AbstractRelationship<F>, C extends CTConstraint> {
+
+    @Getter
+    private final FMCausalExplanationModel<F, R, C> model;
+
+    @Getter
+    private final Set<Constraint> CONF;
+    @Getter
+    private final Set<Constraint> REQ;
+    @Getter
+    private final Set<Constraint> CF;
+
+    public FMCausalExplanationTemplate(@NonNull FeatureModel<F, R, C> fm,
+                                       @NonNull Requirement requirement,
+                                       @NonNull Solution configuration) {
+        model = new FMCausalExplanationModel<>(fm, requirement, configuration);
+        model.initialize();
+
+        CONF = Collections.unmodifiableSet(model.getCONF());
+        REQ = Collections.unmodifiableSet(model.getREQ());
+        CF = Collections.unmodifiableSet(model.getCF());
+    }
+
+    /**
+     * Creates the model instance of a SCONF.
+     * Must not run while a checker of this template solves, i.e., in the thread of the template.
+     *
+     * @param SCONF a subset of the configuration
+     * @return an instance sharing CONF, REQ and CF of this template
+     */
+    public FMCausalExplanationInstance<F, R, C> instantiate(@NonNull Requirement SCONF) {
+        Constraint NSCONF = model.negate(SCONF);
+        return new FMCausalExplanationInstance<>(this, SCONF, Set.of(NSCONF));
+    }
+
+    public void dispose() {
+        model.dispose();
+    }
+}
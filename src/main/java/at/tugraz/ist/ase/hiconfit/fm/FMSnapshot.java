@@ -0,0 +1,307 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.fm;
+
+import at.tugraz.ist.ase.hiconfit.checker.CompiledFM;
+import at.tugraz.ist.ase.hiconfit.fm.builder.ConstraintBuilder;
+import at.tugraz.ist.ase.hiconfit.fm.builder.FeatureBuilder;
+import at.tugraz.ist.ase.hiconfit.fm.builder.RelationshipBuilder;
+import at.tugraz.ist.ase.hiconfit.fm.core.AbstractRelationship;
+import at.tugraz.ist.ase.hiconfit.fm.core.CTConstraint;
+import at.tugraz.ist.ase.hiconfit.fm.core.Feature;
+import at.tugraz.ist.ase.hiconfit.fm.core.FeatureModel;
+import at.tugraz.ist.ase.hiconfit.fm.factory.FeatureModels;
+import at.tugraz.ist.ase.hiconfit.fm.parser.FeatureModelParserException;
+import at.tugraz.ist.ase.hiconfit.fm.translator.ConfRuleTranslator;
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import at.tugraz.ist.ase.hiconfit.kb.fm.FMKB;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A binary snapshot of a parsed feature model, stored next to the feature model file,
+ * so that short-lived runs skip parsing the SXFM/SPLX XML.
+ * <p>
+ * The snapshot holds the features in breadth-first order, the relationships and the requires/excludes
+ * constraints as indexes of features, and is read through a memory-mapped buffer.
+ * A snapshot is only used if the SHA-256 hash of the feature model file is unchanged.
+ * <p>
+ * The translation into the FMKB is not stored, since Choco constraints cannot be serialized,
+ * but is checked when the snapshot is written: the FMKB of the snapshot must have the same
+ * constraints as the FMKB of the parsed feature model. Feature models with other constraints,
+ * or failing this check, get a snapshot marked as unsupported, and are always parsed from XML.
+ */
+@Slf4j
+public final class FMSnapshot {
+
+    public static final String FILE_EXTENSION = ".fmsnap";
+    private static final int MAGIC = 0x464D534E; // FMSN
+    private static final int VERSION = 1;
+
+    // kinds of relationships and constraints, named as in the translated constraints, e.g. "mandatory(a, b)"
+    private static final List<String> KINDS = List.of("mandatory", "optional", "alternative", "or", "requires", "excludes");
+    private static final int REQUIRES = 4;
+    private static final int EXCLUDES = 5;
+
+    private FMSnapshot() {
+    }
+
+    /**
+     * Loads the feature model from its snapshot, or parses it and writes its snapshot.
+     * If the snapshot cannot be written, e.g., in a read-only folder, the parsed feature model is returned.
+     */
+    public static FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> loadOrCreate(@NonNull File fmFile)
+            throws FeatureModelParserException, IOException {
+        long start = System.nanoTime();
+        String hash = CompiledFM.hash(fmFile);
+        File snapshotFile = new File(fmFile.getPath() + FILE_EXTENSION);
+
+        FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> fm = load(snapshotFile, hash);
+        if (fm != null) {
+            log.debug("Loaded {} from its snapshot in {} ms", fmFile.getName(), (System.nanoTime() - start) / 1_000_000.0);
+            return fm;
+        }
+
+        fm = FeatureModels.fromFile(fmFile);
+        log.debug("Parsed {} in {} ms", fmFile.getName(), (System.nanoTime() - start) / 1_000_000.0);
+        if (!isUnsupported(snapshotFile, hash)) {
+            try {
+                save(snapshotFile, fm, hash);
+            } catch (IOException e) {
+                log.warn("Cannot write the snapshot of {}", fmFile.getName(), e);
+            }
+        }
+        return fm;
+    }
+
+    /**
+     * @return the feature model of the snapshot, or null if the file does not exist, is unreadable,
+     * belongs to another version of the feature model, or is marked as unsupported
+     */
+    public static FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> load(@NonNull File file, @NonNull String expectedHash) {
+        if (!file.exists()) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (!readHeader(buffer, expectedHash)) {
+                log.info("{} is outdated and will be rewritten", file.getName());
+                return null;
+            }
+            if (buffer.get() == 0) {
+                return null; // unsupported
+            }
+            return read(buffer);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Cannot read {}, it will be rewritten", file.getName(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the snapshot of the feature model, or a snapshot marked as unsupported.
+     *
+     * @return true if the feature model can be loaded from the snapshot
+     */
+    public static boolean save(@NonNull File file, @NonNull FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> fm,
+                               @NonNull String hash) throws IOException {
+        byte[] body = encode(fm);
+        if (body != null && !sameTranslation(fm, read(ByteBuffer.wrap(body)))) {
+            log.info("The snapshot of {} differs in its constraints, it will be parsed from XML", fm.getName());
+            body = null;
+        }
+
+        // a unique temporary file in the same folder, so that concurrent writers do not clash and the move is atomic
+        Path target = file.getAbsoluteFile().toPath();
+        Path temp = Files.createTempFile(target.getParent(), file.getName(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeString(out, hash);
+                out.writeByte(body != null ? 1 : 0);
+                if (body != null) {
+                    out.write(body);
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return body != null;
+    }
+
+    private static boolean isUnsupported(File file, String hash) {
+        if (!file.exists()) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return false;
+            }
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return hash.equals(new String(bytes, StandardCharsets.UTF_8)) && in.readByte() == 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return the body of the snapshot, or null if the feature model has constraints other than requires and excludes
+     */
+    private static byte[] encode(FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> fm) throws IOException {
+        List<Feature> features = fm.getBfFeatures();
+        Map<Feature, Integer> indexes = new IdentityHashMap<>();
+        Map<String, Integer> names = new HashMap<>();
+        for (int i = 0; i < features.size(); i++) {
+            indexes.put(features.get(i), i);
+            names.putIfAbsent(features.get(i).getName(), i);
+            names.putIfAbsent(idOf(features.get(i)), i);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeString(out, fm.getName());
+
+            out.writeInt(features.size());
+            for (Feature f : features) {
+                writeString(out, f.getName());
+                writeString(out, idOf(f));
+            }
+
+            List<AbstractRelationship<Feature>> relationships = fm.getRelationships();
+            out.writeInt(relationships.size());
+            for (AbstractRelationship<Feature> r : relationships) {
+                int kind = kindOf(r.toString());
+                if (kind < 0 || kind >= REQUIRES) {
+                    log.info("{} has the unsupported relationship {}", fm.getName(), r);
+                    return null;
+                }
+                out.writeByte(kind);
+                out.writeInt(indexes.get(r.getParent()));
+                out.writeInt(r.getChildren().size());
+                for (Feature child : r.getChildren()) {
+                    out.writeInt(indexes.get(child));
+                }
+            }
+
+            List<CTConstraint> constraints = fm.getConstraints();
+            out.writeInt(constraints.size());
+            for (CTConstraint c : constraints) {
+                // requires(left, right) or excludes(left, right)
+                String text = c.toString();
+                int kind = kindOf(text);
+                String[] operands = text.substring(text.indexOf('(') + 1, text.length() - 1).split(",");
+                if ((kind != REQUIRES && kind != EXCLUDES) || operands.length != 2
+                        || !names.containsKey(operands[0].trim()) || !names.containsKey(operands[1].trim())) {
+                    log.info("{} has the unsupported constraint {}", fm.getName(), text);
+                    return null;
+                }
+                out.writeByte(kind);
+                out.writeInt(names.get(operands[0].trim()));
+                out.writeInt(names.get(operands[1].trim()));
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> read(ByteBuffer buffer) {
+        val translator = new ConfRuleTranslator();
+        val fm = new FeatureModel<>(readString(buffer), new FeatureBuilder(), new RelationshipBuilder(translator), new ConstraintBuilder(translator));
+
+        Feature[] features = new Feature[buffer.getInt()];
+        for (int i = 0; i < features.length; i++) {
+            String name = readString(buffer);
+            String id = readString(buffer);
+            features[i] = i == 0 ? fm.addRoot(name, id) : fm.addFeature(name, id);
+        }
+
+        int numRelationships = buffer.getInt();
+        for (int i = 0; i < numRelationships; i++) {
+            int kind = buffer.get();
+            Feature parent = features[buffer.getInt()];
+            List<Feature> children = new ArrayList<>();
+            for (int n = buffer.getInt(); n > 0; n--) {
+                children.add(features[buffer.getInt()]);
+            }
+            switch (kind) {
+                case 0 -> fm.addMandatoryRelationship(parent, children.get(0));
+                case 1 -> fm.addOptionalRelationship(parent, children.get(0));
+                case 2 -> fm.addAlternativeRelationship(parent, children);
+                case 3 -> fm.addOrRelationship(parent, children);
+                default -> throw new IllegalStateException("Unknown relationship kind " + kind);
+            }
+        }
+
+        int numConstraints = buffer.getInt();
+        for (int i = 0; i < numConstraints; i++) {
+            int kind = buffer.get();
+            Feature left = features[buffer.getInt()];
+            Feature right = features[buffer.getInt()];
+            switch (kind) {
+                case REQUIRES -> fm.addRequires(left, right);
+                case EXCLUDES -> fm.addExcludes(left, right);
+                default -> throw new IllegalStateException("Unknown constraint kind " + kind);
+            }
+        }
+        return fm;
+    }
+
+    private static boolean sameTranslation(FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> fm1,
+                                           FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> fm2) {
+        return constraintNames(fm1).equals(constraintNames(fm2));
+    }
+
+    private static List<String> constraintNames(FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> fm) {
+        val fmKB = new FMKB<>(fm, false);
+        List<String> names = new ArrayList<>();
+        names.add(fmKB.getRootConstraint().getConstraint());
+        fmKB.getConstraintList().stream().map(Constraint::getConstraint).forEach(names::add);
+        return names;
+    }
+
+    private static String idOf(Feature f) {
+        return f.getId() != null ? f.getId() : f.getName();
+    }
+
+    private static int kindOf(String text) {
+        int bracket = text.indexOf('(');
+        return bracket > 0 ? KINDS.indexOf(text.substring(0, bracket).trim().toLowerCase()) : -1;
+    }
+
+    private static boolean readHeader(ByteBuffer buffer, String expectedHash) {
+        return buffer.getInt() == MAGIC && buffer.getInt() == VERSION && expectedHash.equals(readString(buffer));
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
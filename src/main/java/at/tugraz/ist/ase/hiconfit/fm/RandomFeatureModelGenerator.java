@@ -0,0 +1,257 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.fm;
+
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Assignment;
+import lombok.NonNull;
+
+import java.util.*;
+import java.util.random.RandomGenerator;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Generates random feature models in the SXFM format of SPLOT, as the models in ./data/fms.
+ * <p>
+ * The feature tree is grown breadth-first: each feature gets 1 to 3 relationships, each one
+ * a mandatory or an optional child, or an alternative or an or-group of 2 to #MAX_GROUP_SIZE children.
+ * <p>
+ * A random witness configuration is drawn top-down from the tree, and the cross-tree constraints
+ * (requires and excludes, #ctcRatio per feature) are only chosen among the ones the witness satisfies.
+ * Hence, every generated feature model is consistent, and the witness is one of its valid configurations.
+ */
+public class RandomFeatureModelGenerator {
+
+    public static final double MANDATORY_PROBABILITY = 0.2;
+    public static final double OPTIONAL_PROBABILITY = 0.4;
+    public static final double ALTERNATIVE_PROBABILITY = 0.2; // the rest for or-groups
+    public static final int MAX_RELATIONSHIPS = 3;
+    public static final int MAX_GROUP_SIZE = 5;
+    public static final int MAX_CTC_ATTEMPTS = 100;
+
+    private enum Kind { MANDATORY, OPTIONAL, ALTERNATIVE, OR }
+
+    private record Relationship(Kind kind, int[] children) {}
+
+    /**
+     * A generated feature model
+     * @param sxfm the feature model in the SXFM format
+     * @param witness a valid configuration, with all features in the order of their ids
+     * @param numFeatures the number of features
+     * @param numCTCs the number of cross-tree constraints
+     */
+    public record SyntheticFM(String name, String sxfm, List<Assignment> witness, int numFeatures, int numCTCs) {}
+
+    private final int numFeatures;
+    private final double ctcRatio;
+    private final double excludesRatio;
+
+    /**
+     * @param numFeatures the number of features, including the root
+     * @param ctcRatio the number of cross-tree constraints per feature
+     * @param excludesRatio the share of excludes among the cross-tree constraints
+     */
+    public RandomFeatureModelGenerator(int numFeatures, double ctcRatio, double excludesRatio) {
+        checkArgument(numFeatures >= 2, "A feature model needs at least 2 features");
+        checkArgument(ctcRatio >= 0, "ctcRatio must not be negative");
+        checkArgument(excludesRatio >= 0 && excludesRatio <= 1, "excludesRatio must be in [0, 1]");
+
+        this.numFeatures = numFeatures;
+        this.ctcRatio = ctcRatio;
+        this.excludesRatio = excludesRatio;
+    }
+
+    public SyntheticFM generate(@NonNull String name, @NonNull RandomGenerator random) {
+        List<List<Relationship>> tree = generateTree(random);
+        boolean[] witness = generateWitness(tree, random);
+        List<String> ctcs = generateCTCs(witness, random);
+
+        List<Assignment> assignments = new ArrayList<>(numFeatures);
+        for (int f = 0; f < numFeatures; f++) {
+            assignments.add(new Assignment(featureName(f), witness[f] ? "true" : "false"));
+        }
+        return new SyntheticFM(name, toSXFM(name, tree, ctcs), assignments, numFeatures, ctcs.size());
+    }
+
+    /**
+     * @return the relationships of each feature, children have greater ids than their parents
+     */
+    private List<List<Relationship>> generateTree(RandomGenerator random) {
+        List<List<Relationship>> tree = new ArrayList<>(numFeatures);
+        for (int f = 0; f < numFeatures; f++) {
+            tree.add(new ArrayList<>());
+        }
+
+        int next = 1;
+        for (int parent = 0; next < numFeatures; parent++) {
+            int numRelationships = 1 + random.nextInt(MAX_RELATIONSHIPS);
+            for (int r = 0; r < numRelationships && next < numFeatures; r++) {
+                double p = random.nextDouble();
+                int groupSize = Math.min(2 + random.nextInt(MAX_GROUP_SIZE - 1), numFeatures - next);
+
+                Kind kind;
+                if (p < MANDATORY_PROBABILITY) {
+                    kind = Kind.MANDATORY;
+                } else if (p < MANDATORY_PROBABILITY + OPTIONAL_PROBABILITY || groupSize < 2) {
+                    kind = Kind.OPTIONAL;
+                } else if (p < MANDATORY_PROBABILITY + OPTIONAL_PROBABILITY + ALTERNATIVE_PROBABILITY) {
+                    kind = Kind.ALTERNATIVE;
+                } else {
+                    kind = Kind.OR;
+                }
+
+                int size = (kind == Kind.ALTERNATIVE || kind == Kind.OR) ? groupSize : 1;
+                int[] children = new int[size];
+                for (int i = 0; i < size; i++) {
+                    children[i] = next++;
+                }
+                tree.get(parent).add(new Relationship(kind, children));
+            }
+        }
+        return tree;
+    }
+
+    private boolean[] generateWitness(List<List<Relationship>> tree, RandomGenerator random) {
+        boolean[] selected = new boolean[numFeatures];
+        selected[0] = true;
+
+        // parents are visited before their children
+        for (int parent = 0; parent < numFeatures; parent++) {
+            if (!selected[parent]) {
+                continue;
+            }
+            for (Relationship relationship : tree.get(parent)) {
+                int[] children = relationship.children();
+                switch (relationship.kind()) {
+                    case MANDATORY -> selected[children[0]] = true;
+                    case OPTIONAL -> selected[children[0]] = random.nextBoolean();
+                    case ALTERNATIVE -> selected[children[random.nextInt(children.length)]] = true;
+                    case OR -> {
+                        for (int child : children) {
+                            selected[child] = random.nextBoolean();
+                        }
+                        selected[children[random.nextInt(children.length)]] = true;
+                    }
+                }
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * @return cross-tree constraints in the SXFM syntax, all satisfied by the witness
+     */
+    private List<String> generateCTCs(boolean[] witness, RandomGenerator random) {
+        int numCTCs = (int) Math.round(ctcRatio * numFeatures);
+        Set<String> ctcs = new LinkedHashSet<>();
+
+        for (int c = 0; c < numCTCs; c++) {
+            boolean excludes = random.nextDouble() < excludesRatio;
+            for (int attempt = 0; attempt < MAX_CTC_ATTEMPTS; attempt++) {
+                int a = 1 + random.nextInt(numFeatures - 1);
+                int b = 1 + random.nextInt(numFeatures - 1);
+                if (a == b) {
+                    continue;
+                }
+
+                String ctc;
+                if (excludes) {
+                    if (witness[a] && witness[b]) {
+                        continue;
+                    }
+                    ctc = "~" + featureId(a) + " or ~" + featureId(b);
+                } else {
+                    if (witness[a] && !witness[b]) {
+                        continue;
+                    }
+                    ctc = "~" + featureId(a) + " or " + featureId(b);
+                }
+                if (ctcs.add(ctc)) {
+                    break;
+                }
+            }
+        }
+        return new ArrayList<>(ctcs);
+    }
+
+    private String toSXFM(String name, List<List<Relationship>> tree, List<String> ctcs) {
+        StringBuilder sxfm = new StringBuilder();
+        sxfm.append("<feature_model name=\"").append(name).append("\">\n");
+        sxfm.append("<feature_tree>\n");
+        sxfm.append(":r ").append(featureName(0)).append("(").append(featureId(0)).append(")\n");
+
+        // depth-first, with an explicit stack for deep trees
+        Deque<int[]> stack = new ArrayDeque<>(); // {feature, depth}
+        pushRelationships(stack, tree, 0, 1);
+        while (!stack.isEmpty()) {
+            int[] entry = stack.pop();
+            int feature = entry[0];
+            int depth = entry[1];
+
+            if (feature < 0) { // a group header
+                Relationship group = tree.get(-feature - 1).get(entry[2]);
+                String cardinality = group.kind() == Kind.ALTERNATIVE ? "[1,1]" : "[1,*]";
+                indent(sxfm, depth).append(":g (_g").append(group.children()[0]).append(") ").append(cardinality).append("\n");
+                continue;
+            }
+
+            String prefix = switch (entry[2]) {
+                case 0 -> ":m ";
+                case 1 -> ":o ";
+                default -> ": ";
+            };
+            indent(sxfm, depth).append(prefix).append(featureName(feature)).append("(").append(featureId(feature)).append(")\n");
+            pushRelationships(stack, tree, feature, depth + 1);
+        }
+        sxfm.append("</feature_tree>\n");
+
+        sxfm.append("<constraints>\n");
+        for (int c = 0; c < ctcs.size(); c++) {
+            sxfm.append("constraint_").append(c + 1).append(":").append(ctcs.get(c)).append("\n");
+        }
+        sxfm.append("</constraints>\n");
+        sxfm.append("</feature_model>\n");
+        return sxfm.toString();
+    }
+
+    /**
+     * Pushes the children of a feature in the reversed order, so that they are popped in order.
+     * Entries are {feature, depth, 0 - mandatory / 1 - optional / 2 - group member},
+     * and {-parent - 1, depth, relationship index} for group headers.
+     */
+    private void pushRelationships(Deque<int[]> stack, List<List<Relationship>> tree, int parent, int depth) {
+        List<Relationship> relationships = tree.get(parent);
+        for (int r = relationships.size() - 1; r >= 0; r--) {
+            Relationship relationship = relationships.get(r);
+            int[] children = relationship.children();
+            switch (relationship.kind()) {
+                case MANDATORY -> stack.push(new int[] {children[0], depth, 0});
+                case OPTIONAL -> stack.push(new int[] {children[0], depth, 1});
+                default -> {
+                    for (int i = children.length - 1; i >= 0; i--) {
+                        stack.push(new int[] {children[i], depth + 1, 2});
+                    }
+                    stack.push(new int[] {-parent - 1, depth, r});
+                }
+            }
+        }
+    }
+
+    private static StringBuilder indent(StringBuilder sxfm, int depth) {
+        return sxfm.append("\t".repeat(depth));
+    }
+
+    private static String featureName(int feature) {
+        return "F" + feature;
+    }
+
+    private static String featureId(int feature) {
+        return feature == 0 ? "_r" : "_f" + feature;
+    }
+}
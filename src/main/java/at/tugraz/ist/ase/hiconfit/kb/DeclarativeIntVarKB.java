@@ -0,0 +1,74 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.kb;
+
+import at.tugraz.ist.ase.hiconfit.common.LoggerUtils;
+import at.tugraz.ist.ase.hiconfit.kb.core.*;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.variables.IntVar;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/**
+ * A base class of {@link IIntVarKB} knowledge bases, whose variables and rules
+ * are defined with an {@link IntVarKBBuilder}.
+ * Subclasses implement {@link #define(IntVarKBBuilder)} and call reset in their constructor.
+ */
+@Slf4j
+public abstract class DeclarativeIntVarKB extends KB implements IIntVarKB {
+
+    protected DeclarativeIntVarKB(@NonNull String name, @NonNull String source, boolean hasNegativeConstraints) {
+        super(name, source, hasNegativeConstraints);
+    }
+
+    @Override
+    public void reset(boolean hasNegativeConstraints) {
+        log.trace("{}Creating {} >>>", LoggerUtils.tab(), name);
+        LoggerUtils.indent();
+
+        modelKB = new Model(name);
+        variableList = new LinkedList<>();
+        domainList = new LinkedList<>();
+        constraintList = new LinkedList<>();
+        define(new IntVarKBBuilder(modelKB, variableList, domainList, constraintList, hasNegativeConstraints));
+
+        LoggerUtils.outdent();
+        log.debug("{}<<< Created {}", LoggerUtils.tab(), name);
+    }
+
+    /**
+     * Defines the variables and the rules of the knowledge base.
+     */
+    protected abstract void define(IntVarKBBuilder builder);
+
+    @Override
+    public IntVar[] getIntVars() {
+        org.chocosolver.solver.variables.Variable[] vars = getModelKB().getVars();
+
+        return Arrays.stream(vars).map(v -> (IntVar) v).toArray(IntVar[]::new);
+    }
+
+    @Override
+    public IntVar getIntVar(@NonNull String variable) {
+        Variable var = getVariable(variable);
+
+        return ((IntVariable) var).getChocoVar();
+    }
+
+    // Choco value
+    @Override
+    public int getIntValue(@NonNull String var, @NonNull String value) {
+        Domain domain = getDomain(var);
+
+        return domain.getChocoValue(value);
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.kb;
+
+import at.tugraz.ist.ase.hiconfit.common.LoggerUtils;
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import at.tugraz.ist.ase.hiconfit.kb.core.Domain;
+import at.tugraz.ist.ase.hiconfit.kb.core.IntVariable;
+import at.tugraz.ist.ase.hiconfit.kb.core.Variable;
+import at.tugraz.ist.ase.hiconfit.kb.core.builder.IntVarConstraintBuilder;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.constraints.extension.Tuples;
+import org.chocosolver.solver.variables.IntVar;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A declarative builder of {@link at.tugraz.ist.ase.hiconfit.kb.core.IIntVarKB} knowledge bases,
+ * used by {@link DeclarativeIntVarKB}.
+ * <p>
+ * Variables are given with their values, and rules either as tables of allowed tuples
+ * or as predicates over the values of their variables, e.g.,
+ * rule("a <-> b", List.of("a", "b"), r -> r.is("a", "y") == r.is("b", "y")).
+ * <p>
+ * Each rule is compiled into one Choco table constraint, which keeps the smaller one of
+ * the allowed and the forbidden tuples, e.g., a rule forbidding a single tuple becomes a table of this tuple.
+ * Variables already in the variable list, e.g., defined by another builder of the same model, can be used by rules.
+ * Constraints are created by {@link IntVarConstraintBuilder}, so they can be used
+ * by {@link KBCausalExplanationModel} like hand-built ones.
+ */
+@Slf4j
+public class IntVarKBBuilder {
+
+    // maximal number of tuples enumerated for a predicate rule
+    public static final int MAX_TUPLES = 1_000_000;
+
+    /**
+     * The values of the variables of a rule, given to the predicate of the rule.
+     */
+    public static final class Row {
+        private final Map<String, Integer> indexes;
+        private final String[] values;
+
+        private Row(List<String> variables) {
+            indexes = new HashMap<>();
+            for (int i = 0; i < variables.size(); i++) {
+                indexes.put(variables.get(i), i);
+            }
+            values = new String[variables.size()];
+        }
+
+        public String get(@NonNull String variable) {
+            Integer index = indexes.get(variable);
+            checkArgument(index != null, "Variable " + variable + " is not in the scope of the rule");
+            return values[index];
+        }
+
+        public boolean is(@NonNull String variable, @NonNull String value) {
+            return get(variable).equals(value);
+        }
+    }
+
+    private final Model modelKB;
+    private final List<Variable> variableList;
+    private final List<Domain> domainList;
+    private final List<Constraint> constraintList;
+    private final boolean hasNegativeConstraints;
+
+    private final Map<String, Domain> domains = new HashMap<>();
+    private final Map<String, IntVar> intVars = new HashMap<>();
+    private final Map<String, List<String>> values = new HashMap<>();
+
+    public IntVarKBBuilder(@NonNull Model modelKB,
+                           @NonNull List<Variable> variableList,
+                           @NonNull List<Domain> domainList,
+                           @NonNull List<Constraint> constraintList,
+                           boolean hasNegativeConstraints) {
+        this.modelKB = modelKB;
+        this.variableList = variableList;
+        this.domainList = domainList;
+        this.constraintList = constraintList;
+        this.hasNegativeConstraints = hasNegativeConstraints;
+
+        for (int i = 0; i < variableList.size(); i++) {
+            if (variableList.get(i) instanceof IntVariable var) {
+                Domain domain = domainList.get(i);
+                domains.put(var.getName(), domain);
+                intVars.put(var.getName(), var.getChocoVar());
+                values.put(var.getName(), List.copyOf(domain.getValues()));
+            }
+        }
+    }
+
+    public IntVarKBBuilder variable(@NonNull String name, @NonNull String... values) {
+        checkArgument(!domains.containsKey(name), "Variable " + name + " is already defined");
+        checkArgument(values.length > 0, "Variable " + name + " has no value");
+
+        Domain domain = Domain.builder()
+                .name(name)
+                .values(List.of(values))
+                .build();
+        domainList.add(domain);
+
+        IntVar intVar = modelKB.intVar(name, domain.getIntValues());
+        Variable var = IntVariable.builder()
+                .name(name)
+                .domain(domain)
+                .chocoVar(intVar).build();
+        variableList.add(var);
+
+        domains.put(name, domain);
+        intVars.put(name, intVar);
+        this.values.put(name, List.of(values));
+        log.trace("{}Defined variable {}", LoggerUtils.tab(), name);
+        return this;
+    }
+
+    /**
+     * Adds a rule given as its allowed tuples, each one with a value per variable.
+     */
+    public IntVarKBBuilder table(@NonNull String name, @NonNull List<String> variables, @NonNull List<List<String>> allowedTuples) {
+        checkScope(name, variables);
+
+        Set<List<String>> allowed = new HashSet<>();
+        for (List<String> tuple : allowedTuples) {
+            checkArgument(tuple.size() == variables.size(), "Tuple " + tuple + " of rule " + name + " has a wrong size");
+            for (int i = 0; i < tuple.size(); i++) {
+                checkArgument(values.get(variables.get(i)).contains(tuple.get(i)),
+                        "Unknown value " + tuple.get(i) + " of variable " + variables.get(i) + " in rule " + name);
+            }
+            allowed.add(tuple);
+        }
+        return rule(name, variables, row -> allowed.contains(Arrays.asList(row.values)));
+    }
+
+    /**
+     * Adds a rule given as a predicate over the values of its variables.
+     */
+    public IntVarKBBuilder rule(@NonNull String name, @NonNull List<String> variables, @NonNull Predicate<Row> predicate) {
+        checkScope(name, variables);
+
+        long numTuples = 1;
+        for (String variable : variables) {
+            numTuples *= values.get(variable).size();
+            checkArgument(numTuples <= MAX_TUPLES, "Rule " + name + " has more than " + MAX_TUPLES + " tuples");
+        }
+
+        // enumerates the Cartesian product of the domains
+        Row row = new Row(variables);
+        int[] indexes = new int[variables.size()];
+        List<int[]> allowed = new ArrayList<>();
+        List<int[]> forbidden = new ArrayList<>();
+        do {
+            int[] tuple = new int[variables.size()];
+            for (int i = 0; i < variables.size(); i++) {
+                String variable = variables.get(i);
+                row.values[i] = values.get(variable).get(indexes[i]);
+                tuple[i] = domains.get(variable).getChocoValue(row.values[i]);
+            }
+            (predicate.test(row) ? allowed : forbidden).add(tuple);
+        } while (next(indexes, variables));
+
+        checkArgument(!allowed.isEmpty(), "Rule " + name + " allows no tuple");
+
+        boolean feasible = allowed.size() <= forbidden.size();
+        Tuples tuples = new Tuples(feasible);
+        (feasible ? allowed : forbidden).forEach(tuples::add);
+
+        IntVar[] vars = variables.stream().map(intVars::get).toArray(IntVar[]::new);
+        int startIdx = modelKB.getNbCstrs();
+        org.chocosolver.solver.constraints.Constraint chocoConstraint = modelKB.table(vars, tuples);
+        Constraint constraint = IntVarConstraintBuilder.build(name, variables, modelKB, chocoConstraint, startIdx, hasNegativeConstraints);
+        constraintList.add(constraint);
+
+        log.trace("{}Compiled rule {} into a table of {} {} tuples", LoggerUtils.tab(), name,
+                feasible ? allowed.size() : forbidden.size(), feasible ? "allowed" : "forbidden");
+        return this;
+    }
+
+    private void checkScope(String name, List<String> variables) {
+        checkArgument(!variables.isEmpty(), "Rule " + name + " has no variable");
+        checkArgument(new HashSet<>(variables).size() == variables.size(), "Rule " + name + " has duplicated variables");
+        variables.forEach(v -> checkArgument(domains.containsKey(v), "Unknown variable " + v + " in rule " + name));
+    }
+
+    /**
+     * Moves the indexes to the next tuple, the last variable changing fastest.
+     * @return false if all tuples were enumerated
+     */
+    private boolean next(int[] indexes, List<String> variables) {
+        for (int i = indexes.length - 1; i >= 0; i--) {
+            if (++indexes[i] < values.get(variables.get(i)).size()) {
+                return true;
+            }
+            indexes[i] = 0;
+        }
+        return false;
+    }
+}
@@ -16,6 +16,7 @@ import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
 import at.tugraz.ist.ase.hiconfit.kb.core.KB;
 import at.tugraz.ist.ase.hiconfit.negator.ISolutionNegatable;
 import at.tugraz.ist.ase.hiconfit.negator.kb.KBSolutionNegator;
+import at.tugraz.ist.ase.hiconfit.translator.AssignmentTranslator;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
@@ -33,6 +34,9 @@ import java.util.*;
  * + cfInConflicts = true
  * + reversedConstraintsOrder = false
  * Output model can be used for the following algorithms: CXPlain
+ * <p>
+ * The model uses the Choco model of the given KB, whose constraints are unposted by {@link #initialize()}.
+ * Hence, a KB must not be shared by several models, or by several threads.
  */
 @Slf4j
 public class KBCausalExplanationModel extends KBRequirementCdrModel {
@@ -70,13 +74,13 @@ public class KBCausalExplanationModel extends KBRequirementCdrModel {
         // prepare constraints for possibly faulty constraints
         // translates configuration to Choco constraints
         log.trace("{}Translating configuration to Choco constraints", LoggerUtils.tab());
-        List<Constraint> constraints = translator.translateToList(configuration, kb);
+        List<Constraint> constraints = AssignmentTranslator.translateToList(configuration, kb);
         List<Constraint> C = new LinkedList<>(constraints);
         CONF.addAll(constraints);
 
         // constraints from requirement
         log.trace("{}Translating requirement to Choco constraints", LoggerUtils.tab());
-        constraints = translator.translateToList(requirement, kb);
+        constraints = AssignmentTranslator.translateToList(requirement, kb);
 
         List<Constraint> copiedConstraints = new LinkedList<>();
         constraints.forEach(c -> copiedConstraints.add(c.withConstraint(c.getConstraint() + " [copied]")));
@@ -0,0 +1,67 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.negator;
+
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Assignment;
+import lombok.NonNull;
+import org.chocosolver.solver.Model;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * The negations created by an {@link IAssignmentsNegatable}, keyed by the set of assignments.
+ * <p>
+ * Choco constraints belong to a model, hence the cache holds the negations of one model only,
+ * and is cleared once it is used with another model. A negator usually serves one diagnosis model,
+ * whose lifetime the cache thus shares. A map keyed by models, even a WeakHashMap, would keep
+ * every model alive, since the cached constraints refer to their model.
+ *
+ * @param <N> the negation of a set of assignments
+ */
+public class NegationCache<N> {
+
+    private Model model;
+    private final Map<String, N> negations = new HashMap<>();
+
+    /**
+     * @param create creates the negation, which is not cached if it is null
+     * @return the cached or created negation of the assignments in the given model
+     */
+    public synchronized N get(@NonNull Model model, @NonNull List<Assignment> assignments, @NonNull Supplier<N> create) {
+        if (model != this.model) {
+            negations.clear();
+            this.model = model;
+        }
+
+        String key = keyOf(assignments);
+        N negation = negations.get(key);
+        if (negation == null) {
+            negation = create.get();
+            if (negation != null) {
+                negations.put(key, negation);
+            }
+        }
+        return negation;
+    }
+
+    /**
+     * @return the sorted "var=value" strings, so that the order of assignments does not matter
+     */
+    public static String keyOf(@NonNull List<Assignment> assignments) {
+        return assignments.stream()
+                .map(a -> a.getVariable() + "=" + a.getValue())
+                .sorted()
+                .distinct()
+                .reduce((a, b) -> a + "," + b)
+                .orElse("");
+    }
+}
@@ -9,29 +9,35 @@
 package at.tugraz.ist.ase.hiconfit.negator.fm;
 
 import at.tugraz.ist.ase.hiconfit.cacdr_core.Assignment;
-import at.tugraz.ist.ase.hiconfit.cacdr_core.CONNECTION_TYPE;
-import at.tugraz.ist.ase.hiconfit.cacdr_core.ILogOpCreatable;
-import at.tugraz.ist.ase.hiconfit.cacdr_core.LogOpCreator;
-import at.tugraz.ist.ase.hiconfit.common.ChocoSolverUtils;
+import at.tugraz.ist.ase.hiconfit.kb.core.IBoolVarKB;
 import at.tugraz.ist.ase.hiconfit.kb.core.KB;
 import at.tugraz.ist.ase.hiconfit.negator.IAssignmentsNegatable;
+import at.tugraz.ist.ase.hiconfit.negator.NegationCache;
 import lombok.NonNull;
-import lombok.Setter;
 import org.chocosolver.solver.Model;
 import org.chocosolver.solver.constraints.Constraint;
-import org.chocosolver.solver.constraints.nary.cnf.LogOp;
+import org.chocosolver.solver.variables.BoolVar;
 
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * No remove the translated constraints from the Choco model
+ * Negates assignments of Boolean features into a single clause (not a1) or (not a2) or ...,
+ * which is created directly as one Choco constraint, without posting it into the Choco model.
+ * <p>
+ * With x_P the features assigned to false and x_N the features assigned to true, the clause is
+ * sum(x_P) - sum(x_N) >= 1 - |N|, and its negation, i.e., the assignments themselves, is
+ * sum(x_P) - sum(x_N) = -|N|.
+ * <p>
+ * Both forms are cached in a {@link NegationCache} of the last Choco model,
+ * so that negating the same assignments again with this negator creates no constraint.
  */
 public class FMAssignmentsNegator implements IAssignmentsNegatable {
 
-    @Setter
-    private static ILogOpCreatable logOpCreator = new LogOpCreator();
-    private static final CONNECTION_TYPE OR_CONNECTION_TYPE = CONNECTION_TYPE.OR;
+    private record Negation(Constraint clause, Constraint negClause) {}
+
+    private final NegationCache<Negation> cache = new NegationCache<>();
 
     /**
      * Translates {@link Assignment}s to Choco constraints.
@@ -43,36 +49,11 @@ public class FMAssignmentsNegator implements IAssignmentsNegatable {
     @Override
     public void negate(@NonNull List<Assignment> assignments, @NonNull KB kb,
                        @NonNull List<Constraint> chocoCstrs, List<Constraint> negChocoCstrs) {
-        int startIdx = kb.getNumChocoConstraints();
-        Model model = kb.getModelKB();
-
-        // negates the assignments
-        List<Assignment> negAssignments = new LinkedList<>();
-        for (Assignment assignment : assignments) {
-            String neg_value = assignment.getValue().equals("true") ? "false" : "true";
-            negAssignments.add(new Assignment(assignment.getVariable(), neg_value));
-        }
-
-        LogOp logOp = logOpCreator.create(negAssignments, kb, OR_CONNECTION_TYPE);
-        post(logOp, model, chocoCstrs, startIdx);
+        Negation negation = cache.get(kb.getModelKB(), assignments, () -> createNegation(assignments, kb));
 
-        // Negation of the translated constraints
+        chocoCstrs.add(negation.clause());
         if (negChocoCstrs != null) {
-            translateToNegation(logOp, model, negChocoCstrs);
-        }
-    }
-
-    private static void post(LogOp logOp, Model model, List<Constraint> chocoCstrs, int startIdx) {
-        model.addClauses(logOp); // add the translated constraints to the Choco kb
-
-        int endIdx = model.getNbCstrs() - 1;
-        if (startIdx <= endIdx) {
-            List<Constraint> postedCstrs = ChocoSolverUtils.getConstraints(model, startIdx, endIdx);
-
-            chocoCstrs.addAll(postedCstrs);
-
-            // remove the posted constraints from the Choco model
-            postedCstrs.forEach(model::unpost);
+            negChocoCstrs.add(negation.negClause());
         }
     }
 
@@ -86,24 +67,34 @@ public class FMAssignmentsNegator implements IAssignmentsNegatable {
     @Override
     public void negate(@NonNull Assignment assignment, @NonNull KB kb,
                        @NonNull List<Constraint> chocoCstrs, List<Constraint> negChocoCstrs) {
-        int startIdx = kb.getNumChocoConstraints();
-        Model model = kb.getModelKB();
-
-        String neg_value = assignment.getValue().equals("true") ? "false" : "true";
-        Assignment negAssignment = new Assignment(assignment.getVariable(), neg_value);
+        negate(List.of(assignment), kb, chocoCstrs, negChocoCstrs);
+    }
 
-        LogOp logOp = logOpCreator.create(negAssignment, kb, OR_CONNECTION_TYPE);
-        post(logOp, model, chocoCstrs, startIdx);
+    private static Negation createNegation(List<Assignment> assignments, KB kb) {
+        IBoolVarKB boolVarKB = (IBoolVarKB) kb;
+        Model model = kb.getModelKB();
 
-        // Negation of the translated constraints
-        if (negChocoCstrs != null) {
-            translateToNegation(logOp, model, negChocoCstrs);
+        // one literal per variable
+        Map<String, Boolean> values = new LinkedHashMap<>();
+        assignments.forEach(a -> values.put(a.getVariable(), a.getValue().equals("true")));
+
+        BoolVar[] vars = new BoolVar[values.size()];
+        int[] coeffs = new int[values.size()];
+        int numTrue = 0;
+        int i = 0;
+        for (Map.Entry<String, Boolean> entry : values.entrySet()) {
+            vars[i] = boolVarKB.getBoolVar(entry.getKey());
+            if (entry.getValue()) {
+                coeffs[i] = -1; // literal (not x)
+                numTrue++;
+            } else {
+                coeffs[i] = 1;  // literal x
+            }
+            i++;
         }
-    }
 
-    private void translateToNegation(LogOp logOp, Model model, List<Constraint> negChocoCstrs) {
-        int startIdx = model.getNbCstrs();
-        LogOp negLogOp = logOpCreator.createNegation(logOp, OR_CONNECTION_TYPE);
-        post(negLogOp, model, negChocoCstrs, startIdx);
+        Constraint clause = model.scalar(vars, coeffs, ">=", 1 - numTrue);
+        Constraint negClause = model.scalar(vars, coeffs, "=", -numTrue);
+        return new Negation(clause, negClause);
     }
 }
@@ -26,7 +26,9 @@ public class FMSolutionNegator implements ISolutionNegatable {
     protected FMAssignmentsNegator negator = new FMAssignmentsNegator();
 
     /**
-     * Negate an FM solution
+     * Negate an FM solution.
+     * The Choco constraints are created by {@link FMAssignmentsNegator}, hence they are not posted
+     * into the Choco model, and the same solution negated again reuses them.
      */
     @Override
     public Constraint negate(@NonNull Solution solution, @NonNull KB kb) {
@@ -48,10 +50,6 @@ public class FMSolutionNegator implements ISolutionNegatable {
         constraint.getChocoConstraints().forEach(solution::addChocoConstraint);
         constraint.getNegChocoConstraints().forEach(solution::addNegChocoConstraint);
 
-        // remove the translated constraints from the Choco model
-        // TODO - should move out to the configurator class
-//        kb.getModelKB().unpost(kb.getModelKB().getCstrs());
-
         log.debug("{}Translated solution [solution={}] >>>", LoggerUtils.tab(), solution);
         return constraint;
     }
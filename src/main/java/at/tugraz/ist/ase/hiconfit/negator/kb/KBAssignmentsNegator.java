@@ -9,23 +9,37 @@
 package at.tugraz.ist.ase.hiconfit.negator.kb;
 
 import at.tugraz.ist.ase.hiconfit.cacdr_core.Assignment;
-import at.tugraz.ist.ase.hiconfit.common.ChocoSolverUtils;
 import at.tugraz.ist.ase.hiconfit.kb.core.IIntVarKB;
 import at.tugraz.ist.ase.hiconfit.kb.core.KB;
 import at.tugraz.ist.ase.hiconfit.negator.IAssignmentsNegatable;
+import at.tugraz.ist.ase.hiconfit.negator.NegationCache;
 import com.google.common.base.Preconditions;
 import lombok.NonNull;
 import org.chocosolver.solver.Model;
 import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.constraints.extension.Tuples;
 import org.chocosolver.solver.variables.IntVar;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * DON'T remove the translated constraints from the Choco model
+ * Negates assignments of an {@link IIntVarKB} into the disjunction (var1 != v1) or (var2 != v2) or ...,
+ * which holds for domains of any size.
+ * <p>
+ * The disjunction is created directly as one Choco constraint, without posting it into the Choco model:
+ * + a single assignment becomes arithm(var, "!=", v), and its negation arithm(var, "=", v);
+ * + several assignments become a table constraint forbidding the tuple (v1, v2, ...),
+ * and its negation a table constraint allowing only this tuple.
+ * Both forms are cached in a {@link NegationCache} of the last Choco model.
  */
 public class KBAssignmentsNegator implements IAssignmentsNegatable {
 
+    private record Negation(Constraint disjunction, Constraint negDisjunction) {}
+
+    private final NegationCache<Negation> cache = new NegationCache<>();
+
     /**
      * Translates {@link Assignment}s to Choco constraints.
      * @param assignments the {@link Assignment}s to translate
@@ -38,28 +52,14 @@ public class KBAssignmentsNegator implements IAssignmentsNegatable {
         // check if the KB is a IIntVarKB
         Preconditions.checkArgument(kb instanceof IIntVarKB, "The KB must be a IIntVarKB");
 
-        int startIdx = kb.getNumChocoConstraints();
-        createNegateAndPost(assignments, kb);
-
-        afterPostingAndUnpost(chocoCstrs, kb, startIdx);
-
-        // TODO - negation
-        // Negation of the translated constraints
-//        if (negChocoCstrs != null) {
-//            translateToNegation(logOp, model, negChocoCstrs);
-//        }
-    }
-
-    private static void afterPostingAndUnpost(List<Constraint> chocoCstrs, KB kb, int startIdx) {
-        Model model = kb.getModelKB();
-
-        int endIdx = model.getNbCstrs() - 1;
-        if (startIdx <= endIdx) {
-            List<Constraint> postedCstrs = ChocoSolverUtils.getConstraints(model, startIdx, endIdx);
-            chocoCstrs.addAll(postedCstrs);
+        Negation negation = cache.get(kb.getModelKB(), assignments, () -> createNegation(assignments, kb));
+        if (negation == null) {
+            return; // no valid assignment
+        }
 
-            // remove the posted constraints from the Choco model
-            postedCstrs.forEach(model::unpost);
+        chocoCstrs.add(negation.disjunction());
+        if (negChocoCstrs != null) {
+            negChocoCstrs.add(negation.negDisjunction());
         }
     }
 
@@ -72,55 +72,51 @@ public class KBAssignmentsNegator implements IAssignmentsNegatable {
      */
     @Override
     public void negate(@NonNull Assignment assignment, @NonNull KB kb, @NonNull List<Constraint> chocoCstrs, List<Constraint> negChocoCstrs) {
-        // check if the KB is a IIntVarKB
-        Preconditions.checkArgument(kb instanceof IIntVarKB, "The KB must be a IIntVarKB");
-
-        int startIdx = kb.getNumChocoConstraints();
-        createNegateAndPost(assignment, kb); // add the translated constraints to the Choco model
-
-        afterPostingAndUnpost(chocoCstrs, kb, startIdx);
-
-        // TODO - negation
-        // Negation of the translated constraints
-//        if (negChocoCstrs != null) {
-//            translateToNegation(logOp, model, negChocoCstrs);
-//        }
+        negate(List.of(assignment), kb, chocoCstrs, negChocoCstrs);
     }
 
-    private boolean isCorrectAssignment(String varName, IntVar var, String value, int chocoValue) {
+    private boolean isCorrectAssignment(IntVar var, String value, int chocoValue) {
         return var != null && (!value.equals("NULL"))
                 && (chocoValue != -1);
     }
 
-    private void createNegateAndPost(@NonNull List<Assignment> assignments, @NonNull KB kb) {
-        for (Assignment assign: assignments) {
-            createNegateAndPost(assign, kb);
+    /**
+     * @return the negation of the valid assignments, or null if there is no valid assignment
+     */
+    private Negation createNegation(List<Assignment> assignments, KB kb) {
+        IIntVarKB intVarKB = (IIntVarKB) kb;
+        Model model = kb.getModelKB();
+
+        // one value per variable
+        Map<IntVar, Integer> values = new LinkedHashMap<>();
+        for (Assignment assignment : assignments) {
+            String varName = assignment.getVariable();
+            IntVar var = intVarKB.getIntVar(varName);
+            String value = assignment.getValue();
+            int chocoValue = intVarKB.getIntValue(varName, value);
+
+            if (isCorrectAssignment(var, value, chocoValue)) {
+                values.put(var, chocoValue);
+            }
+        }
+
+        if (values.isEmpty()) {
+            return null;
+        }
+        if (values.size() == 1) {
+            Map.Entry<IntVar, Integer> entry = values.entrySet().iterator().next();
+            return new Negation(model.arithm(entry.getKey(), "!=", entry.getValue()),
+                                model.arithm(entry.getKey(), "=", entry.getValue()));
         }
-    }
 
-    private void createNegateAndPost(@NonNull Assignment assignment, @NonNull KB kb) {
-        String varName = assignment.getVariable();
-        IntVar var = ((IIntVarKB)kb).getIntVar(varName);
-        String value = assignment.getValue();
-        int chocoValue = ((IIntVarKB)kb).getIntValue(varName, value);
+        IntVar[] vars = values.keySet().toArray(IntVar[]::new);
+        int[] tuple = values.values().stream().mapToInt(Integer::intValue).toArray();
 
-        if (isCorrectAssignment(varName, var, value, chocoValue)) {
-            // negate
-            chocoValue = (chocoValue == 0) ? 1 : 0;
+        Tuples forbidden = new Tuples(false);
+        forbidden.add(tuple);
+        Tuples allowed = new Tuples(true);
+        allowed.add(tuple);
 
-            kb.getModelKB().arithm(var, "=", chocoValue).post();
-        }
+        return new Negation(model.table(vars, forbidden), model.table(vars, allowed));
     }
-
-//    private void translateToNegation(LogOp logOp, Model model, List<Constraint> negChocoCstrs) {
-//        LogOp negLogOp = createNegation(logOp);
-//        int startIdx = model.getNbCstrs();
-//        model.addClauses(negLogOp);
-//
-//        negChocoCstrs.addAll(ChocoSolverUtils.getConstraints(model, startIdx, model.getNbCstrs() - 1));
-//    }
-//
-//    public LogOp createNegation(@NonNull LogOp logOp) {
-//        return LogOp.nand(logOp);
-//    }
 }
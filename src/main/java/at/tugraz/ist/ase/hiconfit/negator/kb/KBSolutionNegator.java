@@ -50,10 +50,6 @@ public class KBSolutionNegator implements ISolutionNegatable {
         constraint.getChocoConstraints().forEach(solution::addChocoConstraint);
         constraint.getNegChocoConstraints().forEach(solution::addNegChocoConstraint);
 
-        // remove the translated constraints from the Choco model
-        // TODO - should move out to the configurator class
-//        kb.getModelKB().unpost(kb.getModelKB().getCstrs());
-
         log.debug("{}Translated solution [solution={}] >>>", LoggerUtils.tab(), solution);
         return constraint;
     }
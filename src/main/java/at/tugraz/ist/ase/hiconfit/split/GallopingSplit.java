@@ -0,0 +1,37 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.split;
+
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+
+import java.util.Set;
+
+/**
+ * Galloping probes from the end of C, in the style of progressive QuickXPlain:
+ * C2 has 2^depth constraints, at most q/2.
+ * <p>
+ * Along the left branches, B grows by the probes 1, 2, 4, ... of the last constraints,
+ * and the rest of C is discarded by one check as soon as B covers the explanation.
+ * Hence, an explanation within the last m constraints is reached after O(log m) instead of O(log q) checks.
+ * Deeper sets are split in halves, since 2^depth exceeds their half.
+ */
+public class GallopingSplit implements SplitStrategy {
+
+    @Override
+    public void split(Set<Constraint> C, Set<Constraint> C1, Set<Constraint> C2, int depth) {
+        int q = C.size();
+        int probe = depth < 30 ? Math.min(1 << depth, q / 2) : q / 2;
+        SplitStrategy.splitAt(C, q - Math.max(1, probe), C1, C2);
+    }
+
+    @Override
+    public String getName() {
+        return GALLOPING;
+    }
+}
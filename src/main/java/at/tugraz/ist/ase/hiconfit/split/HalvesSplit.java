@@ -0,0 +1,30 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.split;
+
+import at.tugraz.ist.ase.hiconfit.common.ConstraintUtils;
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+
+import java.util.Set;
+
+/**
+ * The split of the original CXP: k = q/2.
+ */
+public class HalvesSplit implements SplitStrategy {
+
+    @Override
+    public void split(Set<Constraint> C, Set<Constraint> C1, Set<Constraint> C2, int depth) {
+        ConstraintUtils.split(C, C1, C2);
+    }
+
+    @Override
+    public String getName() {
+        return HALVES;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.split;
+
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import lombok.Getter;
+
+import java.util.Set;
+
+/**
+ * Learns the split point of the whole consideration set from past explanations:
+ * the relative position of the first explanation constraint in C is averaged
+ * with an exponentially weighted moving average, and C1 gets the constraints before this position,
+ * less a margin. If the next explanation starts after this point too, C1 is discarded by one check.
+ * <p>
+ * Deeper sets, and the whole set before the first explanation, are split in halves.
+ * Since C keeps the order CONF, REQ, KB, the positions are stable for the SCONFs of one feature model.
+ */
+public class LearnedSplit implements SplitStrategy {
+
+    public static final double DEFAULT_ALPHA = 0.2;
+    public static final double DEFAULT_MARGIN = 0.05;
+
+    private final double alpha;
+    private final double margin;
+
+    @Getter
+    private double position = -1; // the average relative position of the first explanation constraint, -1 - unknown
+    @Getter
+    private int samples;
+
+    public LearnedSplit() {
+        this(DEFAULT_ALPHA, DEFAULT_MARGIN);
+    }
+
+    public LearnedSplit(double alpha, double margin) {
+        this.alpha = alpha;
+        this.margin = margin;
+    }
+
+    @Override
+    public void split(Set<Constraint> C, Set<Constraint> C1, Set<Constraint> C2, int depth) {
+        int q = C.size();
+        int k = q / 2;
+        if (depth == 0 && position >= 0) {
+            k = Math.max(1, Math.min(q - 1, (int) (q * (position - margin))));
+        }
+        SplitStrategy.splitAt(C, k, C1, C2);
+    }
+
+    @Override
+    public void learn(Set<Constraint> C, Set<Constraint> explanation) {
+        if (C.isEmpty() || explanation.isEmpty()) {
+            return;
+        }
+
+        int index = 0;
+        for (Constraint c : C) {
+            if (explanation.contains(c)) {
+                break;
+            }
+            index++;
+        }
+        double first = (double) index / C.size();
+        position = position < 0 ? first : alpha * first + (1 - alpha) * position;
+        samples++;
+    }
+
+    @Override
+    public String getName() {
+        return LEARNED;
+    }
+}
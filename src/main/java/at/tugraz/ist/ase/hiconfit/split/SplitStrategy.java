@@ -0,0 +1,77 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.split;
+
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import lombok.NonNull;
+
+import java.util.Iterator;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Splits the consideration set C of CXP into C1 = {c1..ck} and C2 = {ck+1..cq}.
+ * <p>
+ * CXP is correct for every 1 <= k < q, but the number of consistency checks depends on k:
+ * CXP(C2, C1, B ∪ C2) discards C1 with one check if B ∪ C2 is already inconsistent.
+ * Hence, a small C2 covering the explanation saves the checks of exploring C1.
+ * <p>
+ * Different strategies may return different minimal explanations if several explanations exist.
+ * A strategy belongs to one CXPlain, and is not shared by concurrent threads.
+ */
+public interface SplitStrategy {
+
+    String HALVES = "halves";
+    String GALLOPING = "galloping";
+    String LEARNED = "learned";
+
+    /**
+     * @param C the consideration set, with at least 2 constraints
+     * @param C1 receives the first part of C
+     * @param C2 receives the second part of C
+     * @param depth the depth of the CXP call, 0 for the call on the whole consideration set
+     */
+    void split(Set<Constraint> C, Set<Constraint> C1, Set<Constraint> C2, int depth);
+
+    /**
+     * Called by {@link at.tugraz.ist.ase.hiconfit.CXPlain#findExplanation} with the whole consideration set
+     * CONF ∪ REQ ∪ KB and the explanation found in it, but not for the CXP calls on parts of it,
+     * e.g., the regions of {@link at.tugraz.ist.ase.hiconfit.IncrementalCXPlain}.
+     */
+    default void learn(Set<Constraint> C, Set<Constraint> explanation) {
+    }
+
+    String getName();
+
+    /**
+     * @param name halves, galloping, or learned
+     */
+    static SplitStrategy of(@NonNull String name) {
+        return switch (name.toLowerCase()) {
+            case HALVES -> new HalvesSplit();
+            case GALLOPING -> new GallopingSplit();
+            case LEARNED -> new LearnedSplit();
+            default -> throw new IllegalArgumentException("Unknown split strategy " + name);
+        };
+    }
+
+    /**
+     * Puts the first k constraints of C into C1, and the others into C2.
+     */
+    static void splitAt(Set<Constraint> C, int k, Set<Constraint> C1, Set<Constraint> C2) {
+        checkArgument(k > 0 && k < C.size(), "k must be in [1, |C| - 1]");
+
+        Iterator<Constraint> iterator = C.iterator();
+        for (int i = 0; i < k; i++) {
+            C1.add(iterator.next());
+        }
+        iterator.forEachRemaining(C2::add);
+    }
+}
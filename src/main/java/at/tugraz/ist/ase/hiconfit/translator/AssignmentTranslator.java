@@ -0,0 +1,87 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.translator;
+
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Assignment;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Solution;
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import at.tugraz.ist.ase.hiconfit.kb.core.IBoolVarKB;
+import at.tugraz.ist.ase.hiconfit.kb.core.IIntVarKB;
+import at.tugraz.ist.ase.hiconfit.kb.core.KB;
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.variables.IntVar;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Translates assignments into constraints named "var=value", each one with the Choco constraint
+ * arithm(var, "=", value) and the negative Choco constraint arithm(var, "!=", value).
+ * <p>
+ * Choco constraints are only created, never posted into the Choco model of the KB,
+ * and no state is shared among calls. Hence, models for different requests can be
+ * built concurrently, as long as each thread uses its own KB.
+ * Invalid assignments, i.e., of unknown variables or values, are skipped.
+ */
+@UtilityClass
+public class AssignmentTranslator {
+
+    public List<Constraint> translateToList(@NonNull Solution solution, @NonNull KB kb) {
+        return translateToList(solution.getAssignments(), kb);
+    }
+
+    public List<Constraint> translateToList(@NonNull List<Assignment> assignments, @NonNull KB kb) {
+        checkArgument(kb instanceof IBoolVarKB || kb instanceof IIntVarKB, "The KB must be a IBoolVarKB or a IIntVarKB");
+
+        List<Constraint> constraints = new ArrayList<>(assignments.size());
+        for (Assignment assignment : assignments) {
+            Constraint constraint = translate(assignment, kb);
+            if (constraint != null) {
+                constraints.add(constraint);
+            }
+        }
+        return constraints;
+    }
+
+    /**
+     * @return the constraint "var=value", or null if the assignment is invalid
+     */
+    public Constraint translate(@NonNull Assignment assignment, @NonNull KB kb) {
+        String varName = assignment.getVariable();
+        String value = assignment.getValue();
+
+        IntVar var;
+        int chocoValue;
+        if (kb instanceof IBoolVarKB boolVarKB) {
+            var = boolVarKB.getBoolVar(varName);
+            chocoValue = switch (value) {
+                case "true" -> 1;
+                case "false" -> 0;
+                default -> -1;
+            };
+        } else {
+            IIntVarKB intVarKB = (IIntVarKB) kb;
+            var = intVarKB.getIntVar(varName);
+            chocoValue = value.equals("NULL") ? -1 : intVarKB.getIntValue(varName, value);
+        }
+        if (var == null || chocoValue == -1) {
+            return null;
+        }
+
+        Model model = kb.getModelKB();
+        Constraint constraint = new Constraint(varName + "=" + value, List.of(varName));
+        constraint.getChocoConstraints().add(model.arithm(var, "=", chocoValue));
+        constraint.getNegChocoConstraints().add(model.arithm(var, "!=", chocoValue));
+        return constraint;
+    }
+}
@@ -0,0 +1,372 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.verify;
+
+import at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Assignment;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Requirement;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Solution;
+import at.tugraz.ist.ase.hiconfit.fm.FMCausalExplanationInstance;
+import at.tugraz.ist.ase.hiconfit.fm.FMCausalExplanationTemplate;
+import at.tugraz.ist.ase.hiconfit.fm.core.AbstractRelationship;
+import at.tugraz.ist.ase.hiconfit.fm.core.CTConstraint;
+import at.tugraz.ist.ase.hiconfit.fm.core.Feature;
+import at.tugraz.ist.ase.hiconfit.fm.core.FeatureModel;
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import com.google.common.collect.Sets;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.Solver;
+
+import java.io.Closeable;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Verifies a sample of the explanations of a feature model in the background:
+ * + sufficiency - EXP ∪ NSCONF is inconsistent;
+ * + minimality - EXP \ {c} ∪ NSCONF is consistent for every c in EXP.
+ * <p>
+ * The |EXP| + 1 checks of an explanation are independent tasks, which run in parallel
+ * on a pool of workers. Each worker keeps its own {@link FMCausalExplanationTemplate}s of the recent configurations,
+ * and maps the explanation by the names of its constraints to its own model.
+ * Hence, verification never shares a Choco model with the explaining threads.
+ * Its checks are counted by {@link #getChecks()} only, not by the counters of CAEvaluator.
+ * <p>
+ * {@link #submit} returns immediately. Explanations are dropped instead of queued
+ * when the queue is full, so that verification never slows down the explaining threads.
+ * Results are counters and a report of the first #MAX_REPORTED_FAILURES failures.
+ * An explanation is incomplete if some of its checks did not run, because the queue filled up
+ * while they were submitted or a check threw an exception. Failures found by its other checks are still reported.
+ */
+@Slf4j
+public class ExplanationVerifier implements Closeable {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 4096;
+    public static final int MAX_REPORTED_FAILURES = 100;
+    public static final int MAX_TEMPLATES_PER_WORKER = 8;
+
+    public enum FailureKind { NOT_SUFFICIENT, NOT_MINIMAL, UNKNOWN_CONSTRAINT }
+
+    /**
+     * @param constraint the redundant constraint for NOT_MINIMAL, the missing one for UNKNOWN_CONSTRAINT
+     */
+    public record Failure(FailureKind kind, List<Assignment> SCONF, List<String> explanation, String constraint) {
+        @Override
+        public String toString() {
+            return kind + " SCONF=" + SCONF + " EXP=" + explanation + (constraint != null ? " constraint=" + constraint : "");
+        }
+    }
+
+    /**
+     * An explanation under verification, whose checks are done by several workers
+     */
+    private record Job(Requirement requirement, Solution configuration, Requirement SCONF, List<String> explanation,
+                       AtomicInteger remaining, AtomicBoolean failed, AtomicBoolean incomplete) {}
+
+    private final FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> fm;
+    private final double sampleRate;
+    private final ThreadPoolExecutor executor;
+    private final Map<Thread, Worker> workers = new ConcurrentHashMap<>();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder sampled = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder verified = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder incomplete = new LongAdder();
+    private final LongAdder insufficient = new LongAdder();
+    private final LongAdder nonMinimal = new LongAdder();
+    private final Queue<Failure> failures = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger numReportedFailures = new AtomicInteger();
+
+    /**
+     * @param sampleRate the share of the submitted explanations to verify, in [0, 1]
+     * @param numThreads the number of workers
+     */
+    public ExplanationVerifier(@NonNull FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> fm,
+                               double sampleRate, int numThreads) {
+        this(fm, sampleRate, numThreads, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public ExplanationVerifier(@NonNull FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> fm,
+                               double sampleRate, int numThreads, int queueCapacity) {
+        checkArgument(sampleRate >= 0 && sampleRate <= 1, "sampleRate must be in [0, 1]");
+        checkArgument(numThreads > 0, "numThreads must be positive");
+        checkArgument(queueCapacity > 0, "queueCapacity must be positive");
+
+        this.fm = fm;
+        this.sampleRate = sampleRate;
+        this.executor = new ThreadPoolExecutor(numThreads, numThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Submits an explanation for verification, if it is sampled.
+     * Empty explanations (no explanation possible) are not verified.
+     *
+     * @return true if the explanation is queued for verification
+     */
+    public boolean submit(@NonNull Requirement requirement, @NonNull Solution configuration,
+                          @NonNull Requirement SCONF, @NonNull Set<Constraint> explanation) {
+        submitted.increment();
+        if (explanation.isEmpty() || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return false;
+        }
+
+        List<String> names = explanation.stream().map(Constraint::getConstraint).toList();
+        if (executor.getQueue().remainingCapacity() < names.size() + 1) {
+            dropped.increment();
+            return false;
+        }
+        sampled.increment();
+
+        Job job = new Job(requirement, configuration, SCONF, names, new AtomicInteger(names.size() + 1),
+                new AtomicBoolean(), new AtomicBoolean());
+        // -1 - sufficiency, i - minimality without the i-th constraint
+        for (int index = -1; index < names.size(); index++) {
+            int i = index;
+            try {
+                executor.execute(() -> check(job, i));
+            } catch (RejectedExecutionException e) {
+                // the queue filled up meanwhile, the checks from i on are skipped
+                job.incomplete().set(true);
+                done(job, names.size() - i);
+                return true;
+            }
+        }
+        return true;
+    }
+
+    private void check(Job job, int index) {
+        try {
+            Worker worker = workers.computeIfAbsent(Thread.currentThread(), t -> new Worker());
+            Failure failure = worker.check(job, index);
+            checks.increment();
+
+            if (failure != null && !job.failed().getAndSet(true)) {
+                failed.increment();
+                switch (failure.kind()) {
+                    case NOT_SUFFICIENT -> insufficient.increment();
+                    case NOT_MINIMAL -> nonMinimal.increment();
+                    default -> { }
+                }
+                if (numReportedFailures.getAndIncrement() < MAX_REPORTED_FAILURES) {
+                    failures.add(failure);
+                }
+                log.warn("Explanation verification failed: {}", failure);
+            }
+        } catch (RuntimeException e) {
+            log.error("Cannot verify the explanation {} of {}", job.explanation(), job.SCONF(), e);
+            job.incomplete().set(true);
+        } finally {
+            done(job, 1);
+        }
+    }
+
+    /**
+     * Counts the job once its last check is done or skipped.
+     * @param numChecks the number of checks, which are done or skipped
+     */
+    private void done(Job job, int numChecks) {
+        if (job.remaining().addAndGet(-numChecks) == 0 && !job.failed().get()) {
+            if (job.incomplete().get()) {
+                incomplete.increment();
+            } else {
+                verified.increment();
+            }
+        }
+    }
+
+    /**
+     * A (requirement, configuration) of the submitted explanations, compared by identity
+     */
+    private record TemplateKey(Requirement requirement, Solution configuration) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof TemplateKey k && k.requirement == requirement && k.configuration == configuration;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(requirement) + System.identityHashCode(configuration);
+        }
+    }
+
+    /**
+     * A template, its constraints by name, and the instance of its last SCONF
+     */
+    private class TemplateEntry {
+        private final FMCausalExplanationTemplate<Feature, AbstractRelationship<Feature>, CTConstraint> template;
+        private final Map<String, Constraint> constraints = new HashMap<>();
+
+        private Requirement SCONF;
+        private FMCausalExplanationInstance<Feature, AbstractRelationship<Feature>, CTConstraint> instance;
+
+        TemplateEntry(TemplateKey key) {
+            template = new FMCausalExplanationTemplate<>(fm, key.requirement(), key.configuration());
+            for (Set<Constraint> set : List.of(template.getCONF(), template.getREQ(), template.getCF())) {
+                set.forEach(c -> constraints.putIfAbsent(c.getConstraint(), c));
+            }
+        }
+
+        FMCausalExplanationInstance<Feature, AbstractRelationship<Feature>, CTConstraint> instantiate(Requirement SCONF) {
+            if (SCONF != this.SCONF) {
+                this.SCONF = SCONF;
+                instance = template.instantiate(SCONF);
+            }
+            return instance;
+        }
+    }
+
+    /**
+     * The templates of the last #MAX_TEMPLATES_PER_WORKER configurations of one worker thread.
+     * Since the checks of an explanation are spread over all workers, and explaining threads
+     * submit explanations of different configurations, a worker alternates between configurations.
+     */
+    private class Worker {
+        private final LinkedHashMap<TemplateKey, TemplateEntry> templates = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<TemplateKey, TemplateEntry> eldest) {
+                if (size() > MAX_TEMPLATES_PER_WORKER) {
+                    eldest.getValue().template.dispose();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        Failure check(Job job, int index) {
+            TemplateEntry entry = templates.computeIfAbsent(new TemplateKey(job.requirement(), job.configuration()), TemplateEntry::new);
+            val instance = entry.instantiate(job.SCONF());
+            List<Assignment> SCONF = job.SCONF().getAssignments();
+
+            Set<Constraint> B = new LinkedHashSet<>();
+            for (int i = 0; i < job.explanation().size(); i++) {
+                String name = job.explanation().get(i);
+                Constraint constraint = entry.constraints.get(name);
+                if (constraint == null) {
+                    return new Failure(FailureKind.UNKNOWN_CONSTRAINT, SCONF, job.explanation(), name);
+                }
+                if (i != index) {
+                    B.add(constraint);
+                }
+            }
+
+            boolean consistent = isConsistent(entry.template.getModel().getModel(), Sets.union(B, instance.getNSCONF()));
+            if (index < 0 && consistent) {
+                return new Failure(FailureKind.NOT_SUFFICIENT, SCONF, job.explanation(), null);
+            }
+            if (index >= 0 && !consistent) {
+                return new Failure(FailureKind.NOT_MINIMAL, SCONF, job.explanation(), job.explanation().get(index));
+            }
+            return null;
+        }
+
+        /**
+         * A check like the one of {@link ChocoConsistencyChecker}, which does not update
+         * the counters and timers of CAEvaluator, since they measure the explaining threads.
+         */
+        private boolean isConsistent(Model model, Set<Constraint> C) {
+            List<org.chocosolver.solver.constraints.Constraint> posted = new ArrayList<>();
+            C.forEach(c -> posted.addAll(c.getChocoConstraints()));
+
+            Solver solver = model.getSolver();
+            try {
+                posted.forEach(model::post);
+                return solver.solve();
+            } finally {
+                solver.reset();
+                posted.forEach(model::unpost);
+            }
+        }
+
+        void dispose() {
+            templates.values().forEach(e -> e.template.dispose());
+            templates.clear();
+        }
+    }
+
+    /**
+     * Waits until all queued checks are done, and stops the workers.
+     * Counters and failures stay available after closing.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.HOURS)) {
+                log.warn("Explanation verification did not terminate");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            workers.values().forEach(Worker::dispose);
+        }
+    }
+
+    public long getSubmitted() {
+        return submitted.sum();
+    }
+
+    public long getSampled() {
+        return sampled.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getChecks() {
+        return checks.sum();
+    }
+
+    public long getVerified() {
+        return verified.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public long getIncomplete() {
+        return incomplete.sum();
+    }
+
+    public long getInsufficient() {
+        return insufficient.sum();
+    }
+
+    public long getNonMinimal() {
+        return nonMinimal.sum();
+    }
+
+    public List<Failure> getFailures() {
+        return List.copyOf(failures);
+    }
+
+    /**
+     * @return the counters and the reported failures, one per line
+     */
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Verification: %d submitted, %d sampled, %d dropped, %d checks, %d verified, %d failed (%d not sufficient, %d not minimal), %d incomplete",
+                getSubmitted(), getSampled(), getDropped(), getChecks(), getVerified(), getFailed(), getInsufficient(), getNonMinimal(), getIncomplete()));
+        failures.forEach(f -> report.append("\n\t").append(f));
+        return report.toString();
+    }
+}
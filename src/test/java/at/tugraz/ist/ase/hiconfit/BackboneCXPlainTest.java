@@ -0,0 +1,51 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit;
+
+import at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.builder.RequirementBuilder;
+import at.tugraz.ist.ase.hiconfit.fm.Backbone;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackboneCXPlainTest {
+
+    @Test
+    void testBackboneCXPlain() {
+        val fm = SurveyFM.create();
+
+        // survey, pay and qa are core features, there are no dead features
+        val backbone = Backbone.compute(fm, "survey");
+        assertEquals(3, backbone.getLiterals().size());
+        assertEquals(List.of("mandatory(survey, pay)", "survey = true"), backbone.get("pay").support());
+        assertNull(backbone.get("license"));
+
+        val builder = new RequirementBuilder();
+        val template = SurveyFM.template(fm);
+        val cxPlain = new BackboneCXPlain(new ChocoConsistencyChecker(template.getModel()), backbone);
+
+        // pay=true is explained by its support, without counted checks as CXPlain
+        val instance1 = template.instantiate(builder.build("pay=true"));
+        CAEvaluator.reset();
+        val explanation1 = cxPlain.findExplanation(instance1.getSCONF(), instance1.getREQ(), instance1.getCF(), instance1.getCONF(), instance1.getNSCONF());
+        assertEquals("[mandatory(survey, pay), survey = true]", explanation1.toString());
+        assertEquals(1, CAEvaluator.getCounter(BackboneCXPlain.COUNTER_BACKBONE_EXPLANATIONS).getValue());
+        assertEquals(0, CAEvaluator.getCounter(CAEvaluator.COUNTER_CONSISTENCY_CHECKS).getValue());
+
+        // multiplechoice=true is not a backbone literal, and is explained by CXPlain as in FMCausalExplanationTemplateTest
+        val instance2 = template.instantiate(builder.build("multiplechoice=true"));
+        val explanation2 = cxPlain.findExplanation(instance2.getSCONF(), instance2.getREQ(), instance2.getCF(), instance2.getCONF(), instance2.getNSCONF());
+        assertEquals("[multiplemedia=false, or(qa, multiplechoice, multiplemedia), mandatory(survey, qa), survey = true]", explanation2.toString());
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit;
+
+import at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.builder.RequirementBuilder;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchCXPlainTest {
+
+    @Test
+    void testBatchCXPlain() throws InterruptedException {
+        val fm = SurveyFM.create();
+
+        val builder = new RequirementBuilder();
+        val userRequirement = builder.build(SurveyFM.REQUIREMENT);
+        val configuration = builder.build(SurveyFM.CONFIGURATION);
+
+        CAEvaluator.reset();
+        val explanations = new BatchCXPlain<>(fm, 2).explainAll(userRequirement, configuration);
+
+        // the same explanations as independent CXPlain calls
+        val template = SurveyFM.template(fm);
+        val cxPlain = new CXPlain(new ChocoConsistencyChecker(template.getModel()));
+
+        assertEquals(configuration.getAssignments().size(), explanations.size());
+        explanations.forEach((assignment, explanation) -> {
+            val instance = template.instantiate(builder.build(assignment.getVariable() + "=" + assignment.getValue()));
+            val expected = cxPlain.findExplanation(instance.getREQ(), instance.getCF(), instance.getCONF(), instance.getNSCONF());
+
+            assertEquals(expected.toString(), explanation.toString());
+        });
+
+        // one thread explains in the calling thread
+        assertEquals(explanations.toString(), new BatchCXPlain<>(fm, 1).explainAll(userRequirement, configuration).toString());
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit;
+
+import at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Requirement;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.builder.RequirementBuilder;
+import at.tugraz.ist.ase.hiconfit.fm.FMCausalExplanationTemplate;
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecomposingCXPlainTest {
+
+    @Test
+    void testDecomposingCXPlain() {
+        val fm = SurveyFM.create();
+
+        val builder = new RequirementBuilder();
+        val template = SurveyFM.template(fm);
+        val cxPlain = new DecomposingCXPlain(new ChocoConsistencyChecker(template.getModel()));
+
+        // qa and multiplemedia are assigned by the configuration, and cut the paths to the root
+        val instance = template.instantiate(builder.build("multiplechoice=true"));
+        CAEvaluator.reset();
+        val explanation = cxPlain.findExplanation(instance.getREQ(), instance.getCF(), instance.getCONF(), instance.getNSCONF());
+
+        assertEquals(Set.of("qa=true", "multiplemedia=false", "or(qa, multiplechoice, multiplemedia)"),
+                explanation.stream().map(Constraint::getConstraint).collect(Collectors.toSet()));
+        assertEquals(3, cxPlain.getLastComponentSize());
+        assertTrue(cxPlain.getLastNumConstraints() > cxPlain.getLastComponentSize());
+        assertTrue(cxPlain.getLastNumComponents() > 1);
+    }
+
+    @Test
+    void testDecomposingCXPlainWithViews() {
+        val fm = SurveyFM.createExcludes();
+
+        val builder = new RequirementBuilder();
+        val userRequirement = Requirement.requirementBuilder().assignments(List.of()).build();
+        val template = new FMCausalExplanationTemplate<>(fm, userRequirement, builder.build(SurveyFM.EXCLUDES_CONFIGURATION));
+        val checker = new ChocoConsistencyChecker(template.getModel());
+        val instance = template.instantiate(builder.build("nonlicense=false"));
+
+        val expected = new CXPlain(checker).findExplanation(instance.getREQ(), instance.getCF(), instance.getCONF(), instance.getNSCONF());
+        val explanation = new DecomposingCXPlain(checker).findExplanation(instance.getREQ(), instance.getCF(), instance.getCONF(), instance.getNSCONF());
+
+        assertEquals(Set.of("ABtesting=true", "excludes(ABtesting, nonlicense)"),
+                expected.stream().map(Constraint::getConstraint).collect(Collectors.toSet()));
+        assertEquals(expected.stream().map(Constraint::getConstraint).collect(Collectors.toSet()),
+                explanation.stream().map(Constraint::getConstraint).collect(Collectors.toSet()));
+    }
+}
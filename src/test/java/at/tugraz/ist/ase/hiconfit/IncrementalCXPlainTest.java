@@ -0,0 +1,93 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit;
+
+import at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.builder.RequirementBuilder;
+import at.tugraz.ist.ase.hiconfit.fm.FMCausalExplanationTemplate;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalCXPlainTest {
+
+    @Test
+    void testIncrementalCXPlain() {
+        val fm = SurveyFM.create();
+
+        val builder = new RequirementBuilder();
+        val userRequirement = builder.build(SurveyFM.REQUIREMENT);
+        val template = SurveyFM.template(fm);
+        val cxPlain = new CXPlain(new ChocoConsistencyChecker(template.getModel()));
+
+        // the configuration changes to multiplemedia=true
+        val delta = builder.build("multiplemedia=true").getAssignments();
+        val changed = new FMCausalExplanationTemplate<>(fm, userRequirement,
+                builder.build(SurveyFM.CONFIGURATION.replace("multiplemedia=false", "multiplemedia=true")));
+        val checker = new ChocoConsistencyChecker(changed.getModel());
+
+        // multiplemedia does not occur in the explanation of license=true, which is reused after one check
+        val sconf1 = builder.build("license=true");
+        val instance1 = template.instantiate(sconf1);
+        val previous1 = cxPlain.findExplanation(instance1.getREQ(), instance1.getCF(), instance1.getCONF(), instance1.getNSCONF());
+
+        val changed1 = changed.instantiate(sconf1);
+        CAEvaluator.reset();
+        val explanation1 = new IncrementalCXPlain(checker)
+                .findExplanation(previous1, delta, changed1.getREQ(), changed1.getCF(), changed1.getCONF(), changed1.getNSCONF());
+
+        assertEquals(previous1.toString(), explanation1.toString());
+        assertEquals(1, CAEvaluator.getCounter(CAEvaluator.COUNTER_CONSISTENCY_CHECKS).getValue());
+
+        // multiplemedia=false occurs in the explanation of multiplechoice=true, which is searched again
+        val sconf2 = builder.build("multiplechoice=true");
+        val instance2 = template.instantiate(sconf2);
+        val previous2 = cxPlain.findExplanation(instance2.getREQ(), instance2.getCF(), instance2.getCONF(), instance2.getNSCONF());
+
+        val changed2 = changed.instantiate(sconf2);
+        val explanation2 = new IncrementalCXPlain(checker)
+                .findExplanation(previous2, delta, changed2.getREQ(), changed2.getCF(), changed2.getCONF(), changed2.getNSCONF());
+        val fresh = new CXPlain(checker)
+                .findExplanation(changed2.getREQ(), changed2.getCF(), changed2.getCONF(), changed2.getNSCONF());
+
+        assertEquals("[multiplechoice=true]", explanation2.toString());
+        assertEquals(fresh.toString(), explanation2.toString());
+    }
+
+    @Test
+    void testInconsistentChange() {
+        val fm = SurveyFM.create();
+
+        val builder = new RequirementBuilder();
+        val userRequirement = builder.build(SurveyFM.REQUIREMENT);
+        val template = SurveyFM.template(fm);
+        val sconf = builder.build("license=true");
+        val instance = template.instantiate(sconf);
+        val previous = new CXPlain(new ChocoConsistencyChecker(template.getModel()))
+                .findExplanation(instance.getREQ(), instance.getCF(), instance.getCONF(), instance.getNSCONF());
+
+        // license and nonlicense are alternatives, hence the changed configuration is inconsistent
+        val delta = builder.build("nonlicense=true").getAssignments();
+        val changed = new FMCausalExplanationTemplate<>(fm, userRequirement,
+                builder.build(SurveyFM.CONFIGURATION.replace("nonlicense=false", "nonlicense=true")));
+        val checker = new ChocoConsistencyChecker(changed.getModel());
+        val changedInstance = changed.instantiate(sconf);
+
+        val fresh = new CXPlain(checker)
+                .findExplanation(changedInstance.getREQ(), changedInstance.getCF(), changedInstance.getCONF(), changedInstance.getNSCONF());
+        val explanation = new IncrementalCXPlain(checker)
+                .findExplanation(previous, delta, changedInstance.getREQ(), changedInstance.getCF(), changedInstance.getCONF(), changedInstance.getNSCONF());
+
+        assertFalse(previous.isEmpty());
+        assertTrue(fresh.isEmpty());
+        assertTrue(explanation.isEmpty());
+    }
+}
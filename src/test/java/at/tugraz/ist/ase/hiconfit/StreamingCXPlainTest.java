@@ -0,0 +1,114 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit;
+
+import at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.builder.RequirementBuilder;
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingCXPlainTest {
+
+    @Test
+    void testStreamingCXPlain() {
+        val fm = SurveyFM.create();
+
+        val builder = new RequirementBuilder();
+        val template = SurveyFM.template(fm);
+        val cxPlain = new StreamingCXPlain(new ChocoConsistencyChecker(template.getModel()));
+        val instance = template.instantiate(builder.build("multiplechoice=true"));
+
+        // all constraints are streamed before the explanation is returned
+        List<Constraint> streamed = new ArrayList<>();
+        val explanation = cxPlain.findExplanation(instance.getREQ(), instance.getCF(), instance.getCONF(), instance.getNSCONF(), streamed::add);
+        assertEquals("[multiplemedia=false, or(qa, multiplechoice, multiplemedia), mandatory(survey, qa), survey = true]", explanation.toString());
+        assertEquals(explanation, Set.copyOf(streamed));
+        assertTrue(cxPlain.getFirstLatency() >= 0 && cxPlain.getFirstLatency() <= cxPlain.getTotalLatency());
+
+        // cancelled after the first constraint
+        List<Constraint> first = new ArrayList<>();
+        assertThrows(CancellationException.class, () -> cxPlain.findExplanation(instance.getREQ(), instance.getCF(), instance.getCONF(), instance.getNSCONF(), c -> {
+            first.add(c);
+            cxPlain.cancel();
+        }));
+        assertEquals(1, first.size());
+
+        // the next explanation is not affected by the cancellation
+        assertEquals(explanation, cxPlain.findExplanation(instance.getREQ(), instance.getCF(), instance.getCONF(), instance.getNSCONF(), c -> {}));
+    }
+
+    @Test
+    void testStreamingCXPlainPublisher() throws Exception {
+        val fm = SurveyFM.create();
+
+        val builder = new RequirementBuilder();
+        val template = SurveyFM.template(fm);
+        val cxPlain = new StreamingCXPlain(new ChocoConsistencyChecker(template.getModel()));
+        val instance = template.instantiate(builder.build("multiplechoice=true"));
+
+        List<Constraint> received = Collections.synchronizedList(new ArrayList<>());
+        AtomicReference<Flow.Subscription> subscription = new AtomicReference<>();
+        CountDownLatch first = new CountDownLatch(1);
+        CountDownLatch completed = new CountDownLatch(1);
+        val executor = Executors.newSingleThreadExecutor();
+        val deliveryExecutor = Executors.newSingleThreadExecutor();
+        try {
+            // one constraint is requested, and one can be buffered, hence the explanation waits at the third one
+            val future = cxPlain.explain(instance.getREQ(), instance.getCF(), instance.getCONF(), instance.getNSCONF(), new Flow.Subscriber<Constraint>() {
+                @Override
+                public void onSubscribe(Flow.Subscription s) {
+                    subscription.set(s);
+                    s.request(1);
+                }
+
+                @Override
+                public void onNext(Constraint item) {
+                    received.add(item);
+                    first.countDown();
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                }
+
+                @Override
+                public void onComplete() {
+                    completed.countDown();
+                }
+            }, executor, deliveryExecutor, 1);
+
+            // the first constraint arrives before the explanation is done
+            assertTrue(first.await(10, TimeUnit.SECONDS));
+            assertFalse(future.isDone());
+
+            subscription.get().request(Long.MAX_VALUE);
+            val explanation = future.get(10, TimeUnit.SECONDS);
+            assertTrue(completed.await(10, TimeUnit.SECONDS));
+            assertTrue(explanation.size() >= 3);
+            assertEquals(explanation, Set.copyOf(received));
+        } finally {
+            executor.shutdown();
+            deliveryExecutor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit;
+
+import at.tugraz.ist.ase.hiconfit.cacdr_core.builder.RequirementBuilder;
+import at.tugraz.ist.ase.hiconfit.fm.FMCausalExplanationTemplate;
+import at.tugraz.ist.ase.hiconfit.fm.builder.ConstraintBuilder;
+import at.tugraz.ist.ase.hiconfit.fm.builder.FeatureBuilder;
+import at.tugraz.ist.ase.hiconfit.fm.builder.RelationshipBuilder;
+import at.tugraz.ist.ase.hiconfit.fm.core.AbstractRelationship;
+import at.tugraz.ist.ase.hiconfit.fm.core.CTConstraint;
+import at.tugraz.ist.ase.hiconfit.fm.core.Feature;
+import at.tugraz.ist.ase.hiconfit.fm.core.FeatureModel;
+import at.tugraz.ist.ase.hiconfit.fm.translator.ConfRuleTranslator;
+import lombok.val;
+
+import java.util.List;
+
+/**
+ * The survey feature model of the tests, with a valid configuration and a requirement.
+ */
+public final class SurveyFM {
+
+    public static final String REQUIREMENT = "ABtesting=true";
+    public static final String CONFIGURATION = "survey=true,pay=true,license=true,nonlicense=false,ABtesting=true,statistics=true,qa=true,multiplechoice=true,multiplemedia=false";
+    public static final String EXCLUDES_CONFIGURATION = "survey=true,ABtesting=true,nonlicense=false"; // of #createExcludes()
+
+    private SurveyFM() {
+    }
+
+    public static FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> create() {
+        return create(true);
+    }
+
+    /**
+     * @param withRequires false - without requires(ABtesting, statistics), e.g., for a changed feature model
+     */
+    public static FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> create(boolean withRequires) {
+        val translator = new ConfRuleTranslator();
+        val constraintBuilder = new ConstraintBuilder(translator);
+        val fm = new FeatureModel<>("test", new FeatureBuilder(), new RelationshipBuilder(translator), constraintBuilder);
+
+        val survey = fm.addRoot("survey", "survey");
+        val pay = fm.addFeature("pay", "pay");
+        val ABtesting = fm.addFeature("ABtesting", "ABtesting");
+        val statistics = fm.addFeature("statistics", "statistics");
+        val qa = fm.addFeature("qa", "qa");
+        val license = fm.addFeature("license", "license");
+        val nonlicense = fm.addFeature("nonlicense", "nonlicense");
+        val multiplechoice = fm.addFeature("multiplechoice", "multiplechoice");
+        val multiplemedia = fm.addFeature("multiplemedia", "multiplemedia");
+
+        fm.addMandatoryRelationship(survey, pay);
+        fm.addOptionalRelationship(survey, ABtesting);
+        fm.addOptionalRelationship(survey, statistics);
+        fm.addMandatoryRelationship(survey, qa);
+        fm.addAlternativeRelationship(pay, List.of(license, nonlicense));
+        fm.addOrRelationship(qa, List.of(multiplechoice, multiplemedia));
+
+        fm.addExcludes(ABtesting, nonlicense);
+        if (withRequires) {
+            fm.addRequires(ABtesting, statistics);
+        }
+
+        return fm;
+    }
+
+    /**
+     * The part of the survey feature model with excludes(ABtesting, nonlicense) only,
+     * in which nonlicense is reached from ABtesting only through the view not(nonlicense).
+     * It has neither a requirement nor mandatory features.
+     */
+    public static FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> createExcludes() {
+        val translator = new ConfRuleTranslator();
+        val fm = new FeatureModel<>("excludes", new FeatureBuilder(), new RelationshipBuilder(translator), new ConstraintBuilder(translator));
+
+        val survey = fm.addRoot("survey", "survey");
+        val ABtesting = fm.addFeature("ABtesting", "ABtesting");
+        val nonlicense = fm.addFeature("nonlicense", "nonlicense");
+        fm.addOptionalRelationship(survey, ABtesting);
+        fm.addOptionalRelationship(survey, nonlicense);
+        fm.addExcludes(ABtesting, nonlicense);
+
+        return fm;
+    }
+
+    /**
+     * @return the template of {@link #CONFIGURATION} and {@link #REQUIREMENT}
+     */
+    public static FMCausalExplanationTemplate<Feature, AbstractRelationship<Feature>, CTConstraint>
+        template(FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> fm) {
+        val builder = new RequirementBuilder();
+        return new FMCausalExplanationTemplate<>(fm, builder.build(REQUIREMENT), builder.build(CONFIGURATION));
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.bench;
+
+import at.tugraz.ist.ase.hiconfit.BatchCXPlain;
+import at.tugraz.ist.ase.hiconfit.CXPlain;
+import at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Requirement;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.reader.SolutionReader;
+import at.tugraz.ist.ase.hiconfit.checker.WitnessConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.fm.FMCausalExplanationTemplate;
+import at.tugraz.ist.ase.hiconfit.fm.factory.FeatureModels;
+import at.tugraz.ist.ase.hiconfit.kb.fm.FMKB;
+import lombok.val;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator.*;
+
+/**
+ * Compares explaining every assignment of a configuration
+ * + independently - one CXPlain call per SCONF {f=v}, sharing only the template
+ * + batch - {@link BatchCXPlain} with 1 and with numThreads workers
+ * <p>
+ * All modes must return the same explanations.
+ * <p>
+ * Usage: run the main method with [fmFile confFolder numConfs numThreads],
+ * by default ./data/fms/fqa.sxfm ./data/confs/fqa 5 4
+ */
+public class BatchCXPlainBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        val fmFile = new File(args.length > 0 ? args[0] : "./data/fms/fqa.sxfm");
+        val confFolder = args.length > 1 ? args[1] : "./data/confs/fqa";
+        int numConfs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int numThreads = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+
+        val fm = FeatureModels.fromFile(fmFile);
+        val userRequirement = Requirement.requirementBuilder().assignments(List.of()).build();
+
+        System.out.println(fmFile.getName() + ": " + numConfs + " configurations");
+        System.out.println("conf\tassignments\tindependent (s)\tsolver calls\tbatch x1 (s)\tsolver calls\twitness hits\tbatch x" + numThreads + " (s)");
+        for (int i = 1; i <= numConfs; i++) {
+            val reader = new SolutionReader(new FMKB<>(fm, false));
+            Requirement configuration = reader.read(new File(confFolder + String.format("/valid_conf_%d.txt", i)));
+
+            // independently
+            CAEvaluator.reset();
+            long start = System.nanoTime();
+            val template = new FMCausalExplanationTemplate<>(fm, userRequirement, configuration);
+            val cxPlain = new CXPlain(new ChocoConsistencyChecker(template.getModel()));
+            List<String> independent = new ArrayList<>();
+            for (val assignment : configuration.getAssignments()) {
+                val sconf = Requirement.requirementBuilder().assignments(List.of(assignment)).build();
+                val instance = template.instantiate(sconf);
+                independent.add(cxPlain.findExplanation(instance.getREQ(), instance.getCF(), instance.getCONF(), instance.getNSCONF()).toString());
+            }
+            double independentRuntime = (System.nanoTime() - start) / 1_000_000_000.0;
+            double independentCalls = getCounter(COUNTER_CHOCO_SOLVER_CALLS).getValue();
+            template.dispose();
+
+            // batch, one worker
+            CAEvaluator.reset();
+            start = System.nanoTime();
+            val sequential = new BatchCXPlain<>(fm, 1).explainAll(userRequirement, configuration);
+            double sequentialRuntime = (System.nanoTime() - start) / 1_000_000_000.0;
+            double sequentialCalls = getCounter(COUNTER_CHOCO_SOLVER_CALLS).getValue();
+            double witnessHits = getCounter(WitnessConsistencyChecker.COUNTER_WITNESS_HITS).getValue();
+
+            // batch, numThreads workers
+            start = System.nanoTime();
+            val parallel = new BatchCXPlain<>(fm, numThreads).explainAll(userRequirement, configuration);
+            double parallelRuntime = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            List<String> batch = sequential.values().stream().map(Object::toString).toList();
+            if (!independent.equals(batch) || !batch.equals(parallel.values().stream().map(Object::toString).toList())) {
+                throw new IllegalStateException("The batch mode returns different explanations for configuration " + i);
+            }
+
+            System.out.printf("%d\t%d\t%.6f\t%.0f\t%.6f\t%.0f\t%.0f\t%.6f%n", i, independent.size(),
+                    independentRuntime, independentCalls, sequentialRuntime, sequentialCalls, witnessHits, parallelRuntime);
+        }
+    }
+}
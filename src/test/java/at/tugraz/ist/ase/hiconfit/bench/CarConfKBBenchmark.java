@@ -0,0 +1,109 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.bench;
+
+import at.tugraz.ist.ase.hiconfit.CXPlain;
+import at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Assignment;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Requirement;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.builder.RequirementBuilder;
+import at.tugraz.ist.ase.hiconfit.common.CombinationSampler;
+import at.tugraz.ist.ase.hiconfit.eval.PerformanceEvaluator;
+import at.tugraz.ist.ase.hiconfit.kb.CarConfKB;
+import at.tugraz.ist.ase.hiconfit.kb.KBCausalExplanationModel;
+import at.tugraz.ist.ase.hiconfit.kb.core.KB;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker.TIMER_SOLVER;
+import static at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator.*;
+
+/**
+ * Compares the encodings of {@link CarConfKB}:
+ * + table - {@link CarConfKB}, one table constraint per rule
+ * + reified - {@link ReifiedCarConfKB}, a reified or/and tree per rule
+ * <p>
+ * All SCONFs of the configuration are explained with both encodings,
+ * which must return the same explanations.
+ * <p>
+ * Usage: run the main method, optionally with the number of repetitions as the argument.
+ */
+public class CarConfKBBenchmark {
+
+    static final String REQUIREMENT = "biz-park=y,rec-park=y";
+    static final String CONFIGURATION = "biz-park=y,rec-park=y,video=y,sensor=n,GSM-radio=y,easy-parking=y,free-com=y";
+
+    public static void main(String[] args) {
+        int repetitions = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+
+        val builder = new RequirementBuilder();
+        val userRequirement = builder.build(REQUIREMENT);
+        val configuration = builder.build(CONFIGURATION);
+
+        // all SCONFs of the configuration
+        List<Requirement> sconfs = new ArrayList<>();
+        int n = configuration.getAssignments().size();
+        for (int size = 1; size <= n; size++) {
+            val sampler = new CombinationSampler(n, size);
+            for (long rank = 0; rank < sampler.getNumCombinations(); rank++) {
+                List<Assignment> assignments = new ArrayList<>(size);
+                for (int index : sampler.unrank(rank)) {
+                    assignments.add(configuration.getAssignments().get(index));
+                }
+                sconfs.add(Requirement.requirementBuilder().assignments(assignments).build());
+            }
+        }
+
+        System.out.println("CarConfKB: " + sconfs.size() + " SCONFs, " + repetitions + " repetitions");
+        System.out.println("encoding\tsolver runtime per check (µs)\tsolver calls\tCXPlain runtime (s)");
+        List<String> tableExps = run("table", () -> new CarConfKB(false), sconfs, userRequirement, configuration, repetitions);
+        List<String> reifiedExps = run("reified", () -> new ReifiedCarConfKB(false), sconfs, userRequirement, configuration, repetitions);
+
+        if (!tableExps.equals(reifiedExps)) {
+            throw new IllegalStateException("The encodings return different explanations");
+        }
+    }
+
+    private static List<String> run(String name, Supplier<KB> kbSupplier, List<Requirement> sconfs,
+                                    Requirement userRequirement, Requirement configuration, int repetitions) {
+        List<String> explanations = new ArrayList<>();
+        double solverRuntime = 0;
+        double solverCalls = 0;
+        double cxplainRuntime = 0;
+        for (int r = 0; r < repetitions; r++) {
+            for (Requirement sconf : sconfs) {
+                val diagModel = new KBCausalExplanationModel(kbSupplier.get(), sconf, userRequirement, configuration);
+                diagModel.initialize();
+
+                val cxPlain = new CXPlain(new ChocoConsistencyChecker(diagModel));
+
+                PerformanceEvaluator.reset();
+                setCommonTimer(TIMER_SOLVER);
+                setCommonTimer(CXPlain.TIMER_CXPLAIN);
+                CAEvaluator.reset();
+                val explanation = cxPlain.findExplanation(diagModel.getREQ(), diagModel.getCF(), diagModel.getCONF(), diagModel.getNSCONF());
+
+                solverRuntime += totalCommonTimer(TIMER_SOLVER) / 1_000.0;
+                solverCalls += getCounter(COUNTER_CHOCO_SOLVER_CALLS).getValue();
+                cxplainRuntime += totalCommonTimer(CXPlain.TIMER_CXPLAIN) / 1_000_000_000.0;
+                if (r == 0) {
+                    explanations.add(explanation.toString());
+                }
+            }
+        }
+
+        System.out.printf("%s\t%.3f\t%.0f\t%.6f%n", name, solverRuntime / Math.max(1, solverCalls),
+                solverCalls, cxplainRuntime);
+        return explanations;
+    }
+}
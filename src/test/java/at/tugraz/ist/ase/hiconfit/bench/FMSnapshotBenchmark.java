@@ -0,0 +1,71 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.bench;
+
+import at.tugraz.ist.ase.hiconfit.checker.CompiledFM;
+import at.tugraz.ist.ase.hiconfit.fm.FMSnapshot;
+import at.tugraz.ist.ase.hiconfit.fm.factory.FeatureModels;
+import lombok.val;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Compares the startup time of parsing each feature model of a folder from XML
+ * with loading it from its {@link FMSnapshot}, including the hash of the feature model file.
+ * The first run of each is reported separately, since short-lived CLI runs only pay this one.
+ * <p>
+ * Usage: run the main method with [fmFolder numRuns], by default ./data/fms 20
+ */
+public class FMSnapshotBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        val fmFolder = new File(args.length > 0 ? args[0] : "./data/fms");
+        int numRuns = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        File[] fmFiles = Objects.requireNonNull(fmFolder.listFiles(f -> f.isFile()
+                && (f.getName().endsWith(".sxfm") || f.getName().endsWith(".splx"))));
+        Arrays.sort(fmFiles);
+
+        System.out.println("fm\tXML (bytes)\tsnapshot (bytes)\tfirst XML (ms)\tfirst snapshot (ms)\tXML (ms)\tsnapshot (ms)\tspeedup");
+        for (File fmFile : fmFiles) {
+            File snapshotFile = new File(fmFile.getPath() + FMSnapshot.FILE_EXTENSION);
+
+            long start = System.nanoTime();
+            val fm = FeatureModels.fromFile(fmFile);
+            double firstXML = (System.nanoTime() - start) / 1_000_000.0;
+
+            String hash = CompiledFM.hash(fmFile);
+            if (!FMSnapshot.save(snapshotFile, fm, hash)) {
+                System.out.printf("%s\t%d\t-\t%.3f\t-\t-\t-\tunsupported%n", fmFile.getName(), fmFile.length(), firstXML);
+                continue;
+            }
+
+            start = System.nanoTime();
+            FMSnapshot.load(snapshotFile, CompiledFM.hash(fmFile));
+            double firstSnapshot = (System.nanoTime() - start) / 1_000_000.0;
+
+            start = System.nanoTime();
+            for (int i = 0; i < numRuns; i++) {
+                FeatureModels.fromFile(fmFile);
+            }
+            double xml = (System.nanoTime() - start) / 1_000_000.0 / numRuns;
+
+            start = System.nanoTime();
+            for (int i = 0; i < numRuns; i++) {
+                FMSnapshot.load(snapshotFile, CompiledFM.hash(fmFile));
+            }
+            double snapshot = (System.nanoTime() - start) / 1_000_000.0 / numRuns;
+
+            System.out.printf("%s\t%d\t%d\t%.3f\t%.3f\t%.3f\t%.3f\t%.1fx%n", fmFile.getName(), fmFile.length(), snapshotFile.length(),
+                    firstXML, firstSnapshot, xml, snapshot, xml / snapshot);
+        }
+    }
+}
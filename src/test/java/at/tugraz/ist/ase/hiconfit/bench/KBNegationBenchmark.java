@@ -0,0 +1,133 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.bench;
+
+import at.tugraz.ist.ase.hiconfit.CXPlain;
+import at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Assignment;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Requirement;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Solution;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.builder.RequirementBuilder;
+import at.tugraz.ist.ase.hiconfit.common.CombinationSampler;
+import at.tugraz.ist.ase.hiconfit.eval.PerformanceEvaluator;
+import at.tugraz.ist.ase.hiconfit.kb.KBCausalExplanationModel;
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import at.tugraz.ist.ase.hiconfit.kb.core.IIntVarKB;
+import at.tugraz.ist.ase.hiconfit.kb.core.KB;
+import at.tugraz.ist.ase.hiconfit.negator.ISolutionNegatable;
+import at.tugraz.ist.ase.hiconfit.negator.kb.KBSolutionNegator;
+import lombok.NonNull;
+import lombok.val;
+import org.chocosolver.solver.Model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+import static at.tugraz.ist.ase.hiconfit.CXPlain.TIMER_CXPLAIN;
+import static at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker.TIMER_SOLVER;
+import static at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator.*;
+
+/**
+ * Compares the negations of SCONFs for knowledge bases with wide domains:
+ * + table - {@link KBSolutionNegator}, one table constraint forbidding the SCONF tuple
+ * + reified - a disjunction of reified (var != value) constraints
+ * <p>
+ * Usage: run the main method, optionally with the number of SCONFs per size as the argument.
+ */
+public class KBNegationBenchmark {
+
+    static final int NUM_VARS = 40;
+    static final int NUM_CONSTRAINTS = 50;
+    static final double DENSITY = 0.6;
+    static final long SEED = 2024;
+
+    static final List<Integer> DOMAIN_SIZES = List.of(2, 8, 32, 128);
+    static final List<Integer> SIZE_SCONFS = List.of(1, 2, 4, 8);
+
+    /**
+     * The baseline, negating a SCONF into model.or(arithm(var, "!=", value), ...)
+     */
+    static class ReifiedClauseNegator implements ISolutionNegatable {
+        @Override
+        public Constraint negate(@NonNull Solution solution, @NonNull KB kb) {
+            IIntVarKB intVarKB = (IIntVarKB) kb;
+            Model model = kb.getModelKB();
+
+            List<Assignment> assignments = solution.getAssignments();
+            Constraint constraint = new Constraint("not(" + assignments + ")",
+                    assignments.stream().map(Assignment::getVariable).toList());
+
+            org.chocosolver.solver.constraints.Constraint[] literals = assignments.stream()
+                    .map(a -> model.arithm(intVarKB.getIntVar(a.getVariable()), "!=",
+                            intVarKB.getIntValue(a.getVariable(), a.getValue())))
+                    .toArray(org.chocosolver.solver.constraints.Constraint[]::new);
+            constraint.getChocoConstraints().add(literals.length == 1 ? literals[0] : model.or(literals));
+            return constraint;
+        }
+    }
+
+    public static void main(String[] args) {
+        int numSCONFs = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+
+        System.out.println("KB: " + NUM_VARS + " variables, " + NUM_CONSTRAINTS + " binary tables, density " + DENSITY);
+        System.out.println("domain\tsize\tnegator\tCXPlain runtime (s)\tsolver runtime (s)\tsolver calls");
+        for (int domainSize : DOMAIN_SIZES) {
+            for (int size : SIZE_SCONFS) {
+                run(domainSize, size, numSCONFs, "table", KBSolutionNegator::new);
+                run(domainSize, size, numSCONFs, "reified", ReifiedClauseNegator::new);
+            }
+        }
+    }
+
+    private static void run(int domainSize, int size, int numSCONFs, String name, Supplier<ISolutionNegatable> negatorSupplier) {
+        val builder = new RequirementBuilder();
+        val userRequirement = Requirement.requirementBuilder().assignments(List.of()).build();
+        val witness = new SyntheticIntVarKB(NUM_VARS, domainSize, NUM_CONSTRAINTS, DENSITY, SEED).getWitnessAsString();
+        val configuration = builder.build(witness);
+
+        // the same SCONFs for all negators
+        val random = new SplittableRandom(SEED + domainSize * 31L + size);
+        val subsets = new CombinationSampler(NUM_VARS, size).sample(numSCONFs, random);
+
+        double cxplainRuntime = 0;
+        double solverRuntime = 0;
+        double solverCalls = 0;
+        for (int[] subset : subsets) {
+            List<Assignment> assignments = new ArrayList<>(size);
+            for (int index : subset) {
+                assignments.add(configuration.getAssignments().get(index));
+            }
+            val sconf = Requirement.requirementBuilder().assignments(assignments).build();
+
+            val kb = new SyntheticIntVarKB(NUM_VARS, domainSize, NUM_CONSTRAINTS, DENSITY, SEED);
+            val diagModel = new KBCausalExplanationModel(kb, sconf, userRequirement, configuration);
+            diagModel.setNegator(negatorSupplier.get());
+            diagModel.initialize();
+
+            val cxPlain = new CXPlain(new ChocoConsistencyChecker(diagModel));
+
+            PerformanceEvaluator.reset();
+            setCommonTimer(TIMER_SOLVER);
+            setCommonTimer(TIMER_CXPLAIN);
+            CAEvaluator.reset();
+            cxPlain.findExplanation(diagModel.getREQ(), diagModel.getCF(), diagModel.getCONF(), diagModel.getNSCONF());
+
+            cxplainRuntime += totalCommonTimer(TIMER_CXPLAIN) / 1_000_000_000.0;
+            solverRuntime += totalCommonTimer(TIMER_SOLVER) / 1_000_000_000.0;
+            solverCalls += getCounter(COUNTER_CHOCO_SOLVER_CALLS).getValue();
+        }
+
+        int n = Math.max(1, subsets.size());
+        System.out.printf("%d\t%d\t%s\t%.6f\t%.6f\t%.1f%n", domainSize, size, name,
+                cxplainRuntime / n, solverRuntime / n, solverCalls / n);
+    }
+}
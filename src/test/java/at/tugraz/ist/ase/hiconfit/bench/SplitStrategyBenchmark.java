@@ -0,0 +1,94 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.bench;
+
+import at.tugraz.ist.ase.hiconfit.CXPlain;
+import at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Requirement;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.reader.SolutionReader;
+import at.tugraz.ist.ase.hiconfit.fm.FMCausalExplanationTemplate;
+import at.tugraz.ist.ase.hiconfit.fm.factory.FeatureModels;
+import at.tugraz.ist.ase.hiconfit.kb.fm.FMKB;
+import at.tugraz.ist.ase.hiconfit.split.SplitStrategy;
+import lombok.val;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import static at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator.*;
+
+/**
+ * Compares the split strategies of CXP on all feature models of a folder:
+ * the first maxSCONFs assignments of each configuration are explained one by one
+ * with each strategy, counting consistency checks and measuring the runtime.
+ * The strategies may return different explanations, whose average sizes are reported.
+ * <p>
+ * Usage: run the main method with [fmFolder confFolder numConfs maxSCONFs],
+ * by default ./data/fms ./data/confs 5 50
+ */
+public class SplitStrategyBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        val fmFolder = new File(args.length > 0 ? args[0] : "./data/fms");
+        val confFolder = args.length > 1 ? args[1] : "./data/confs";
+        int numConfs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int maxSCONFs = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+
+        List<String> strategies = List.of(SplitStrategy.HALVES, SplitStrategy.GALLOPING, SplitStrategy.LEARNED);
+        val userRequirement = Requirement.requirementBuilder().assignments(List.of()).build();
+
+        System.out.println("fm\tstrategy\tSCONFs\tconsistency checks\truntime (s)\texplanation size");
+        File[] fmFiles = Objects.requireNonNull(fmFolder.listFiles(File::isFile));
+        Arrays.sort(fmFiles);
+        for (File fmFile : fmFiles) {
+            val fm = FeatureModels.fromFile(fmFile);
+            String nameKB = fmFile.getName().substring(0, fmFile.getName().lastIndexOf('.'));
+
+            for (String name : strategies) {
+                // one strategy per feature model, so that the learned one keeps its split point across configurations
+                SplitStrategy split = SplitStrategy.of(name);
+                long sconfs = 0;
+                long checks = 0;
+                long runtime = 0;
+                long explanationSize = 0;
+
+                for (int i = 1; i <= numConfs; i++) {
+                    val confFile = new File(confFolder + "/" + nameKB + String.format("/valid_conf_%d.txt", i));
+                    if (!confFile.exists()) {
+                        continue;
+                    }
+                    Requirement configuration = new SolutionReader(new FMKB<>(fm, false)).read(confFile);
+
+                    val template = new FMCausalExplanationTemplate<>(fm, userRequirement, configuration);
+                    val cxPlain = new CXPlain(new ChocoConsistencyChecker(template.getModel()), split);
+                    for (val assignment : configuration.getAssignments().stream().limit(maxSCONFs).toList()) {
+                        val sconf = Requirement.requirementBuilder().assignments(List.of(assignment)).build();
+                        val instance = template.instantiate(sconf);
+
+                        CAEvaluator.reset();
+                        long start = System.nanoTime();
+                        val explanation = cxPlain.findExplanation(instance.getREQ(), instance.getCF(), instance.getCONF(), instance.getNSCONF());
+                        runtime += System.nanoTime() - start;
+                        checks += (long) getCounter(COUNTER_CONSISTENCY_CHECKS).getValue();
+                        explanationSize += explanation.size();
+                        sconfs++;
+                    }
+                    template.dispose();
+                }
+
+                System.out.printf("%s\t%s\t%d\t%.2f\t%.6f\t%.2f%n", fmFile.getName(), name, sconfs,
+                        sconfs > 0 ? (double) checks / sconfs : 0.0, runtime / 1_000_000_000.0,
+                        sconfs > 0 ? (double) explanationSize / sconfs : 0.0);
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.bench;
+
+import at.tugraz.ist.ase.hiconfit.common.LoggerUtils;
+import at.tugraz.ist.ase.hiconfit.kb.core.*;
+import at.tugraz.ist.ase.hiconfit.kb.core.builder.IntVarConstraintBuilder;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.constraints.extension.Tuples;
+import org.chocosolver.solver.variables.IntVar;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * A random knowledge base with #numVars variables of #domainSize values
+ * and #numConstraints binary table constraints.
+ * <p>
+ * Each table allows a random #density share of the value pairs, and always the pair
+ * of a hidden witness solution, so that the knowledge base is consistent.
+ */
+@Slf4j
+public class SyntheticIntVarKB extends KB implements IIntVarKB {
+
+    private final int numVars;
+    private final int domainSize;
+    private final int numConstraints;
+    private final double density;
+    private final long seed;
+
+    // index of the witness value of each variable
+    private int[] witness;
+
+    public SyntheticIntVarKB(int numVars, int domainSize, int numConstraints, double density, long seed) {
+        super("Synthetic KB " + numVars + "x" + domainSize, "", false);
+
+        this.numVars = numVars;
+        this.domainSize = domainSize;
+        this.numConstraints = numConstraints;
+        this.density = density;
+        this.seed = seed;
+
+        reset(false);
+    }
+
+    @Override
+    public void reset(boolean hasNegativeConstraints) {
+        log.trace("{}Creating SyntheticIntVarKB >>>", LoggerUtils.tab());
+        LoggerUtils.indent();
+
+        modelKB = new Model(name);
+        variableList = new LinkedList<>();
+        domainList = new LinkedList<>();
+        constraintList = new LinkedList<>();
+
+        Random random = new Random(seed);
+        defineVariables(random);
+        defineConstraints(random, hasNegativeConstraints);
+
+        LoggerUtils.outdent();
+        log.debug("{}<<< Created SyntheticIntVarKB", LoggerUtils.tab());
+    }
+
+    private void defineVariables(Random random) {
+        List<String> values = IntStream.range(0, domainSize).mapToObj(v -> "v" + v).toList();
+
+        witness = new int[numVars];
+        for (int i = 0; i < numVars; i++) {
+            String varName = "x" + i;
+            Domain domain = Domain.builder()
+                    .name(varName)
+                    .values(values)
+                    .build();
+            domainList.add(domain);
+
+            IntVar intVar = modelKB.intVar(varName, domain.getIntValues());
+            Variable var = IntVariable.builder()
+                    .name(varName)
+                    .domain(domain)
+                    .chocoVar(intVar).build();
+            variableList.add(var);
+
+            witness[i] = random.nextInt(domainSize);
+        }
+    }
+
+    private void defineConstraints(Random random, boolean hasNegativeConstraints) {
+        for (int c = 0; c < numConstraints; c++) {
+            int x = random.nextInt(numVars);
+            int y = (x + 1 + random.nextInt(numVars - 1)) % numVars;
+            IntVar X = getIntVar("x" + x);
+            IntVar Y = getIntVar("x" + y);
+
+            int[] valuesX = domainList.get(x).getIntValues();
+            int[] valuesY = domainList.get(y).getIntValues();
+
+            Tuples tuples = new Tuples(true);
+            for (int vx = 0; vx < domainSize; vx++) {
+                for (int vy = 0; vy < domainSize; vy++) {
+                    boolean isWitness = vx == witness[x] && vy == witness[y];
+                    if (isWitness || random.nextDouble() < density) {
+                        tuples.add(valuesX[vx], valuesY[vy]);
+                    }
+                }
+            }
+
+            int startIdx = modelKB.getNbCstrs();
+            org.chocosolver.solver.constraints.Constraint chocoConstraint = modelKB.table(new IntVar[] {X, Y}, tuples);
+            Constraint constraint = IntVarConstraintBuilder.build("c" + c + "(x" + x + ", x" + y + ")",
+                    List.of("x" + x, "x" + y), modelKB, chocoConstraint, startIdx, hasNegativeConstraints);
+            constraintList.add(constraint);
+        }
+    }
+
+    /**
+     * @return the assignments of the witness solution, e.g., "x0=v3,x1=v0,..."
+     */
+    public String getWitnessAsString() {
+        StringJoiner joiner = new StringJoiner(",");
+        for (int i = 0; i < numVars; i++) {
+            joiner.add("x" + i + "=v" + witness[i]);
+        }
+        return joiner.toString();
+    }
+
+    @Override
+    public IntVar[] getIntVars() {
+        org.chocosolver.solver.variables.Variable[] vars = getModelKB().getVars();
+
+        return Arrays.stream(vars).map(v -> (IntVar) v).toArray(IntVar[]::new);
+    }
+
+    @Override
+    public IntVar getIntVar(@NonNull String variable) {
+        Variable var = getVariable(variable);
+
+        return ((IntVariable) var).getChocoVar();
+    }
+
+    // Choco value
+    @Override
+    public int getIntValue(@NonNull String var, @NonNull String value) {
+        Domain domain = getDomain(var);
+
+        return domain.getChocoValue(value);
+    }
+}
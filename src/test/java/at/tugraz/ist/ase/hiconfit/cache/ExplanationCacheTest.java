@@ -0,0 +1,92 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.cache;
+
+import at.tugraz.ist.ase.hiconfit.SurveyFM;
+import at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.builder.RequirementBuilder;
+import at.tugraz.ist.ase.hiconfit.fm.core.AbstractRelationship;
+import at.tugraz.ist.ase.hiconfit.fm.core.CTConstraint;
+import at.tugraz.ist.ase.hiconfit.fm.core.Feature;
+import at.tugraz.ist.ase.hiconfit.fm.core.FeatureModel;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExplanationCacheTest {
+    static final String SCONF = "license=true,statistics=true";
+    static final String EXPECTED_EXP = "[ABtesting=true [copied], requires(ABtesting, statistics), excludes(ABtesting, nonlicense), alternative(pay, license, nonlicense), mandatory(survey, pay), survey = true]";
+
+    String explain(FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> fm, ExplanationCache cache) {
+        val builder = new RequirementBuilder();
+        val template = SurveyFM.template(fm);
+        val instance = template.instantiate(builder.build(SCONF));
+        val cxPlain = new CachingCXPlain(new ChocoConsistencyChecker(template.getModel()), cache, "survey");
+
+        return cxPlain.findExplanation(instance.getREQ(), instance.getCF(), instance.getCONF(), instance.getNSCONF()).toString();
+    }
+
+    @Test
+    void testMemoryHit() {
+        val cache = new ExplanationCache(10);
+
+        assertEquals(EXPECTED_EXP, explain(SurveyFM.create(true), cache));
+        assertEquals(EXPECTED_EXP, explain(SurveyFM.create(true), cache));
+
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getMemoryHits());
+        assertEquals(0.5, cache.getHitRate());
+    }
+
+    @Test
+    void testDiskHit(@TempDir Path folder) throws Exception {
+        File logFile = folder.resolve("explanations.cache").toFile();
+
+        try (val cache = new ExplanationCache(10, logFile)) {
+            assertEquals(EXPECTED_EXP, explain(SurveyFM.create(true), cache));
+            assertEquals(1, cache.getMisses());
+        }
+
+        try (val cache = new ExplanationCache(10, logFile)) {
+            assertEquals(1, cache.size());
+            assertEquals(EXPECTED_EXP, explain(SurveyFM.create(true), cache));
+            assertEquals(1, cache.getDiskHits());
+            assertEquals(0, cache.getMisses());
+        }
+    }
+
+    @Test
+    void testInvalidation(@TempDir Path folder) throws Exception {
+        File logFile = folder.resolve("explanations.cache").toFile();
+
+        try (val cache = new ExplanationCache(10, logFile)) {
+            explain(SurveyFM.create(true), cache);
+
+            // the feature model changed, hence its explanations are dropped
+            String explanation = explain(SurveyFM.create(false), cache);
+            assertFalse(explanation.contains("requires(ABtesting, statistics)"));
+            assertEquals(2, cache.getMisses());
+            assertEquals(1, cache.size());
+        }
+
+        // the invalidation is persisted, and the log is compacted to the live explanation
+        try (val cache = new ExplanationCache(10, logFile)) {
+            assertEquals(1, cache.size());
+            assertEquals(1, Files.readAllLines(logFile.toPath()).size());
+            explain(SurveyFM.create(true), cache);
+            assertEquals(1, cache.getMisses());
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.checker;
+
+import at.tugraz.ist.ase.hiconfit.CXPlain;
+import at.tugraz.ist.ase.hiconfit.SurveyFM;
+import at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.Requirement;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.builder.RequirementBuilder;
+import at.tugraz.ist.ase.hiconfit.fm.FMCausalExplanationModel;
+import at.tugraz.ist.ase.hiconfit.fm.FMCausalExplanationModelFactory;
+import at.tugraz.ist.ase.hiconfit.fm.core.AbstractRelationship;
+import at.tugraz.ist.ase.hiconfit.fm.core.CTConstraint;
+import at.tugraz.ist.ase.hiconfit.fm.core.Feature;
+import at.tugraz.ist.ase.hiconfit.fm.core.FeatureModel;
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static at.tugraz.ist.ase.hiconfit.checker.BDDConsistencyChecker.COUNTER_BDD_CHECKS;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BDDConsistencyCheckerTest {
+    @SuppressWarnings("unchecked")
+    FMCausalExplanationModel<Feature, AbstractRelationship<Feature>, CTConstraint> createModel(
+            FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> fm,
+            Requirement userRequirement, String sconf_string, String conf_string) {
+        val builder = new RequirementBuilder();
+        val factory = FMCausalExplanationModelFactory.getInstance(fm, builder.build(sconf_string), userRequirement, builder.build(conf_string));
+        return (FMCausalExplanationModel<Feature, AbstractRelationship<Feature>, CTConstraint>) factory.createModel();
+    }
+
+    Set<Constraint> explain(String requirement, String sconf_string, String conf_string, boolean useBDD) {
+        val fm = SurveyFM.create();
+        val diagModel = createModel(fm, new RequirementBuilder().build(requirement), sconf_string, conf_string);
+
+        val checker = useBDD
+                ? new BDDConsistencyChecker(diagModel, new FMCompiler(fm, BDD.DEFAULT_NODE_LIMIT).compile("test"))
+                : new ChocoConsistencyChecker(diagModel);
+        val cxPlain = new CXPlain(checker);
+
+        CAEvaluator.reset();
+        return cxPlain.findExplanation(diagModel.getREQ(), diagModel.getCF(), diagModel.getCONF(), diagModel.getNSCONF());
+    }
+
+    @Test
+    void testSameExplanationAsChoco() {
+        for (String sconf_string : List.of("license=true", "multiplechoice=true", "license=true,statistics=true", "multiplemedia=false,license=true")) {
+            val expected = explain(SurveyFM.REQUIREMENT, sconf_string, SurveyFM.CONFIGURATION, false);
+            val explanation = explain(SurveyFM.REQUIREMENT, sconf_string, SurveyFM.CONFIGURATION, true);
+
+            assertEquals(expected.toString(), explanation.toString());
+            assertTrue(CAEvaluator.getCounter(COUNTER_BDD_CHECKS).getValue() > 0);
+        }
+    }
+
+    @Test
+    void testSameChecksAsChocoWithViews() {
+        // excludes(ABtesting, nonlicense) reaches nonlicense through the view not(nonlicense) only
+        val fm = SurveyFM.createExcludes();
+        val userRequirement = Requirement.requirementBuilder().assignments(List.of()).build();
+        val diagModel = createModel(fm, userRequirement, "nonlicense=false", SurveyFM.EXCLUDES_CONFIGURATION);
+
+        val choco = new ChocoConsistencyChecker(diagModel);
+        val bdd = new BDDConsistencyChecker(diagModel, new FMCompiler(fm, BDD.DEFAULT_NODE_LIMIT).compile("excludes"));
+
+        // every subset of CONF ∪ REQ ∪ KB ∪ NSCONF
+        List<Constraint> constraints = new ArrayList<>();
+        List.of(diagModel.getCONF(), diagModel.getREQ(), diagModel.getCF(), diagModel.getNSCONF()).forEach(constraints::addAll);
+        for (int mask = 0; mask < 1 << constraints.size(); mask++) {
+            Set<Constraint> C = new LinkedHashSet<>();
+            for (int i = 0; i < constraints.size(); i++) {
+                if ((mask & 1 << i) != 0) {
+                    C.add(constraints.get(i));
+                }
+            }
+            assertEquals(choco.isConsistent(C), bdd.isConsistent(C), C.toString());
+        }
+
+        // ABtesting=true and excludes(ABtesting, nonlicense) are inconsistent with nonlicense=true
+        val expected = new CXPlain(choco).findExplanation(diagModel.getREQ(), diagModel.getCF(), diagModel.getCONF(), diagModel.getNSCONF());
+        val explanation = new CXPlain(bdd).findExplanation(diagModel.getREQ(), diagModel.getCF(), diagModel.getCONF(), diagModel.getNSCONF());
+        assertFalse(expected.isEmpty());
+        assertEquals(expected.toString(), explanation.toString());
+    }
+
+    @Test
+    void testCompilationTimeFromCache(@TempDir Path folder) throws Exception {
+        // the file is only hashed, the feature model is given
+        File fmFile = folder.resolve("survey.xml").toFile();
+        Files.writeString(fmFile.toPath(), "survey");
+
+        val compiled = CompiledFM.loadOrCompile(fmFile, SurveyFM.create(), BDD.DEFAULT_NODE_LIMIT);
+        val loaded = CompiledFM.loadOrCompile(fmFile, SurveyFM.create(), BDD.DEFAULT_NODE_LIMIT);
+
+        assertFalse(compiled.isFromCache());
+        assertTrue(loaded.isFromCache());
+        // the cost of the first compilation, not of loading
+        assertEquals(compiled.getCompilationTime(), loaded.getCompilationTime());
+    }
+
+    @Test
+    void testConditioning() {
+        // (x0 or x1) and not x2
+        val bdd = new BDD(3, BDD.DEFAULT_NODE_LIMIT);
+        int f = bdd.and(bdd.or(bdd.literal(0, true), bdd.literal(1, true)), bdd.literal(2, false));
+
+        assertTrue(bdd.isSatisfiable(f, new byte[] {BDD.UNASSIGNED, BDD.UNASSIGNED, BDD.UNASSIGNED}));
+        assertTrue(bdd.isSatisfiable(f, new byte[] {0, BDD.UNASSIGNED, 0}));
+        assertFalse(bdd.isSatisfiable(f, new byte[] {0, 0, BDD.UNASSIGNED}));
+        assertFalse(bdd.isSatisfiable(f, new byte[] {BDD.UNASSIGNED, 1, 1}));
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.checker;
+
+import at.tugraz.ist.ase.hiconfit.CXPlain;
+import at.tugraz.ist.ase.hiconfit.SurveyFM;
+import at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.builder.RequirementBuilder;
+import at.tugraz.ist.ase.hiconfit.fm.FMCausalExplanationModel;
+import at.tugraz.ist.ase.hiconfit.fm.FMCausalExplanationModelFactory;
+import at.tugraz.ist.ase.hiconfit.fm.core.AbstractRelationship;
+import at.tugraz.ist.ase.hiconfit.fm.core.CTConstraint;
+import at.tugraz.ist.ase.hiconfit.fm.core.Feature;
+import at.tugraz.ist.ase.hiconfit.kb.CarConfKB;
+import at.tugraz.ist.ase.hiconfit.kb.KBCausalExplanationModel;
+import at.tugraz.ist.ase.hiconfit.kb.KBCausalExplanationModelFactory;
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static at.tugraz.ist.ase.hiconfit.checker.PropagatingConsistencyChecker.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PropagatingConsistencyCheckerTest {
+    @SuppressWarnings("unchecked")
+    Set<Constraint> explain(String requirement, String sconf_string, String conf_string, boolean propagate) {
+        val fm = SurveyFM.create();
+
+        val builder = new RequirementBuilder();
+        val userRequirement = builder.build(requirement);
+        val sconf = builder.build(sconf_string);
+        val configuration = builder.build(conf_string);
+
+        val factory = FMCausalExplanationModelFactory.getInstance(fm, sconf, userRequirement, configuration);
+        val diagModel = (FMCausalExplanationModel<Feature, AbstractRelationship<Feature>, CTConstraint>) factory.createModel();
+
+        val checker = propagate
+                ? new PropagatingConsistencyChecker(diagModel)
+                : new ChocoConsistencyChecker(diagModel);
+        val cxPlain = new CXPlain(checker);
+
+        CAEvaluator.reset();
+        return cxPlain.findExplanation(diagModel.getREQ(), diagModel.getCF(), diagModel.getCONF(), diagModel.getNSCONF());
+    }
+
+    static double decidedByPropagation() {
+        return CAEvaluator.getCounter(COUNTER_PROPAGATION_CONFLICTS).getValue()
+                + CAEvaluator.getCounter(COUNTER_PROPAGATION_SOLUTIONS).getValue();
+    }
+
+    @Test
+    void testSameExplanationAsChoco() {
+        for (String sconf_string : List.of("license=true", "multiplechoice=true", "license=true,statistics=true", "multiplemedia=false,license=true")) {
+            val expected = explain(SurveyFM.REQUIREMENT, sconf_string, SurveyFM.CONFIGURATION, false);
+            val explanation = explain(SurveyFM.REQUIREMENT, sconf_string, SurveyFM.CONFIGURATION, true);
+
+            assertEquals(expected.toString(), explanation.toString());
+            assertTrue(decidedByPropagation() > 0);
+        }
+    }
+
+    @Test
+    void testSearchSettings() {
+        val builder = new RequirementBuilder();
+        val expected = explain(SurveyFM.REQUIREMENT, "multiplechoice=true", SurveyFM.CONFIGURATION, false);
+
+        val settings = new SolverSettings();
+        settings.setVarHeuristic("domwdeg");
+        settings.setRestarts("luby");
+        settings.setTimeLimit(10_000);
+
+        val factory = FMCausalExplanationModelFactory.getInstance(SurveyFM.create(), builder.build("multiplechoice=true"),
+                builder.build(SurveyFM.REQUIREMENT), builder.build(SurveyFM.CONFIGURATION));
+        @SuppressWarnings("unchecked")
+        val diagModel = (FMCausalExplanationModel<Feature, AbstractRelationship<Feature>, CTConstraint>) factory.createModel();
+        val checker = new ConfigurableConsistencyChecker(diagModel, settings, false);
+
+        CAEvaluator.reset();
+        val explanation = new CXPlain(checker).findExplanation(diagModel.getREQ(), diagModel.getCF(), diagModel.getCONF(), diagModel.getNSCONF());
+
+        // every check is decided by search, within the limits
+        assertEquals(expected.toString(), explanation.toString());
+        assertEquals(0, decidedByPropagation());
+        assertEquals(0, checker.getLimitHits());
+    }
+
+    @Test
+    void testKB() {
+        val builder = new RequirementBuilder();
+        val userRequirement = builder.build("biz-park=y,rec-park=y");
+        val sconf = builder.build("easy-parking=y");
+        val configuration = builder.build("biz-park=y,rec-park=y,video=y,sensor=n,GSM-radio=y,easy-parking=y,free-com=y");
+
+        val factory = KBCausalExplanationModelFactory.getInstance(new CarConfKB(false), sconf, userRequirement, configuration);
+        val diagModel = (KBCausalExplanationModel) factory.createModel();
+        val cxPlain = new CXPlain(new PropagatingConsistencyChecker(diagModel));
+
+        CAEvaluator.reset();
+        val explanation = cxPlain.findExplanation(diagModel.getREQ(), diagModel.getCF(), diagModel.getCONF(), diagModel.getNSCONF());
+
+        // as in CXPlainTest.testCXPlain6
+        assertEquals("[rec-park=y [copied], (video or sensor) <-> easy-parking, rec-park <-> video]", explanation.toString());
+        assertTrue(decidedByPropagation() > 0);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.common;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CombinationSamplerTest {
+
+    @Test
+    void testUnrankIsBijective() {
+        val sampler = new CombinationSampler(7, 3);
+        assertEquals(35, sampler.getNumCombinations());
+
+        Set<List<Integer>> subsets = new HashSet<>();
+        for (long rank = 0; rank < sampler.getNumCombinations(); rank++) {
+            int[] subset = sampler.unrank(rank);
+
+            assertEquals(3, subset.length);
+            for (int i = 1; i < subset.length; i++) {
+                assertTrue(subset[i - 1] < subset[i]);
+            }
+            subsets.add(Arrays.stream(subset).boxed().toList());
+        }
+        assertEquals(35, subsets.size());
+    }
+
+    @Test
+    void testSampleAllWhenSpaceIsSmall() {
+        val sampler = new CombinationSampler(5, 2);
+        val subsets = sampler.sample(100, new SplittableRandom(1));
+
+        assertEquals(10, subsets.size());
+    }
+
+    @Test
+    void testSampleLargeSpace() {
+        val sampler = new CombinationSampler(450, 8);
+        val subsets = sampler.sample(10_000, new SplittableRandom(42));
+
+        assertEquals(10_000, subsets.size());
+        Set<List<Integer>> distinct = new HashSet<>();
+        for (int[] subset : subsets) {
+            assertEquals(8, subset.length);
+            assertTrue(subset[0] >= 0 && subset[7] < 450);
+            distinct.add(Arrays.stream(subset).boxed().toList());
+        }
+        assertEquals(10_000, distinct.size());
+    }
+
+    @Test
+    void testSampleUnrankableSpace() {
+        val sampler = new CombinationSampler(50_000, 8);
+        assertFalse(sampler.isRankable());
+
+        val subsets = sampler.sample(1_000, new SplittableRandom(3));
+        assertEquals(1_000, subsets.size());
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.fm;
+
+import at.tugraz.ist.ase.hiconfit.CXPlain;
+import at.tugraz.ist.ase.hiconfit.SurveyFM;
+import at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.builder.RequirementBuilder;
+import at.tugraz.ist.ase.hiconfit.fm.core.AbstractRelationship;
+import at.tugraz.ist.ase.hiconfit.fm.core.CTConstraint;
+import at.tugraz.ist.ase.hiconfit.fm.core.Feature;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FMCausalExplanationTemplateTest {
+
+    @Test
+    void testCXPlainWithTemplate() {
+        val fm = SurveyFM.create();
+
+        // SCONF -> explanation, as in CXPlainTest.testCXPlain2 to testCXPlain5
+        val expectedExps = new LinkedHashMap<String, String>();
+        expectedExps.put("multiplechoice=true", "[multiplemedia=false, or(qa, multiplechoice, multiplemedia), mandatory(survey, qa), survey = true]");
+        expectedExps.put("multiplemedia=false", "[multiplemedia=false]");
+        expectedExps.put("license=true,statistics=true", "[ABtesting=true [copied], requires(ABtesting, statistics), excludes(ABtesting, nonlicense), alternative(pay, license, nonlicense), mandatory(survey, pay), survey = true]");
+        expectedExps.put("multiplemedia=false,license=true", "[multiplemedia=false, ABtesting=true [copied], excludes(ABtesting, nonlicense), alternative(pay, license, nonlicense), mandatory(survey, pay), survey = true]");
+
+        val builder = new RequirementBuilder();
+
+        // one template and one checker for all SCONFs
+        val template = SurveyFM.template(fm);
+        val checker = new ChocoConsistencyChecker(template.getModel());
+        val cxPlain = new CXPlain(checker);
+
+        expectedExps.forEach((sconf_string, expectedExp) -> {
+            val instance = template.instantiate(builder.build(sconf_string));
+
+            // CONF, REQ and CF are shared by reference
+            assertSame(template.getCONF(), instance.getCONF());
+            assertSame(template.getREQ(), instance.getREQ());
+            assertSame(template.getCF(), instance.getCF());
+
+            CAEvaluator.reset();
+            val explanation = cxPlain.findExplanation(instance.getREQ(), instance.getCF(), instance.getCONF(), instance.getNSCONF());
+
+            assertEquals(expectedExp, explanation.toString());
+        });
+    }
+
+    @Test
+    void testConcurrentTemplates() throws Exception {
+        val fm = SurveyFM.create();
+
+        val builder = new RequirementBuilder();
+
+        // threads build templates of the same feature model, which are explained one after another
+        Callable<FMCausalExplanationTemplate<Feature, AbstractRelationship<Feature>, CTConstraint>> create =
+                () -> SurveyFM.template(fm);
+
+        val expected = explain(create.call(), builder);
+        val executor = Executors.newFixedThreadPool(8);
+        try {
+            for (val future : executor.invokeAll(Collections.nCopies(32, create))) {
+                assertEquals(expected, explain(future.get(10, TimeUnit.SECONDS), builder));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static String explain(FMCausalExplanationTemplate<Feature, AbstractRelationship<Feature>, CTConstraint> template,
+                                  RequirementBuilder builder) {
+        val instance = template.instantiate(builder.build("license=true"));
+        val explanation = new CXPlain(new ChocoConsistencyChecker(template.getModel()))
+                .findExplanation(instance.getREQ(), instance.getCF(), instance.getCONF(), instance.getNSCONF());
+        template.dispose();
+        return explanation.toString();
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.fm;
+
+import at.tugraz.ist.ase.hiconfit.checker.CompiledFM;
+import at.tugraz.ist.ase.hiconfit.fm.core.AbstractRelationship;
+import at.tugraz.ist.ase.hiconfit.fm.core.CTConstraint;
+import at.tugraz.ist.ase.hiconfit.fm.core.Feature;
+import at.tugraz.ist.ase.hiconfit.fm.core.FeatureModel;
+import at.tugraz.ist.ase.hiconfit.fm.factory.FeatureModels;
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import at.tugraz.ist.ase.hiconfit.kb.fm.FMKB;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FMSnapshotTest {
+
+    @Test
+    void testSnapshotHasSameConstraints(@TempDir Path folder) throws Exception {
+        File fmFile = folder.resolve("fqa.sxfm").toFile();
+        Files.copy(Path.of("./data/fms/fqa.sxfm"), fmFile.toPath());
+        File snapshotFile = new File(fmFile.getPath() + FMSnapshot.FILE_EXTENSION);
+
+        // parsed from XML, and the snapshot is written
+        val parsed = FMSnapshot.loadOrCreate(fmFile);
+        assertTrue(snapshotFile.exists());
+
+        // loaded from the snapshot
+        val loaded = FMSnapshot.load(snapshotFile, CompiledFM.hash(fmFile));
+        assertNotNull(loaded);
+        assertEquals(constraintNames(FeatureModels.fromFile(fmFile)), constraintNames(loaded));
+        assertEquals(constraintNames(parsed), constraintNames(FMSnapshot.loadOrCreate(fmFile)));
+    }
+
+    @Test
+    void testChangedFileInvalidatesSnapshot(@TempDir Path folder) throws Exception {
+        File fmFile = folder.resolve("fqa.sxfm").toFile();
+        Files.copy(Path.of("./data/fms/fqa.sxfm"), fmFile.toPath());
+        File snapshotFile = new File(fmFile.getPath() + FMSnapshot.FILE_EXTENSION);
+        FMSnapshot.loadOrCreate(fmFile);
+
+        Files.writeString(fmFile.toPath(), "\n", StandardOpenOption.APPEND);
+        assertNull(FMSnapshot.load(snapshotFile, CompiledFM.hash(fmFile)));
+
+        // rewritten for the changed file
+        FMSnapshot.loadOrCreate(fmFile);
+        assertNotNull(FMSnapshot.load(snapshotFile, CompiledFM.hash(fmFile)));
+    }
+
+    private static List<String> constraintNames(FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> fm) {
+        val fmKB = new FMKB<>(fm, false);
+        List<String> names = new ArrayList<>();
+        names.add(fmKB.getRootConstraint().getConstraint());
+        fmKB.getConstraintList().stream().map(Constraint::getConstraint).forEach(names::add);
+        return names;
+    }
+}
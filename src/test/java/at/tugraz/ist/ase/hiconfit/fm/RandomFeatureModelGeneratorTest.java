@@ -0,0 +1,59 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.fm;
+
+import at.tugraz.ist.ase.hiconfit.fm.factory.FeatureModels;
+import at.tugraz.ist.ase.hiconfit.kb.core.IBoolVarKB;
+import at.tugraz.ist.ase.hiconfit.kb.fm.FMKB;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RandomFeatureModelGeneratorTest {
+
+    @Test
+    void testSameSeedSameModel() {
+        val generator = new RandomFeatureModelGenerator(500, 0.2, 0.5);
+
+        val fm1 = generator.generate("synthetic_500", new SplittableRandom(2024));
+        val fm2 = generator.generate("synthetic_500", new SplittableRandom(2024));
+
+        assertEquals(fm1.sxfm(), fm2.sxfm());
+        assertEquals(fm1.witness(), fm2.witness());
+        assertEquals(500, fm1.witness().size());
+        assertEquals(100, fm1.numCTCs());
+    }
+
+    @Test
+    void testWitnessIsValid(@TempDir Path folder) throws Exception {
+        val generator = new RandomFeatureModelGenerator(300, 0.3, 0.5);
+        val syntheticFM = generator.generate("synthetic_300", new SplittableRandom(7));
+
+        File fmFile = folder.resolve("synthetic_300.sxfm").toFile();
+        Files.writeString(fmFile.toPath(), syntheticFM.sxfm());
+        val fm = FeatureModels.fromFile(fmFile);
+
+        val fmKB = new FMKB<>(fm, false);
+        val model = fmKB.getModelKB();
+        model.unpost(model.getCstrs());
+        fmKB.getRootConstraint().getChocoConstraints().forEach(model::post);
+        fmKB.getConstraintList().forEach(c -> c.getChocoConstraints().forEach(model::post));
+        syntheticFM.witness().forEach(a -> model.arithm(((IBoolVarKB) fmKB).getBoolVar(a.getVariable()), "=",
+                a.getValue().equals("true") ? 1 : 0).post());
+
+        assertTrue(model.getSolver().solve());
+    }
+}
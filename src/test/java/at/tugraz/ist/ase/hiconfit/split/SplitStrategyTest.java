@@ -0,0 +1,52 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.split;
+
+import at.tugraz.ist.ase.hiconfit.CXPlain;
+import at.tugraz.ist.ase.hiconfit.SurveyFM;
+import at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.builder.RequirementBuilder;
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import com.google.common.collect.Sets;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SplitStrategyTest {
+
+    @Test
+    void testSplitStrategies() {
+        val fm = SurveyFM.create();
+
+        val builder = new RequirementBuilder();
+        val template = SurveyFM.template(fm);
+        val checker = new ChocoConsistencyChecker(template.getModel());
+
+        for (String name : List.of(SplitStrategy.HALVES, SplitStrategy.GALLOPING, SplitStrategy.LEARNED)) {
+            val cxPlain = new CXPlain(checker, SplitStrategy.of(name));
+
+            // multiplechoice=true again, once the learned strategy splits at its learned point
+            for (String sconf : List.of("multiplechoice=true", "license=true", "multiplechoice=true")) {
+                val instance = template.instantiate(builder.build(sconf));
+                val explanation = cxPlain.findExplanation(instance.getREQ(), instance.getCF(), instance.getCONF(), instance.getNSCONF());
+
+                // every strategy returns a minimal explanation
+                assertFalse(explanation.isEmpty());
+                assertFalse(checker.isConsistent(Sets.union(explanation, instance.getNSCONF())), name + " " + sconf);
+                for (Constraint c : explanation) {
+                    assertTrue(checker.isConsistent(Sets.union(Sets.difference(explanation, Set.of(c)), instance.getNSCONF())), name + " " + sconf);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Causality-based Explanation for Feature Model Configuration
+ *
+ * Copyright (c) 2024
+ *
+ * @author: Viet-Man Le (v.m.le@tugraz.at)
+ */
+
+package at.tugraz.ist.ase.hiconfit.verify;
+
+import at.tugraz.ist.ase.hiconfit.CXPlain;
+import at.tugraz.ist.ase.hiconfit.SurveyFM;
+import at.tugraz.ist.ase.hiconfit.cacdr.checker.ChocoConsistencyChecker;
+import at.tugraz.ist.ase.hiconfit.cacdr.eval.CAEvaluator;
+import at.tugraz.ist.ase.hiconfit.cacdr_core.builder.RequirementBuilder;
+import at.tugraz.ist.ase.hiconfit.fm.core.Feature;
+import at.tugraz.ist.ase.hiconfit.kb.core.Constraint;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashSet;
+
+import static at.tugraz.ist.ase.hiconfit.verify.ExplanationVerifier.FailureKind.NOT_MINIMAL;
+import static at.tugraz.ist.ase.hiconfit.verify.ExplanationVerifier.FailureKind.NOT_SUFFICIENT;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExplanationVerifierTest {
+    @Test
+    void testVerify() {
+        val fm = SurveyFM.create();
+
+        val builder = new RequirementBuilder();
+        val userRequirement = builder.build(SurveyFM.REQUIREMENT);
+        val configuration = builder.build(SurveyFM.CONFIGURATION);
+        val sconf = builder.build("multiplechoice=true");
+
+        // the explanation is found in another model than the ones of the verifier
+        val template = SurveyFM.template(fm);
+        val instance = template.instantiate(sconf);
+        val explanation = new CXPlain(new ChocoConsistencyChecker(template.getModel()))
+                .findExplanation(instance.getREQ(), instance.getCF(), instance.getCONF(), instance.getNSCONF());
+
+        // with a redundant constraint
+        val nonMinimal = new LinkedHashSet<>(explanation);
+        template.getCONF().stream().filter(c -> c.getConstraint().equals("statistics=true")).forEach(nonMinimal::add);
+
+        // without the root constraint
+        val insufficient = new LinkedHashSet<Constraint>(explanation);
+        insufficient.removeIf(c -> c.getConstraint().equals("survey = true"));
+
+        CAEvaluator.reset();
+        try (val verifier = new ExplanationVerifier(fm, 1.0, 2)) {
+            assertTrue(verifier.submit(userRequirement, configuration, sconf, explanation));
+            assertTrue(verifier.submit(userRequirement, configuration, sconf, nonMinimal));
+            assertTrue(verifier.submit(userRequirement, configuration, sconf, insufficient));
+            verifier.close();
+
+            System.out.println(verifier.getReport());
+
+            assertEquals(3, verifier.getSampled());
+            assertEquals(1, verifier.getVerified());
+            assertEquals(2, verifier.getFailed());
+            assertEquals(0, verifier.getIncomplete());
+            assertEquals(1, verifier.getNonMinimal());
+            assertEquals(1, verifier.getInsufficient());
+            assertEquals(explanation.size() + 1 + nonMinimal.size() + 1 + insufficient.size() + 1, verifier.getChecks());
+            // the checks of the verifier are not counted as checks of the explaining threads
+            assertEquals(0, CAEvaluator.getCounter(CAEvaluator.COUNTER_CHOCO_SOLVER_CALLS).getValue());
+
+            val failures = verifier.getFailures();
+            assertTrue(failures.stream().anyMatch(f -> f.kind() == NOT_MINIMAL && f.constraint().equals("statistics=true")));
+            assertTrue(failures.stream().anyMatch(f -> f.kind() == NOT_SUFFICIENT));
+        }
+    }
+}